@@ -0,0 +1,116 @@
+/*
+Benchmarks of the Eckstein-Hechler batch against step by step propagation.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.orekit.propagation.*;
+import org.orekit.time.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// One operation evaluates all states of the scenario grid, alone and with the sun angles as PropagationChunk does.
+// The trial setup checks the batch against EcksteinHechlerPropagator on the grid and fails beyond the tolerance.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchPropagationBenchmark
+{
+    @Param({"64", "1024"})
+    public int BlockSize;
+
+    private EcksteinHechlerBatch Batch;
+    private Vector3D[] SunPositions;
+
+    @Setup(Level.Trial)
+    public void SetUp(BenchmarkScenario Bench)
+    {
+        Batch = Bench.Scen.Backend.CreateBatch();
+        double[] Deviation = Batch.Deviation(Bench.Scen.CreatePropagator(), Bench.Scen.TimeStart, 0, Bench.Scen.dt, Bench.Steps);
+        if (Deviation[0] > EcksteinHechlerBatch.PositionTolerance || Deviation[1] > EcksteinHechlerBatch.VelocityTolerance) {
+            throw new IllegalStateException("Batch deviates from EcksteinHechlerPropagator by " + Deviation[0] + " m, "
+                    + Deviation[1] + " m/s.");
+        }
+        SunPositions = new Vector3D[Bench.Steps];
+        double[] Earth2Sun = new double[3];
+        for (int i = 0; i < Bench.Steps; i++) {
+            Bench.Scen.SunPosition(Bench.Scen.StepDate(i), Earth2Sun);
+            SunPositions[i] = new Vector3D(Earth2Sun);
+        }
+    }
+
+    // Step by step through the propagator, SpacecraftState per date.
+    @Benchmark
+    public void Propagation(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        Propagator Propagator = Bench.Scen.CreatePropagator();
+        for (int i = 0; i < Bench.Steps; i++) {
+            Hole.consume(Propagator.propagate(Bench.Scen.StepDate(i)));
+        }
+    }
+
+    // Positions and velocities in blocks.
+    @Benchmark
+    public void BatchPropagation(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        EcksteinHechlerBatch.Block Block = new EcksteinHechlerBatch.Block(BlockSize);
+        for (int First = 0; First < Bench.Steps; First += BlockSize) {
+            int Count = Math.min(BlockSize, Bench.Steps - First);
+            Batch.Evaluate(Bench.Scen.TimeStart, First, Bench.Scen.dt, Count, Block);
+            Hole.consume(Block.X[Count - 1]);
+        }
+    }
+
+    // Propagator plus kernel with precomputed Sun positions.
+    @Benchmark
+    public void PropagationWithAngles(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        Propagator Propagator = Bench.Scen.CreatePropagator();
+        SunAngleKernel Kernel = new SunAngleKernel();
+        for (int i = 0; i < Bench.Steps; i++) {
+            AbsoluteDate Date = Bench.Scen.StepDate(i);
+            Kernel.Compute(Propagator.propagate(Date).getPVCoordinates(), SunPositions[i]);
+            Hole.consume(Kernel.Azimuth + Kernel.Elevation + Kernel.Subsolar);
+        }
+    }
+
+    // Batch plus kernel with precomputed Sun positions.
+    @Benchmark
+    public void BatchPropagationWithAngles(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        EcksteinHechlerBatch.Block Block = new EcksteinHechlerBatch.Block(BlockSize);
+        SunAngleKernel Kernel = new SunAngleKernel();
+        for (int First = 0; First < Bench.Steps; First += BlockSize) {
+            int Count = Math.min(BlockSize, Bench.Steps - First);
+            Batch.Evaluate(Bench.Scen.TimeStart, First, Bench.Scen.dt, Count, Block);
+            for (int k = 0; k < Count; k++) {
+                Vector3D Sun = SunPositions[First + k];
+                Kernel.Compute(Block.X[k], Block.Y[k], Block.Z[k], Block.VX[k], Block.VY[k], Block.VZ[k],
+                        Sun.getX(), Sun.getY(), Sun.getZ());
+                Hole.consume(Kernel.Azimuth + Kernel.Elevation + Kernel.Subsolar);
+            }
+        }
+    }
+}
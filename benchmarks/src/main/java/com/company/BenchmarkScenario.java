@@ -0,0 +1,82 @@
+/*
+Shared scenario for the JMH benchmarks, parameterized by time step and duration.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.*;
+import org.orekit.data.*;
+import org.orekit.propagation.*;
+import org.orekit.time.*;
+
+// Default settings with the time step and duration of the benchmark parameters. The Orekit data directory is taken
+// from the system property orekit.data (default Libraries/orekit-data); it must contain JPL ephemerides for the Sun.
+@State(Scope.Benchmark)
+public class BenchmarkScenario
+{
+    @Param({"1", "10", "60"})
+    public String StepSize;
+
+    @Param({"0.1", "1"})
+    public String DurationDays;
+
+    Settings Set;
+    Scenario Scen;
+    int Steps;
+
+    private static boolean fDataLoaded = false;
+
+    @Setup(Level.Trial)
+    public void SetUp()
+    {
+        LoadOrekitData();
+        Settings.fDisplayMessages = false;
+        Map<String, String> Overrides = new HashMap<>();
+        Overrides.put("SimTimeStep", StepSize);
+        Overrides.put("SimDurationInDays", DurationDays);
+        Overrides.put("SimSunCacheAccuracy", "1e-9");      // for the cached Sun benchmarks
+        Set = new Settings(Settings.CreateDefault(), Overrides);
+        Scen = new Scenario(Set);
+        Steps = (int) Scen.TimeSteps;
+    }
+
+    static synchronized void LoadOrekitData()
+    {
+        if (!fDataLoaded) {
+            File OrekitData = new File(System.getProperty("orekit.data", "Libraries/orekit-data"));
+            DataProvidersManager.getInstance().addProvider(new DirectoryCrawler(OrekitData));
+            fDataLoaded = true;
+        }
+    }
+
+    // Propagated states on the time grid of the scenario.
+    SpacecraftState[] PropagateGrid()
+    {
+        Propagator Propagator = Scen.CreatePropagator();
+        SpacecraftState[] States = new SpacecraftState[Steps];
+        for (int i = 0; i < Steps; i++) {
+            States[i] = Propagator.propagate(Scen.StepDate(i));
+        }
+        return States;
+    }
+}
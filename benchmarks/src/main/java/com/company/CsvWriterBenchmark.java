@@ -0,0 +1,87 @@
+/*
+Benchmarks of the sun angle CSV writers.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.orekit.time.*;
+
+// One operation writes all rows of the scenario grid to a discarding writer. Both writers are checked for identical
+// output before the measurement.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CsvWriterBenchmark
+{
+    @Param({"printf", "fast"})
+    public String CsvWriter;
+
+    private AbsoluteDate[] Dates;
+    private double[] Azimuth, Elevation, Subsolar;
+
+    @Setup(Level.Trial)
+    public void SetUp(BenchmarkScenario Bench) throws IOException
+    {
+        int Steps = Bench.Steps;
+        Dates = new AbsoluteDate[Steps];
+        Azimuth = new double[Steps];
+        Elevation = new double[Steps];
+        Subsolar = new double[Steps];
+        for (int i = 0; i < Steps; i++) {
+            Dates[i] = Bench.Scen.StepDate(i);
+            Azimuth[i] = (i * 0.7311) % 360;
+            Elevation[i] = ((i * 0.3137) % 180) - 90;
+            Subsolar[i] = (i * 0.1571) % 180;
+        }
+
+        // Byte-for-byte comparison of both writers.
+        StringWriter Printf = new StringWriter(), Fast = new StringWriter();
+        WriteAll(new CsvSunAngleSink(new PrintWriter(Printf)));
+        WriteAll(new FastCsvSunAngleSink(new PrintWriter(Fast)));
+        if (!Printf.toString().equals(Fast.toString())) {
+            throw new IllegalStateException("Fast CSV writer output differs from printf output.");
+        }
+    }
+
+    private void WriteAll(SunAngleSink Sink) throws IOException
+    {
+        for (int i = 0; i < Dates.length; i++) {
+            Sink.Write(Dates[i], Azimuth[i], Elevation[i], Subsolar[i]);
+        }
+        Sink.Close();
+    }
+
+    @Benchmark
+    public void WriteRows() throws IOException
+    {
+        PrintWriter Out = new PrintWriter(new BufferedWriter(new Writer() {
+            public void write(char[] cbuf, int off, int len) { }
+            public void flush() { }
+            public void close() { }
+        }));
+        WriteAll(CsvWriter.equals("printf") ? new CsvSunAngleSink(Out) : new FastCsvSunAngleSink(Out));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+Benchmarks of the Eckstein-Hechler propagation and the elevation detector.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.orekit.propagation.*;
+import org.orekit.propagation.events.*;
+import org.orekit.propagation.events.handlers.*;
+
+// One operation propagates the whole scenario duration on the fixed step grid in slave mode.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropagationBenchmark
+{
+    private static void Propagate(BenchmarkScenario Bench, Propagator Propagator, Blackhole Hole)
+    {
+        for (int i = 0; i < Bench.Steps; i++) {
+            Hole.consume(Propagator.propagate(Bench.Scen.StepDate(i)));
+        }
+    }
+
+    @Benchmark
+    public void Propagation(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        Propagate(Bench, Bench.Scen.CreatePropagator(), Hole);
+    }
+
+    // Elevation detector whose events do not change the propagation.
+    @Benchmark
+    public void PropagationWithDetector(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        Propagator Propagator = Bench.Scen.CreatePropagator();
+        Propagator.addEventDetector(new ElevationDetector(Bench.Scen.MaxCheckInterval, Bench.Scen.MaxDivThreshold,
+                Bench.Scen.Stations.get(0).Frame).withConstantElevation(Math.toRadians(Bench.Scen.Stations.get(0).MinElevation))
+                .withHandler(new ContinueOnEvent<>()));
+        Propagate(Bench, Propagator, Hole);
+    }
+
+    // Elevation detector with the VisibilityHandler collecting the accesses on the step grid, as PropagationChunk did
+    // before the separate access search.
+    @Benchmark
+    public void PropagationWithVisibilityHandler(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        GroundStation Station = Bench.Scen.Stations.get(0);
+        VisibilityHandler Handler = new VisibilityHandler(Station.Name, Bench.Scen.TimeStart);
+        Propagator Propagator = Bench.Scen.CreatePropagator();
+        Propagator.addEventDetector(new ElevationDetector(Bench.Scen.MaxCheckInterval, Bench.Scen.MaxDivThreshold,
+                Station.Frame).withConstantElevation(Math.toRadians(Station.MinElevation)).withHandler(Handler));
+        Propagate(Bench, Propagator, Hole);
+        Handler.FinishChunk();
+        Hole.consume(Handler);
+    }
+
+    // Access search over the scenario duration as done by PropagationChunk after the sun angle grid.
+    @Benchmark
+    public void AccessSearch(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        List<VisibilityHandler> Handlers = Collections.singletonList(
+                new VisibilityHandler(Bench.Scen.Stations.get(0).Name, Bench.Scen.TimeStart));
+        new AccessSearch(Bench.Scen, Handlers).Run(Bench.Scen.TimeStart, Bench.Scen.StepDate(Bench.Steps - 1));
+        Handlers.get(0).FinishChunk();
+        Hole.consume(Handlers);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+JMH benchmark of the access computation for a network of ground stations.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+// One operation searches the accesses of all stations over one day, with and without the pre-screen.
+// Stations are spread over a latitude/longitude grid so that most of them are below the horizon at any time.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StationBenchmark
+{
+    @Param({"1", "10", "40"})
+    public int Stations;
+
+    @Param({"true", "false"})
+    public String Prescreen;
+
+    private Scenario Scen;
+
+    @Setup(Level.Trial)
+    public void SetUp()
+    {
+        BenchmarkScenario.LoadOrekitData();
+        Settings.fDisplayMessages = false;
+        Map<String, String> Overrides = new HashMap<>();
+        StringBuilder Names = new StringBuilder();
+        for (int s = 0; s < Stations; s++) {
+            String Name = "GS" + s;
+            Names.append(Name).append(';');
+            Overrides.put("GroundStation." + Name + ".Lat", String.valueOf(-60 + 120.0 * (s % 8) / 7));
+            Overrides.put("GroundStation." + Name + ".Lon", String.valueOf(-180 + 360.0 * s / Math.max(Stations, 1)));
+            Overrides.put("GroundStation." + Name + ".MinElevation", "5");
+        }
+        Overrides.put("GroundStations", Names.toString());
+        Overrides.put("SimStationPrescreen", Prescreen);
+        Overrides.put("SimDurationInDays", "1");
+        Scen = new Scenario(new Settings(Settings.CreateDefault(), Overrides));
+    }
+
+    @Benchmark
+    public void AccessSearch(Blackhole Hole)
+    {
+        List<VisibilityHandler> Handlers = new ArrayList<>();
+        for (String Name : Scen.StationNames()) {
+            Handlers.add(new VisibilityHandler(Name, Scen.TimeStart));
+        }
+        new AccessSearch(Scen, Handlers).Run(Scen.TimeStart, Scen.TimeEnd);
+        for (VisibilityHandler VisH : Handlers) {
+            VisH.FinishChunk();
+        }
+        Hole.consume(Handlers);
+    }
+}
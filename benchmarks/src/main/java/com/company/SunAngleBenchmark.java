@@ -0,0 +1,133 @@
+/*
+Benchmarks of the Sun lookup and cache, frame transforms and sun angle math.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.orekit.propagation.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// One operation evaluates all states of the scenario grid, the states are propagated once per trial.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SunAngleBenchmark
+{
+    private TimeStampedPVCoordinates[] States;
+    private Vector3D[] SunPositions;
+
+    @Setup(Level.Trial)
+    public void SetUp(BenchmarkScenario Bench)
+    {
+        SpacecraftState[] Grid = Bench.PropagateGrid();
+        States = new TimeStampedPVCoordinates[Grid.length];
+        SunPositions = new Vector3D[Grid.length];
+        for (int i = 0; i < Grid.length; i++) {
+            States[i] = Grid[i].getPVCoordinates();
+            SunPositions[i] = Bench.Scen.Sun.getPVCoordinates(States[i].getDate(), Bench.Scen.InertialFrame).getPosition();
+        }
+    }
+
+    // Sun position through a LocalOrbitalFrame per step, as Main originally did.
+    @Benchmark
+    public void FrameBasedAngles(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        for (TimeStampedPVCoordinates State : States) {
+            Hole.consume(SunAngleKernel.ComputeReference(State, Bench.Scen.Sun, Bench.Scen.InertialFrame));
+        }
+    }
+
+    // Sun ephemeris lookup in the inertial frame only.
+    @Benchmark
+    public void SunLookup(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        for (TimeStampedPVCoordinates State : States) {
+            Hole.consume(Bench.Scen.Sun.getPVCoordinates(State.getDate(), Bench.Scen.InertialFrame));
+        }
+    }
+
+    // Sun position interpolated from the ephemeris cache.
+    @Benchmark
+    public void SunCacheLookup(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        double[] Position = new double[3];
+        for (TimeStampedPVCoordinates State : States) {
+            Bench.Scen.SunCache.Position(State.getDate(), Position);
+            Hole.consume(Position[0] + Position[1] + Position[2]);
+        }
+    }
+
+    // Direct Sun lookup plus kernel.
+    @Benchmark
+    public void KernelAngles(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        SunAngleKernel Kernel = new SunAngleKernel();
+        for (TimeStampedPVCoordinates State : States) {
+            Kernel.Compute(State, Bench.Scen.Sun.getPVCoordinates(State.getDate(), Bench.Scen.InertialFrame).getPosition());
+            Hole.consume(Kernel.Azimuth + Kernel.Elevation + Kernel.Subsolar);
+        }
+    }
+
+    // Cached Sun position plus kernel, as PropagationChunk does per step.
+    @Benchmark
+    public void KernelAnglesCachedSun(BenchmarkScenario Bench, Blackhole Hole)
+    {
+        SunAngleKernel Kernel = new SunAngleKernel();
+        double[] Earth2Sun = new double[3];
+        for (TimeStampedPVCoordinates State : States) {
+            Bench.Scen.SunPosition(State.getDate(), Earth2Sun);
+            Kernel.Compute(State, Earth2Sun);
+            Hole.consume(Kernel.Azimuth + Kernel.Elevation + Kernel.Subsolar);
+        }
+    }
+
+    // Angle math only, Sun positions precomputed.
+    @Benchmark
+    public void KernelMath(Blackhole Hole)
+    {
+        SunAngleKernel Kernel = new SunAngleKernel();
+        for (int i = 0; i < States.length; i++) {
+            Kernel.Compute(States[i], SunPositions[i]);
+            Hole.consume(Kernel.Azimuth + Kernel.Elevation + Kernel.Subsolar);
+        }
+    }
+
+    // Angle math with all extra columns (Earth angles, angular radius, eclipse flags), Sun positions precomputed.
+    @Benchmark
+    public void KernelMathWithExtra(Blackhole Hole)
+    {
+        SunAngleKernel Kernel = new SunAngleKernel();
+        int[] Selection = SunAngleKernel.SelectExtra(String.join(";", SunAngleKernel.ExtraNames));
+        double[] Extra = new double[Selection.length];
+        for (int i = 0; i < States.length; i++) {
+            Kernel.Compute(States[i], SunPositions[i]);
+            Kernel.ComputeExtra(Selection, Extra);
+            Hole.consume(Kernel.Azimuth + Kernel.Elevation + Kernel.Subsolar);
+            Hole.consume(Extra);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+/*
+Access of a satellite to a ground station.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.orekit.time.*;
+
+// Access from Begin to End, as collected for sorting before it is written. Satellite is null within a single run.
+final class Access
+{
+    final String Satellite, Station;
+    final AbsoluteDate Begin, End;
+
+    Access(String satellite, String station, AbsoluteDate begin, AbsoluteDate end)
+    {
+        Satellite = satellite;
+        Station = station;
+        Begin = begin;
+        End = end;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+Access file shared by the visibility handlers of all ground stations.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import org.orekit.time.*;
+
+class AccessFile implements AccessSink
+{
+    private PrintWriter AccessWriter;
+    private int AccessNum = 1;
+    private CsvRowEncoder Encoder;
+    private double TotalDuration = 0;
+
+    // Add a station column, used when more than one ground station is configured.
+    private final boolean fTagStations;
+
+    // Also receives every access written, e.g. for the combined timeline of a constellation. null = none.
+    AccessSink Timeline = null;
+
+    AccessFile(Settings set, boolean tagStations)
+    {
+        fTagStations = tagStations;
+        // Write header to access file
+        try {
+            String FilePath = set.GetValue("ResultsDirectory") + "/" + set.GetValue("ExpFileAccessTimes");
+            AccessWriter = new PrintWriter(FilePath, set.GetValue("ExpTextFormat"));
+            AccessWriter.println(fTagStations
+                    ? "\"Access\",\"Station\",\"Start Time (UTCG)\",\"Stop Time (UTCG)\",\"Duration (sec)\""
+                    : "\"Access\",\"Start Time (UTCG)\",\"Stop Time (UTCG)\",\"Duration (sec)\"");
+            if (!set.GetValue("ExpCsvWriter", "fast").equalsIgnoreCase("printf")) {
+                Encoder = new CsvRowEncoder(256);
+            }
+        }
+        catch (Exception e)
+        {
+            System.out.println("Error: Could not setup access file:" + e.toString());
+        }
+    }
+
+    // Write a single access into the file.
+    public synchronized void WriteAccess(String Station, AbsoluteDate Begin, AbsoluteDate End)
+    {
+        if (Timeline != null) {
+            Timeline.WriteAccess(Station, Begin, End);
+        }
+        // Extract date, time and duration of the access.
+        try {
+            double visDuration = End.durationFrom(Begin);
+            TotalDuration += visDuration;
+
+            // Write access into file.
+            if (Encoder != null) {
+                Encoder.Append(AccessNum++);
+                Encoder.Append(',');
+                if (fTagStations) {
+                    Encoder.Append(Station);
+                    Encoder.Append(',');
+                }
+                Encoder.AppendDate(Begin);
+                Encoder.Append(',');
+                Encoder.AppendDate(End);
+                Encoder.Append(',');
+                Encoder.AppendFixed3(visDuration, 7);
+                Encoder.Append('\n');
+                Encoder.Flush(AccessWriter);
+                return;
+            }
+            DateTimeComponents compsBegin = Begin.getComponents(0);
+            DateTimeComponents compsEnd = End.getComponents(0);
+            DateComponents dateBegin = compsBegin.getDate();
+            DateComponents dateEnd = compsEnd.getDate();
+            TimeComponents timeBegin = compsBegin.getTime();
+            TimeComponents timeEnd = compsEnd.getTime();
+
+            AccessWriter.printf(Settings.LocalFormat, "%d," + (fTagStations ? Station + "," : "")
+                            + "%d %s %d %02d:%02d:%06.3f,%d %s %d %02d:%02d:%06.3f,%07.3f\n",
+                    AccessNum++,
+                    dateBegin.getDay(), dateBegin.getMonthEnum().getCapitalizedAbbreviation(),
+                    dateBegin.getYear(), timeBegin.getHour(), timeBegin.getMinute(), timeBegin.getSecond(),
+                    dateEnd.getDay(), dateEnd.getMonthEnum().getCapitalizedAbbreviation(), dateEnd.getYear(),
+                    timeEnd.getHour(), timeEnd.getMinute(), timeEnd.getSecond(), visDuration);
+        } catch (Exception e) {
+            System.out.println("Error: Writing to access file failed:" + e.toString());
+        }
+    }
+
+    // Write the stitched accesses of all stations, ordered by stop time like in a sequential run.
+    void WriteStitched(List<String> Stations, List<List<VisibilityHandler>> ChunksPerStation)
+    {
+        List<Access> All = new ArrayList<>();
+        for (int s = 0; s < Stations.size(); s++) {
+            for (AbsoluteDate[] Dates : VisibilityHandler.Stitch(ChunksPerStation.get(s))) {
+                All.add(new Access(null, Stations.get(s), Dates[0], Dates[1]));
+            }
+        }
+        All.sort(Comparator.comparing(Stitched -> Stitched.End));
+        for (Access Stitched : All) {
+            WriteAccess(Stitched.Station, Stitched.Begin, Stitched.End);
+        }
+    }
+
+    // Number of accesses written.
+    int AccessCount()
+    {
+        return AccessNum - 1;
+    }
+
+    // Total duration of the accesses written [s].
+    double AccessDuration()
+    {
+        return TotalDuration;
+    }
+
+    void CloseFile()
+    {
+        AccessWriter.close();
+    }
+}
@@ -0,0 +1,228 @@
+/*
+Search of the station accesses within a time span, independent of the output time grid.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.orekit.time.*;
+import org.orekit.propagation.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// Finds the rise and set times of all ground stations in [Start, End] with its own propagator, so the sun angle grid
+// is never interrupted by events. A coarse pre-pass steps along the orbit with the largest steps for which no station
+// can be in view (see StationVisibilityDetector.OutOfViewTime) and brackets the candidate windows around possible
+// passes. Within the windows, the times of closest approach to each station split the propagation, so the detectors
+// see every pass at its highest point even if it is shorter than SimMaxCheck. Only these windows are propagated with
+// the detectors, sampled at least every SimMaxCheck and refined to SimDivThreshold.
+class AccessSearch
+{
+    private final Scenario Scen;
+    private final List<VisibilityHandler> Handlers;
+    private final Propagator Propagator;
+
+    // Detector evaluations of all runs, and of these answered by the pre-screen
+    long DetectorEvaluations = 0, DetectorPrescreened = 0;
+
+    AccessSearch(Scenario scen, List<VisibilityHandler> handlers)
+    {
+        this(scen, handlers, scen.CreatePropagator());
+    }
+
+    // Search with a propagator of the scenario kept by the caller, e.g. across consecutive chunks, so an integrated
+    // propagator continues from its last date instead of starting again at the initial orbit.
+    AccessSearch(Scenario scen, List<VisibilityHandler> handlers, Propagator propagator)
+    {
+        Scen = scen;
+        Handlers = handlers;
+        Propagator = propagator;
+    }
+
+    // Search accesses in [Start, End] and report them to the handlers.
+    void Run(AbsoluteDate Start, AbsoluteDate End)
+    {
+        Propagator.clearEventsDetectors();
+        StationVisibilityDetector.EarthTransformCache Cache = new StationVisibilityDetector.EarthTransformCache(Scen.EarthFrame);
+        List<StationVisibilityDetector> Detectors = Scen.CreateDetectors(Handlers, Cache);
+
+        // Stations already in view at the start of the search
+        SpacecraftState StartState = Propagator.propagate(Start, Start);
+        for (int s = 0; s < Detectors.size(); s++) {
+            if (Detectors.get(s).g(StartState) > 0) {
+                Handlers.get(s).StartInView(Start);
+            }
+        }
+
+        List<AbsoluteDate[]> Windows;
+        if (Scen.fStationPrescreen) {
+            Windows = CandidateWindows(Propagator, Detectors, Cache, Start, End);
+        } else {
+            Windows = new ArrayList<>();
+            Windows.add(new AbsoluteDate[] {Start, End});
+        }
+        List<List<AbsoluteDate>> SplitDates = new ArrayList<>();
+        for (AbsoluteDate[] Window : Windows) {
+            SplitDates.add(ClosestApproaches(Propagator, Detectors, Cache, Window[0], Window[1]));
+        }
+
+        // Propagate the windows with the detectors, each split at the closest approaches.
+        for (StationVisibilityDetector Detector : Detectors) {
+            Propagator.addEventDetector(Detector);
+        }
+        for (int w = 0; w < Windows.size(); w++) {
+            AbsoluteDate[] Window = Windows.get(w);
+            Propagator.propagate(Window[0], Window[0]);
+            AbsoluteDate Date = Window[0];
+            List<AbsoluteDate> Targets = new ArrayList<>(SplitDates.get(w));
+            Targets.add(Window[1]);
+            for (AbsoluteDate Target : Targets) {
+                PropagateInSteps(Propagator, Date, Target);
+                Date = Target;
+            }
+        }
+        for (StationVisibilityDetector Detector : Detectors) {
+            DetectorEvaluations += Detector.Evaluations;
+            DetectorPrescreened += Detector.Prescreened;
+        }
+    }
+
+    // Propagate in steps of at most SimMaxCheck. Orekit computes a separate state for every detector and sample date;
+    // with a single sample per step, all detectors ask for the same date and share the cached state.
+    private void PropagateInSteps(Propagator Propagator, AbsoluteDate From, AbsoluteDate To)
+    {
+        double Span = To.durationFrom(From);
+        int Steps = (int) Math.ceil(Span / Scen.MaxCheckInterval);
+        for (int k = 1; k < Steps; k++) {
+            Propagator.propagate(From.shiftedBy(Span * k / Steps));
+        }
+        Propagator.propagate(To);
+    }
+
+    // Position in the Earth frame at a date, from a propagator without detectors.
+    private static Vector3D EarthPosition(Propagator Propagator, StationVisibilityDetector.EarthTransformCache Cache,
+                                          AbsoluteDate Date)
+    {
+        SpacecraftState State = Propagator.propagate(Date);
+        return Cache.Get(State.getFrame(), Date).transformPosition(State.getPVCoordinates().getPosition());
+    }
+
+    // Sorted dates within (Start, End) at which the central angle to a station has a local minimum at which the
+    // station may see the satellite. The angle is sampled every SimMaxCheck, at most every eighth of the orbit period
+    // so that each minimum is bracketed, and the minima are refined by golden section search to 1 s.
+    private List<AbsoluteDate> ClosestApproaches(Propagator Propagator, List<StationVisibilityDetector> Detectors,
+                                                 StationVisibilityDetector.EarthTransformCache Cache,
+                                                 AbsoluteDate Start, AbsoluteDate End)
+    {
+        List<AbsoluteDate> Dates = new ArrayList<>();
+        double Span = End.durationFrom(Start);
+        int Samples = (int) Math.ceil(Span / Math.min(Scen.MaxCheckInterval, Scen.InitialOrbit.getKeplerianPeriod() / 8));
+        if (Samples < 2) {
+            return Dates;
+        }
+        double Step = Span / Samples;
+        double[][] Angles = new double[Detectors.size()][Samples + 1];
+        for (int j = 0; j <= Samples; j++) {
+            Vector3D Position = EarthPosition(Propagator, Cache, Start.shiftedBy(j * Step));
+            for (int s = 0; s < Detectors.size(); s++) {
+                Angles[s][j] = Vector3D.angle(Position, Detectors.get(s).Station.Direction);
+            }
+        }
+        for (int s = 0; s < Detectors.size(); s++) {
+            for (int j = 1; j < Samples; j++) {
+                if (Angles[s][j] <= Angles[s][j - 1] && Angles[s][j] < Angles[s][j + 1]) {
+                    AbsoluteDate Closest = MinimizeCentralAngle(Propagator, Cache, Detectors.get(s).Station,
+                            Start.shiftedBy((j - 1) * Step), 2 * Step);
+                    if (Detectors.get(s).OutOfViewTime(EarthPosition(Propagator, Cache, Closest)) == 0) {
+                        Dates.add(Closest);
+                    }
+                }
+            }
+        }
+        Dates.sort(AbsoluteDate::compareTo);
+        return Dates;
+    }
+
+    // Golden section search for the minimum of the central angle to a station in [From, From + Span], to 1 s.
+    private static AbsoluteDate MinimizeCentralAngle(Propagator Propagator,
+                                                     StationVisibilityDetector.EarthTransformCache Cache,
+                                                     GroundStation Station, AbsoluteDate From, double Span)
+    {
+        final double InvPhi = (Math.sqrt(5) - 1) / 2;
+        double a = 0, b = Span;
+        double c = b - InvPhi * (b - a), d = a + InvPhi * (b - a);
+        double fc = Vector3D.angle(EarthPosition(Propagator, Cache, From.shiftedBy(c)), Station.Direction);
+        double fd = Vector3D.angle(EarthPosition(Propagator, Cache, From.shiftedBy(d)), Station.Direction);
+        while (b - a > 1) {
+            if (fc < fd) {
+                b = d;
+                d = c;
+                fd = fc;
+                c = b - InvPhi * (b - a);
+                fc = Vector3D.angle(EarthPosition(Propagator, Cache, From.shiftedBy(c)), Station.Direction);
+            } else {
+                a = c;
+                c = d;
+                fc = fd;
+                d = a + InvPhi * (b - a);
+                fd = Vector3D.angle(EarthPosition(Propagator, Cache, From.shiftedBy(d)), Station.Direction);
+            }
+        }
+        return From.shiftedBy((a + b) / 2);
+    }
+
+    // Windows in [Start, End] outside of which no station can see the satellite. Window bounds are dates at which no
+    // station is in view, except Start and End themselves.
+    private List<AbsoluteDate[]> CandidateWindows(Propagator Propagator, List<StationVisibilityDetector> Detectors,
+                                                  StationVisibilityDetector.EarthTransformCache Cache,
+                                                  AbsoluteDate Start, AbsoluteDate End)
+    {
+        List<AbsoluteDate[]> Windows = new ArrayList<>();
+        double MinSkip = Scen.MaxCheckInterval;
+        AbsoluteDate Date = Start, Previous = Start, WindowStart = null;
+        while (true) {
+            Vector3D Position = EarthPosition(Propagator, Cache, Date);
+            double Skip = Double.POSITIVE_INFINITY;
+            for (StationVisibilityDetector Detector : Detectors) {
+                Skip = Math.min(Skip, Detector.OutOfViewTime(Position));
+            }
+
+            // Skips shorter than the max check interval count as candidate, avoids creeping towards a grazing pass.
+            if (Skip < MinSkip) {
+                if (WindowStart == null) {
+                    WindowStart = Previous;
+                }
+                Skip = MinSkip;
+            } else if (WindowStart != null) {
+                Windows.add(new AbsoluteDate[] {WindowStart, Date});
+                WindowStart = null;
+            }
+            if (Date.compareTo(End) >= 0) {
+                break;
+            }
+            Previous = Date;
+            Date = End.durationFrom(Date) > Skip ? Date.shiftedBy(Skip) : End;
+        }
+        if (WindowStart != null) {
+            Windows.add(new AbsoluteDate[] {WindowStart, End});
+        }
+        return Windows;
+    }
+}
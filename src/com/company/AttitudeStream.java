@@ -0,0 +1,180 @@
+/*
+Iterator over sun angle samples and accesses produced by a propagation running in the background.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.orekit.propagation.Propagator;
+import org.orekit.time.*;
+
+// A producer thread propagates the scenario in consecutive blocks of BlockDuration and puts sun angle samples and
+// accesses into a bounded queue; the producer waits while the queue is full, so a slow consumer slows down the
+// propagation instead of filling the memory. Samples come in time order, each access after the samples of the block
+// in which it ends (before them with adaptive sampling, which needs the accesses first).
+class AttitudeStream implements Iterator<AttitudeStream.Record>, Closeable
+{
+    // Length of the propagation blocks (s). Accesses of a block are published after its samples.
+    private static final double BlockDuration = 3600;
+
+    static final class Record
+    {
+        final boolean fAccess;
+        final AbsoluteDate Date;                        // sample date or access begin
+        final double Azimuth, Elevation, Subsolar;      // (deg), samples only
+        final double[] Extra;                           // extra columns, samples only
+        final String Station;                           // accesses only
+        final AbsoluteDate End;                         // accesses only
+
+        private Record(boolean access, AbsoluteDate date, double azimuth, double elevation, double subsolar,
+                       double[] extra, String station, AbsoluteDate end)
+        {
+            fAccess = access;
+            Date = date;
+            Azimuth = azimuth;
+            Elevation = elevation;
+            Subsolar = subsolar;
+            Extra = extra;
+            Station = station;
+            End = end;
+        }
+    }
+
+    // Marks the end of the stream in the queue.
+    private static final Record EndOfStream = new Record(false, null, 0, 0, 0, null, null, null);
+
+    private final Scenario Scen;
+    private final BlockingQueue<Record> Queue;
+    private final Thread Producer;
+    private volatile Throwable Failure;
+    private volatile boolean fClosed = false;
+    private Record Next;
+
+    AttitudeStream(Scenario scen, int capacity)
+    {
+        Scen = scen;
+        Queue = new ArrayBlockingQueue<>(capacity);
+        Producer = new Thread(this::Produce, "AttitudeStream");
+        Producer.setDaemon(true);
+        Producer.start();
+    }
+
+    private void Produce()
+    {
+        try {
+            SunAngleSink Samples = new SunAngleSink() {
+                public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra)
+                {
+                    Put(new Record(false, Date, Azimuth, Elevation, Subsolar, Extra.clone(), null, null));
+                }
+
+                public void Close()
+                {
+                }
+            };
+            AccessSink Accesses = (Station, Begin, End) -> Put(new Record(true, Begin, 0, 0, 0, null, Station, End));
+
+            // Handlers and propagators are kept across blocks, so accesses spanning a block boundary are continued and
+            // each block propagates on from the end of the previous one.
+            List<VisibilityHandler> Handlers = new ArrayList<>();
+            for (String Station : Scen.StationNames()) {
+                Handlers.add(new VisibilityHandler(Accesses, Station));
+            }
+            Propagator SamplePropagator = Scen.CreatePropagator(), SearchPropagator = Scen.CreatePropagator();
+            long BlockSteps = Math.max(1, Math.round(BlockDuration / Scen.dt));
+            for (long FirstStep = 0; FirstStep < Scen.TimeSteps; FirstStep += BlockSteps) {
+                PropagationChunk Block = new PropagationChunk(Scen, FirstStep, Math.min(FirstStep + BlockSteps, Scen.TimeSteps),
+                        Samples, Handlers, null, false);
+                Block.SamplePropagator = SamplePropagator;
+                Block.SearchPropagator = SearchPropagator;
+                Block.call();
+            }
+        } catch (Throwable e) {
+            if (fClosed) {
+                return;
+            }
+            Failure = e;
+        }
+        try {
+            Queue.put(EndOfStream);
+        } catch (InterruptedException e) {
+            // Stream closed by the consumer.
+        }
+    }
+
+    // Wait for space in the queue. Ends the producer if the consumer closed the stream.
+    private void Put(Record Rec)
+    {
+        try {
+            Queue.put(Rec);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException("Attitude stream closed.");
+        }
+    }
+
+    // Waits for the next record. Failures of the propagation are rethrown here.
+    public boolean hasNext()
+    {
+        if (Next == null) {
+            try {
+                Next = Queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the attitude stream.", e);
+            }
+        }
+        if (Next == EndOfStream) {
+            if (Failure != null) {
+                throw new IllegalStateException("Propagation failed: " + Failure, Failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public Record next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Record Current = Next;
+        Next = null;
+        return Current;
+    }
+
+    // True if the next record is already available without waiting.
+    boolean IsReady()
+    {
+        return Next != null || !Queue.isEmpty();
+    }
+
+    // Stop the producer, e.g. when the consumer disconnected.
+    public void close()
+    {
+        fClosed = true;
+        Producer.interrupt();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+Reader of binary sun angle files.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import org.orekit.time.*;
+
+// Reads the header of a file written by BinarySunAngleSink on opening, the rows block by block with ReadAll or a
+// single row by its index with ReadRow.
+class BinarySunAngleReader implements Closeable
+{
+    private final FileChannel In;
+    private final String Path;
+    private final int NumColumns;
+    private final int HeaderSize, BlockRows;
+
+    final AbsoluteDate Epoch;
+    final long Rows;
+    final int[] ExtraColumns;       // indices into SunAngleKernel.ExtraNames
+
+    BinarySunAngleReader(String path) throws IOException
+    {
+        Path = path;
+        In = FileChannel.open(Paths.get(Path), StandardOpenOption.READ);
+        try {
+            // Read and check header
+            ByteBuffer Fixed = Read(BinarySunAngleSink.Magic.length + 4);
+            byte[] Magic = new byte[BinarySunAngleSink.Magic.length];
+            Fixed.get(Magic);
+            if (!Arrays.equals(Magic, BinarySunAngleSink.Magic)) {
+                throw new IOException("Not a binary sun angle file: " + Path);
+            }
+            HeaderSize = Fixed.getInt();
+            ByteBuffer Header = Read(HeaderSize - Fixed.capacity());
+            NumColumns = Header.getInt();
+            Rows = Header.getLong();
+            BlockRows = Header.getInt();
+            Epoch = new AbsoluteDate(Header.getInt(), Header.getInt(), Header.getInt(),
+                    Header.getInt(), Header.getInt(), Header.getDouble(), TimeScalesFactory.getUTC());
+            if (NumColumns < BinarySunAngleSink.Columns.length) {
+                throw new IOException("Unexpected number of columns " + NumColumns + " in " + Path);
+            }
+
+            // Extra columns by their names
+            ExtraColumns = new int[NumColumns - BinarySunAngleSink.Columns.length];
+            for (int c = 0; c < NumColumns; c++) {
+                byte[] Name = new byte[Header.getInt()];
+                Header.get(Name);
+                if (c >= BinarySunAngleSink.Columns.length) {
+                    String ColumnName = new String(Name, StandardCharsets.UTF_8);
+                    ExtraColumns[c - BinarySunAngleSink.Columns.length] = Arrays.asList(SunAngleKernel.ExtraHeaders).indexOf(ColumnName);
+                    if (ExtraColumns[c - BinarySunAngleSink.Columns.length] < 0) {
+                        throw new IOException("Unknown column <" + ColumnName + "> in " + Path);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            In.close();
+            throw e;
+        }
+    }
+
+    // Write all rows into a sink, without closing it. Returns the number of rows.
+    long ReadAll(SunAngleSink Out) throws IOException
+    {
+        double[] Extra = new double[ExtraColumns.length];
+        long Done = 0;
+        while (Done < Rows) {
+            int BlockFill = Read(8).getInt();
+            ByteBuffer Block = Read(NumColumns * BlockFill * 8);
+            for (int i = 0; i < BlockFill; i++) {
+                for (int k = 0; k < Extra.length; k++) {
+                    Extra[k] = Block.getDouble(8 * ((BinarySunAngleSink.Columns.length + k) * BlockFill + i));
+                }
+                Out.Write(Epoch.shiftedBy(Block.getDouble(8 * i)), Block.getDouble(8 * (BlockFill + i)),
+                        Block.getDouble(8 * (2 * BlockFill + i)), Block.getDouble(8 * (3 * BlockFill + i)), Extra);
+            }
+            Done += BlockFill;
+        }
+        return Done;
+    }
+
+    // Values of all columns of a row into Out, the time offset from Epoch [s] first. Leaves the position of ReadAll.
+    void ReadRow(long Row, double[] Out) throws IOException
+    {
+        if (Row < 0 || Row >= Rows) {
+            throw new IndexOutOfBoundsException("Row " + Row + " outside of the " + Rows + " rows in " + Path);
+        }
+        long BlockStart = HeaderSize + Row / BlockRows * (8 + (long) NumColumns * BlockRows * 8);
+        int BlockFill = (int) Math.min(BlockRows, Rows - Row / BlockRows * BlockRows);
+        int i = (int) (Row % BlockRows);
+        if (ReadAt(BlockStart).getInt() != BlockFill) {
+            throw new IOException("Blocks not of " + BlockRows + " rows in " + Path);
+        }
+        for (int c = 0; c < NumColumns; c++) {
+            Out[c] = ReadAt(BlockStart + 8 + 8 * ((long) c * BlockFill + i)).getDouble();
+        }
+    }
+
+    // Read 8 bytes at a file position.
+    private ByteBuffer ReadAt(long Position) throws IOException
+    {
+        ByteBuffer Buffer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (Buffer.hasRemaining()) {
+            if (In.read(Buffer, Position + Buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of binary sun angle file.");
+            }
+        }
+        Buffer.flip();
+        return Buffer;
+    }
+
+    public void close() throws IOException
+    {
+        In.close();
+    }
+
+    // Read exactly Length bytes.
+    private ByteBuffer Read(int Length) throws IOException
+    {
+        ByteBuffer Buffer = ByteBuffer.allocate(Length).order(ByteOrder.LITTLE_ENDIAN);
+        while (Buffer.hasRemaining()) {
+            if (In.read(Buffer) < 0) {
+                throw new EOFException("Unexpected end of binary sun angle file.");
+            }
+        }
+        Buffer.flip();
+        return Buffer;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+Sun angle rows as little-endian binary columns.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import org.orekit.time.*;
+
+// File layout, all values little-endian:
+//   header  magic "SAPCOL1\n", int32 header size, int32 column count, int64 row count, int32 rows per block,
+//           epoch in UTC as int32 year, month, day, hour, minute and float64 second, then per column the int32
+//           length and UTF-8 bytes of its name, zero padded to a multiple of 8 bytes
+//   blocks  int32 row count n, int32 padding, then each column as n float64 values
+// Columns are time offset from the epoch [s], azimuth, elevation and subsolar angle [deg], followed by the selected
+// extra columns of SunAngleKernel under their CSV header names. Every block holds rows per block rows except the last
+// one, so row r is found in block r / rows per block at a fixed offset. The blocks of consecutive chunks are
+// re-blocked when appended to the file with Append, the row count in the header is patched once all rows are written.
+class BinarySunAngleSink implements SunAngleSink
+{
+    static final byte[] Magic = "SAPCOL1\n".getBytes(StandardCharsets.US_ASCII);
+    static final String[] Columns = {"Time offset (sec)", "Azimuth (deg)", "Elevation (deg)", "Subsolar (deg)"};
+    static final int BlockRows = 8192;
+
+    private final FileChannel Out;
+    private final AbsoluteDate Epoch;
+    private final double[][] Block;
+    private final ByteBuffer Buffer;
+    private int BlockFill = 0;
+
+    BinarySunAngleSink(FileChannel out, AbsoluteDate epoch)
+    {
+        this(out, epoch, new int[0]);
+    }
+
+    // Rows with the extra columns of SunAngleKernel selected by their indices.
+    BinarySunAngleSink(FileChannel out, AbsoluteDate epoch, int[] extraColumns)
+    {
+        Out = out;
+        Epoch = epoch;
+        Block = new double[Columns.length + extraColumns.length][BlockRows];
+        Buffer = ByteBuffer.allocateDirect(8 + Block.length * BlockRows * 8).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra) throws IOException
+    {
+        Block[0][BlockFill] = Date.durationFrom(Epoch);
+        Block[1][BlockFill] = Azimuth;
+        Block[2][BlockFill] = Elevation;
+        Block[3][BlockFill] = Subsolar;
+        for (int k = 0; k < Block.length - Columns.length; k++) {
+            Block[Columns.length + k][BlockFill] = Extra[k];
+        }
+        if (++BlockFill == BlockRows) {
+            WriteBlock();
+        }
+    }
+
+    // Append the blocks of a file written by a sink with the same epoch and columns but without header, e.g. a chunk.
+    void Append(File Part) throws IOException
+    {
+        try (FileChannel In = FileChannel.open(Part.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer Count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer Values = ByteBuffer.allocate(Block.length * BlockRows * 8).order(ByteOrder.LITTLE_ENDIAN);
+            while (Read(In, Count, 8)) {
+                int PartFill = Count.getInt(0);
+                if (!Read(In, Values, Block.length * PartFill * 8)) {
+                    throw new EOFException("Unexpected end of binary sun angle part <" + Part + ">.");
+                }
+                for (int i = 0; i < PartFill; i++) {
+                    for (int c = 0; c < Block.length; c++) {
+                        Block[c][BlockFill] = Values.getDouble(8 * (c * PartFill + i));
+                    }
+                    if (++BlockFill == BlockRows) {
+                        WriteBlock();
+                    }
+                }
+            }
+        }
+    }
+
+    // Read Length bytes into the start of the buffer, false if the file ends before the first byte.
+    private static boolean Read(FileChannel In, ByteBuffer Buffer, int Length) throws IOException
+    {
+        Buffer.clear();
+        Buffer.limit(Length);
+        while (Buffer.hasRemaining()) {
+            if (In.read(Buffer) < 0) {
+                if (Buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("Unexpected end of binary sun angle part.");
+            }
+        }
+        return true;
+    }
+
+    public void Close() throws IOException
+    {
+        if (BlockFill > 0) {
+            WriteBlock();
+        }
+        Out.close();
+    }
+
+    private void WriteBlock() throws IOException
+    {
+        Buffer.clear();
+        Buffer.putInt(BlockFill).putInt(0);
+        for (double[] Column : Block) {
+            for (int i = 0; i < BlockFill; i++) {
+                Buffer.putDouble(Column[i]);
+            }
+        }
+        Buffer.flip();
+        while (Buffer.hasRemaining()) {
+            Out.write(Buffer);
+        }
+        BlockFill = 0;
+    }
+
+    // Write (or overwrite) the header at the start of the file.
+    static void WriteHeader(FileChannel Channel, AbsoluteDate Epoch, long Rows, int[] ExtraColumns) throws IOException
+    {
+        byte[][] Names = new byte[Columns.length + ExtraColumns.length][];
+        int Size = Magic.length + 4 + 4 + 8 + 4 + 5 * 4 + 8;
+        for (int c = 0; c < Names.length; c++) {
+            String Name = c < Columns.length ? Columns[c] : SunAngleKernel.ExtraHeaders[ExtraColumns[c - Columns.length]];
+            Names[c] = Name.getBytes(StandardCharsets.UTF_8);
+            Size += 4 + Names[c].length;
+        }
+        Size = (Size + 7) / 8 * 8;
+
+        DateTimeComponents Comps = Epoch.getComponents(TimeScalesFactory.getUTC());
+        ByteBuffer Header = ByteBuffer.allocate(Size).order(ByteOrder.LITTLE_ENDIAN);
+        Header.put(Magic).putInt(Size).putInt(Names.length).putLong(Rows).putInt(BlockRows);
+        Header.putInt(Comps.getDate().getYear()).putInt(Comps.getDate().getMonth()).putInt(Comps.getDate().getDay());
+        Header.putInt(Comps.getTime().getHour()).putInt(Comps.getTime().getMinute()).putDouble(Comps.getTime().getSecond());
+        for (byte[] Name : Names) {
+            Header.putInt(Name.length).put(Name);
+        }
+        Header.position(0);
+        long Position = 0;
+        while (Header.hasRemaining()) {
+            Position += Channel.write(Header, Position);
+        }
+    }
+}
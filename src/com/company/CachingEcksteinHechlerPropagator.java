@@ -0,0 +1,84 @@
+/*
+Eckstein-Hechler propagator that reuses the states of recently requested dates.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.Arrays;
+
+import org.orekit.attitudes.AttitudeProvider;
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.analytical.*;
+import org.orekit.time.*;
+
+// Orekit evaluates every event detector on its own interpolated state, and the analytical step interpolator computes
+// each of them from scratch. With one detector per ground station, all detectors ask for the same dates (the end of
+// each step and the max check points), interleaved with the root searches of single detectors. The last few states are
+// kept and returned for repeated requests of the same date.
+class CachingEcksteinHechlerPropagator extends EcksteinHechlerPropagator
+{
+    private static final long serialVersionUID = 1L;
+
+    private static final int CacheSize = 4;
+    private final SpacecraftState[] Cached = new SpacecraftState[CacheSize];
+    private int Next = 0;
+
+    CachingEcksteinHechlerPropagator(Orbit initialOrbit, AttitudeProvider attitudeProv, double referenceRadius,
+                                     double mu, double c20, double c30, double c40, double c50, double c60)
+    {
+        super(initialOrbit, attitudeProv, referenceRadius, mu, c20, c30, c40, c50, c60);
+    }
+
+    @Override
+    protected SpacecraftState basicPropagate(AbsoluteDate date)
+    {
+        for (SpacecraftState State : Cached) {
+            if (State != null && State.getDate().equals(date)) {
+                return State;
+            }
+        }
+        SpacecraftState State = super.basicPropagate(date);
+        Cached[Next] = State;
+        Next = (Next + 1) % CacheSize;
+        return State;
+    }
+
+    // Also called by the super constructor before the fields are initialized.
+    private void ClearCache()
+    {
+        if (Cached != null) {
+            Arrays.fill(Cached, null);
+        }
+    }
+
+    @Override
+    public void resetInitialState(SpacecraftState state)
+    {
+        ClearCache();
+        super.resetInitialState(state);
+    }
+
+    @Override
+    protected void resetIntermediateState(SpacecraftState state, boolean forward)
+    {
+        ClearCache();
+        super.resetIntermediateState(state, forward);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+Propagation of a satellite constellation with shared frames and a combined access timeline.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// A constellation is either a list of satellite names in Constellation, separated by ';', each with its own orbit keys
+// Satellite.<name>.SatAltitude etc. or TLE lines Satellite.<name>.SatTLELine1/2 for SGP4 (missing keys are taken from
+// the base settings), or a Walker delta pattern "total/planes/phasing" in ConstellationWalker around the base orbit:
+// planes spaced evenly in RAAN starting at SatRAAN, satellites spaced evenly in mean anomaly within a plane, and each
+// plane shifted by phasing * 360 / total deg. All satellites share the frames, the Sun, the Sun cache and the ground
+// stations of one scenario and run concurrently on the worker pool. Each satellite writes its own result files, named
+// with the satellite name in front, and all accesses are collected into one timeline ordered by start time.
+class ConstellationRun
+{
+    // Settings keys that may differ between satellites.
+    static final String[] OrbitKeys = {"SatAltitude", "SatEccentricity", "SatInclination", "SatOmega", "SatRAAN", "SatMeanAnomaly",
+            "SatTLELine1", "SatTLELine2"};
+
+    private final Settings Set;
+    private final List<String> Names = new ArrayList<>();
+    private final List<Map<String, String>> Orbits = new ArrayList<>();
+    private final int Threads;
+
+    // Accesses of all satellites: satellite name, station name, begin and end.
+    private final List<Access> Timeline = new ArrayList<>();
+    int AccessCount = 0;
+
+    ConstellationRun(Settings set)
+    {
+        Set = set;
+        int threads = Integer.parseInt(Set.GetValue("SimThreads", "1"));
+        Threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        String SatelliteList = Set.GetValue("Constellation", "").trim();
+        String Walker = Set.GetValue("ConstellationWalker", "").trim();
+        if (!SatelliteList.isEmpty() && !Walker.isEmpty()) {
+            throw new IllegalArgumentException("Either Constellation or ConstellationWalker can be set, not both.");
+        }
+        if (!SatelliteList.isEmpty()) {
+            for (String Name : SatelliteList.split(";")) {
+                Name = Name.trim();
+                if (Name.isEmpty()) {
+                    continue;
+                }
+                Map<String, String> Orbit = new LinkedHashMap<>();
+                for (String Key : OrbitKeys) {
+                    Orbit.put(Key, Set.GetValue("Satellite." + Name + "." + Key, Set.GetValue(Key, "")));
+                }
+                Names.add(Name);
+                Orbits.add(Orbit);
+            }
+        } else {
+            // With a TLE, SGP4 ignores the Sat* orbit keys the pattern varies.
+            if (PropagatorBackend.GivenTLE(Set) != null) {
+                throw new IllegalArgumentException("ConstellationWalker cannot be combined with SatTLELine1 and SatTLELine2 for SGP4.");
+            }
+            AddWalker(Walker);
+        }
+        if (Names.isEmpty()) {
+            throw new IllegalArgumentException("Constellation without satellites.");
+        }
+        if (new HashSet<>(Names).size() != Names.size()) {
+            throw new IllegalArgumentException("Satellite names of the constellation must be unique.");
+        }
+        HashSet<String> Elements = new HashSet<>();
+        for (Map<String, String> Orbit : Orbits) {
+            if (PropagatorBackend.GivenTLE(new Settings(Set, Orbit)) != null
+                    && !Elements.add(Orbit.get("SatTLELine1").trim() + Orbit.get("SatTLELine2").trim())) {
+                throw new IllegalArgumentException("Satellites of the constellation share a TLE, set Satellite.<name>.SatTLELine1/2 for each.");
+            }
+        }
+        if (Settings.fDisplayMessages) {
+            System.out.println("Created constellation of " + Names.size() + " satellites:");
+            for (int s = 0; s < Names.size(); s++) {
+                System.out.println("\t" + Names.get(s) + " " + Orbits.get(s));
+            }
+        }
+    }
+
+    // Walker delta pattern "total/planes/phasing", satellites named <SatelliteName>-<plane>-<slot>.
+    private void AddWalker(String Pattern)
+    {
+        String[] Parts = Pattern.split("/");
+        int Total, Planes, Phasing;
+        try {
+            Total = Integer.parseInt(Parts[0].trim());
+            Planes = Integer.parseInt(Parts[1].trim());
+            Phasing = Parts.length > 2 ? Integer.parseInt(Parts[2].trim()) : 0;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("ConstellationWalker <" + Pattern + "> is not of the form total/planes/phasing.");
+        }
+        if (Parts.length > 3 || Total < 1 || Planes < 1 || Total % Planes != 0 || Phasing < 0 || Phasing >= Planes) {
+            throw new IllegalArgumentException("ConstellationWalker <" + Pattern + "> needs planes dividing total and 0 <= phasing < planes.");
+        }
+        int PerPlane = Total / Planes;
+        double RAAN = Double.parseDouble(Set.GetValue("SatRAAN"));
+        double MeanAnomaly = Double.parseDouble(Set.GetValue("SatMeanAnomaly"));
+        for (int p = 0; p < Planes; p++) {
+            for (int s = 0; s < PerPlane; s++) {
+                Map<String, String> Orbit = new LinkedHashMap<>();
+                for (String Key : OrbitKeys) {
+                    Orbit.put(Key, Set.GetValue(Key, ""));
+                }
+                Orbit.put("SatRAAN", Double.toString(Normalize(RAAN + 360.0 * p / Planes)));
+                Orbit.put("SatMeanAnomaly", Double.toString(Normalize(MeanAnomaly + 360.0 * s / PerPlane
+                        + 360.0 * Phasing * p / Total)));
+                Names.add(Set.GetValue("SatelliteName", "Sat") + "-" + (p + 1) + "-" + (s + 1));
+                Orbits.add(Orbit);
+            }
+        }
+    }
+
+    // Angle in [0, 360) deg.
+    private static double Normalize(double Angle)
+    {
+        double Result = Angle % 360;
+        return Result < 0 ? Result + 360 : Result;
+    }
+
+    // Insert the satellite name in front of a file name.
+    private static String SatelliteFileName(String FileName, String SatelliteName)
+    {
+        return SatelliteName + "_" + FileName;
+    }
+
+    void Execute() throws Exception
+    {
+        // Frames, Sun and ground stations are set up once and shared by all satellites.
+        Scenario Shared = new Scenario(Set);
+        int Workers = Math.min(Threads, Names.size());
+        int ThreadsPerSatellite = Math.max(1, Threads / Names.size());
+        System.out.print("Propagating " + Names.size() + " satellites on " + Workers + " workers ");
+
+        List<Callable<Void>> Tasks = new ArrayList<>();
+        for (int s = 0; s < Names.size(); s++) {
+            String Name = Names.get(s);
+            Map<String, String> Overrides = new LinkedHashMap<>(Orbits.get(s));
+            Overrides.put("SatelliteName", Name);
+            Overrides.put("ExpFileSunAngles", SatelliteFileName(Set.GetValue("ExpFileSunAngles"), Name));
+            Overrides.put("ExpFileAccessTimes", SatelliteFileName(Set.GetValue("ExpFileAccessTimes"), Name));
+            if (!Set.GetValue("ExpFileSunAnglesBinary", "").isEmpty()) {
+                Overrides.put("ExpFileSunAnglesBinary", SatelliteFileName(Set.GetValue("ExpFileSunAnglesBinary"), Name));
+            }
+            Settings SatSet = new Settings(Set, Overrides);
+            Tasks.add(() -> {
+                PropagationRun Run = new PropagationRun(SatSet, new Scenario(SatSet, Shared, false), ThreadsPerSatellite);
+                Run.fShowProgress = false;
+                Run.Timeline = (Station, Begin, End) -> {
+                    synchronized (Timeline) {
+                        Timeline.add(new Access(Name, Station, Begin, End));
+                    }
+                };
+                Run.Execute();
+                System.out.print(".");
+                return null;
+            });
+        }
+        ForkJoinPool Pool = new ForkJoinPool(Workers);
+        try {
+            for (Future<Void> Result : Pool.invokeAll(Tasks)) {
+                Result.get();
+            }
+        } finally {
+            Pool.shutdown();
+        }
+        WriteTimeline();
+        System.out.print(" " + AccessCount + " accesses,");
+    }
+
+    // Write the accesses of all satellites ordered by start time, then by satellite in constellation order, then by
+    // station name.
+    private void WriteTimeline() throws IOException
+    {
+        Map<String, Integer> Order = new HashMap<>();
+        for (int s = 0; s < Names.size(); s++) {
+            Order.put(Names.get(s), s);
+        }
+        Timeline.sort(Comparator.comparing((Access Entry) -> Entry.Begin)
+                .thenComparingInt(Entry -> Order.get(Entry.Satellite))
+                .thenComparing(Entry -> Entry.Station));
+        String FilePath = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFileConstellationAccesses", "ConstellationAccessTimes.csv");
+        try (PrintWriter Writer = new PrintWriter(FilePath, Set.GetValue("ExpTextFormat"))) {
+            Writer.println("\"Access\",\"Satellite\",\"Station\",\"Start Time (UTCG)\",\"Stop Time (UTCG)\",\"Duration (sec)\"");
+            CsvRowEncoder Encoder = new CsvRowEncoder(256);
+            for (Access Entry : Timeline) {
+                Encoder.Append(++AccessCount);
+                Encoder.Append(',');
+                Encoder.Append(Entry.Satellite);
+                Encoder.Append(',');
+                Encoder.Append(Entry.Station);
+                Encoder.Append(',');
+                Encoder.AppendDate(Entry.Begin);
+                Encoder.Append(',');
+                Encoder.AppendDate(Entry.End);
+                Encoder.Append(',');
+                Encoder.AppendFixed3(Entry.End.durationFrom(Entry.Begin), 7);
+                Encoder.Append('\n');
+                Encoder.Flush(Writer);
+            }
+        }
+    }
+}
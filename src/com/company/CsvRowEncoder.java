@@ -0,0 +1,189 @@
+/*
+Hand-rolled encoder for the fixed CSV fields of the result files.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.Arrays;
+import org.orekit.time.*;
+
+// Appends dates and angles to a reusable char buffer, byte-for-byte identical to the printf formats
+// "%d %s %d %02d:%02d:%06.3f" and "%07.3f" with Settings.LocalFormat. Calendar fields are derived from the offset to
+// the start of the current UTC day, so AbsoluteDate.getComponents runs only once per day. Values too close to a
+// rounding tie at the third decimal fall back to the Formatter, which rounds the shortest decimal representation.
+// The buffer grows when a value does not fit, e.g. a long station or satellite name.
+final class CsvRowEncoder
+{
+    // Distance to a rounding tie or minute rollover [ms] below which the Formatter is used.
+    private static final double TieMargin = 1e-6;
+
+    // Most chars appended by a number or date
+    private static final int MaxNumberLength = 32;
+
+    private char[] Buffer;
+    private int Length = 0;
+
+    // Current UTC day
+    private AbsoluteDate DayStart;
+    private double DayLength;
+    private final char[] DayText = new char[16];
+    private int DayTextLength;
+
+    CsvRowEncoder(int capacity)
+    {
+        Buffer = new char[capacity];
+    }
+
+    // Number of chars that can still be appended.
+    int Remaining()
+    {
+        return Buffer.length - Length;
+    }
+
+    // Make room for Count more chars.
+    private void Reserve(int Count)
+    {
+        if (Length + Count > Buffer.length) {
+            Buffer = Arrays.copyOf(Buffer, Math.max(2 * Buffer.length, Length + Count));
+        }
+    }
+
+    // Write buffered chars and empty the buffer.
+    void Flush(Writer Out) throws IOException
+    {
+        Out.write(Buffer, 0, Length);
+        Length = 0;
+    }
+
+    void Append(char c)
+    {
+        Reserve(1);
+        Buffer[Length++] = c;
+    }
+
+    void Append(String s)
+    {
+        Reserve(s.length());
+        s.getChars(0, s.length(), Buffer, Length);
+        Length += s.length();
+    }
+
+    // Append "%d", non-negative values only.
+    void Append(long Value)
+    {
+        Reserve(MaxNumberLength);
+        int Digits = 1;
+        for (long v = Value; v >= 10; v /= 10) {
+            Digits++;
+        }
+        for (int i = Length + Digits - 1; i >= Length; i--) {
+            Buffer[i] = (char) ('0' + Value % 10);
+            Value /= 10;
+        }
+        Length += Digits;
+    }
+
+    // Append "%02d", values 0 to 99 only.
+    private void Append2(int Value)
+    {
+        Buffer[Length++] = (char) ('0' + Value / 10);
+        Buffer[Length++] = (char) ('0' + Value % 10);
+    }
+
+    // Append "%0<Width>.3f".
+    void AppendFixed3(double Value, int Width)
+    {
+        double Scaled = Math.abs(Value) * 1000;
+        double Floor = Math.floor(Scaled);
+        double Fraction = Scaled - Floor;
+        if (!(Scaled < 1e15) || Math.abs(Fraction - 0.5) < TieMargin) {
+            Append(String.format(Settings.LocalFormat, "%0" + Width + ".3f", Value));
+            return;
+        }
+        Reserve(Width + MaxNumberLength);
+        long Units = (long) Floor + (Fraction > 0.5 ? 1 : 0);
+        long IntPart = Units / 1000;
+        int FracPart = (int) (Units % 1000);
+
+        // Sign, zero padding, integer part, decimals
+        boolean fNegative = Double.doubleToRawLongBits(Value) < 0;
+        int Digits = 1;
+        for (long v = IntPart; v >= 10; v /= 10) {
+            Digits++;
+        }
+        if (fNegative) {
+            Buffer[Length++] = '-';
+        }
+        for (int Pad = Width - Digits - 4 - (fNegative ? 1 : 0); Pad > 0; Pad--) {
+            Buffer[Length++] = '0';
+        }
+        Append(IntPart);
+        Buffer[Length++] = '.';
+        Buffer[Length++] = (char) ('0' + FracPart / 100);
+        Buffer[Length++] = (char) ('0' + FracPart / 10 % 10);
+        Buffer[Length++] = (char) ('0' + FracPart % 10);
+    }
+
+    // Append "%d %s %d %02d:%02d:%06.3f" of the UTC date and time.
+    void AppendDate(AbsoluteDate Date)
+    {
+        double SecondOfDay = DayStart == null ? -1 : Date.durationFrom(DayStart);
+        if (SecondOfDay < 0 || SecondOfDay >= DayLength) {
+            StartDay(Date.getComponents(0).getDate());
+            SecondOfDay = Date.durationFrom(DayStart);
+        }
+        int Hour = (int) (SecondOfDay / 3600);
+        double SecondOfHour = SecondOfDay - Hour * 3600;
+        int Minute = (int) (SecondOfHour / 60);
+        double Second = SecondOfHour - Minute * 60;
+
+        // Leap second days, minute rollovers and rounding ties go through the date components like printf did.
+        double Milliseconds = Second * 1000;
+        if (DayLength != 86400 || Hour > 23 || Second >= 60 - TieMargin / 1000
+                || (Second != 0 && Second < TieMargin / 1000)
+                || Math.abs(Milliseconds - Math.floor(Milliseconds) - 0.5) < TieMargin) {
+            TimeComponents TimeComps = Date.getComponents(0).getTime();
+            Hour = TimeComps.getHour();
+            Minute = TimeComps.getMinute();
+            Second = TimeComps.getSecond();
+        }
+
+        Reserve(DayTextLength + MaxNumberLength);
+        System.arraycopy(DayText, 0, Buffer, Length, DayTextLength);
+        Length += DayTextLength;
+        Append2(Hour);
+        Buffer[Length++] = ':';
+        Append2(Minute);
+        Buffer[Length++] = ':';
+        AppendFixed3(Second, 6);
+    }
+
+    // Cache start, length and "%d %s %d " text of a UTC day.
+    private void StartDay(DateComponents DateComps)
+    {
+        TimeScale UTC = TimeScalesFactory.getUTC();
+        DayStart = new AbsoluteDate(DateComps, TimeComponents.H00, UTC);
+        DayLength = new AbsoluteDate(new DateComponents(DateComps, 1), TimeComponents.H00, UTC).durationFrom(DayStart);
+        String Text = DateComps.getDay() + " " + DateComps.getMonthEnum().getCapitalizedAbbreviation() + " "
+                + DateComps.getYear() + " ";
+        Text.getChars(0, Text.length(), DayText, 0);
+        DayTextLength = Text.length();
+    }
+}
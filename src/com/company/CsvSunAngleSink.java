@@ -0,0 +1,83 @@
+/*
+Sun angle rows as STK-style CSV text.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import org.orekit.time.*;
+
+class CsvSunAngleSink implements SunAngleSink
+{
+    static final String Header = "\"Time (UTCG)\",\"Azimuth (deg)\",\"Elevation (deg)\",\"Subsolar (deg)\"";
+
+    private final PrintWriter Out;
+    private final int[] ExtraColumns;
+
+    CsvSunAngleSink(PrintWriter out)
+    {
+        this(out, new int[0]);
+    }
+
+    // Rows with the extra columns of SunAngleKernel selected by their indices.
+    CsvSunAngleSink(PrintWriter out, int[] extraColumns)
+    {
+        Out = out;
+        ExtraColumns = extraColumns;
+    }
+
+    // Header line with the selected extra columns.
+    static String Header(int[] ExtraColumns)
+    {
+        StringBuilder Line = new StringBuilder(Header);
+        for (int Column : ExtraColumns) {
+            Line.append(",\"").append(SunAngleKernel.ExtraHeaders[Column]).append('"');
+        }
+        return Line.toString();
+    }
+
+    public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra)
+    {
+        // Get the date & time
+        DateTimeComponents Comps = Date.getComponents(0);
+        DateComponents DateComps = Comps.getDate();
+        TimeComponents TimeComps = Comps.getTime();
+
+        // Get month string.
+        String StrMonth = DateComps.getMonthEnum().getCapitalizedAbbreviation();
+
+        // Write to solar angles file.
+        Out.printf(Settings.LocalFormat, "%d %s %d %02d:%02d:%06.3f,%07.3f,%07.3f,%07.3f",
+                DateComps.getDay(), StrMonth, DateComps.getYear(), TimeComps.getHour(), TimeComps.getMinute(),
+                TimeComps.getSecond(), Azimuth, Elevation, Subsolar);
+        for (int k = 0; k < ExtraColumns.length; k++) {
+            if (SunAngleKernel.ExtraIsFlag[ExtraColumns[k]]) {
+                Out.printf(Settings.LocalFormat, ",%d", (int) Extra[k]);
+            } else {
+                Out.printf(Settings.LocalFormat, ",%07.3f", Extra[k]);
+            }
+        }
+        Out.print('\n');
+    }
+
+    public void Close()
+    {
+        Out.close();
+    }
+}
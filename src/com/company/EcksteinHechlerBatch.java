@@ -0,0 +1,432 @@
+/*
+Eckstein-Hechler model evaluated over blocks of a time grid into primitive arrays.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+
+// Same model as Orekit's EcksteinHechlerPropagator (mean elements, secular drift, short periodic J2-J6 terms, circular
+// Kepler equation), evaluated for a block of dates at once into position and velocity arrays instead of one
+// SpacecraftState with attitude, Orbit and DerivativeStructure objects per date. The mean elements and all
+// coefficients are computed once in the constructor; the velocity is the exact time derivative of the position, as
+// Orekit takes it from the DerivativeStructure, with the rates written out. Each block is computed in passes over
+// arrays (secular angles, their sines and cosines, periodic terms, Kepler equation, Cartesian coordinates), so the
+// arithmetic passes are straight loops without calls or branches that the JIT can unroll and vectorize. The Kepler
+// equation takes a fixed number of Halley steps, which converge to rounding for the eccentricities the model allows.
+//
+// Results agree with EcksteinHechlerPropagator to better than PositionTolerance and VelocityTolerance (rounding of
+// the different evaluation order and of Math against FastMath). The times since the epoch are taken from the grid
+// dates as AbsoluteDate differences, like the propagator does: far from the epoch, one rounding step of the time
+// alone moves the satellite by more than the tolerance. Immutable after construction, one object can serve
+// all threads with a Block each.
+final class EcksteinHechlerBatch
+{
+    // Maximum deviation from EcksteinHechlerPropagator, position [m] and velocity [m/s].
+    static final double PositionTolerance = 1e-6;
+    static final double VelocityTolerance = 1e-9;
+
+    private static final int KeplerIterations = 4;
+    private static final double TwoPi = 2 * Math.PI;
+
+    private final AbsoluteDate Epoch;
+    private final double ReferenceRadius, Mu;
+    private final double[] Ck0;
+
+    // Mean elements at Epoch and model coefficients, named as in Orekit's EHModel.
+    private double a0, ex0, ey0, i0, raan0, alpha0;
+    private double xnotDot, rdpom, rdpomp, eps1, eps2, ommD, aMD, kh, kl;
+    private double ax1, ay1, as1, ac2, axy3, as3, ac4, as5, ac6;
+    private double ex1, exx2, exy2, ex3, ex4, ey1, eyx2, eyy2, ey3, ey4;
+    private double rx1, ry1, r2, r3, rl, iy1, ix1, i2, i3, ih, lx1, ly1, l2, l3, ll;
+
+    // Positions [m] and velocities [m/s] of the dates of one Evaluate call, with the intermediate arrays.
+    static final class Block
+    {
+        final int Capacity;
+        final double[] X, Y, Z, VX, VY, VZ;
+        private final double[] T, X1, Lm, Om, CX, SX, CL, SL;
+        private final double[] A, DA, Ex, DEx, Ey, DEy, I, DI, Raan, DRaan, Alpha, DAlpha;
+        private final double[] CO, SO, CI, SI, CE, SE;
+
+        Block(int capacity)
+        {
+            Capacity = capacity;
+            X = new double[capacity]; Y = new double[capacity]; Z = new double[capacity];
+            VX = new double[capacity]; VY = new double[capacity]; VZ = new double[capacity];
+            T = new double[capacity]; X1 = new double[capacity]; Lm = new double[capacity]; Om = new double[capacity];
+            CX = new double[capacity]; SX = new double[capacity]; CL = new double[capacity]; SL = new double[capacity];
+            A = new double[capacity]; DA = new double[capacity]; Ex = new double[capacity]; DEx = new double[capacity];
+            Ey = new double[capacity]; DEy = new double[capacity]; I = new double[capacity]; DI = new double[capacity];
+            Raan = new double[capacity]; DRaan = new double[capacity];
+            Alpha = new double[capacity]; DAlpha = new double[capacity];
+            CO = new double[capacity]; SO = new double[capacity]; CI = new double[capacity]; SI = new double[capacity];
+            CE = new double[capacity]; SE = new double[capacity];
+        }
+    }
+
+    // Mean elements from an osculating orbit, iterated as EcksteinHechlerPropagator does.
+    EcksteinHechlerBatch(Orbit Initial, double referenceRadius, double mu, double c20, double c30, double c40,
+                         double c50, double c60)
+    {
+        CircularOrbit Osculating = (CircularOrbit) OrbitType.CIRCULAR.convertType(Initial);
+        Epoch = Osculating.getDate();
+        ReferenceRadius = referenceRadius;
+        Mu = mu;
+        Ck0 = new double[] {0, 0, c20, c30, c40, c50, c60};
+        if (Osculating.getA() < ReferenceRadius) {
+            throw new IllegalArgumentException("Orbit inside the reference radius: a = " + Osculating.getA() + " m");
+        }
+
+        double[] Target = {Osculating.getA(), Osculating.getCircularEx(), Osculating.getCircularEy(), Osculating.getI(),
+                Osculating.getRightAscensionOfAscendingNode(), Osculating.getAlphaM()};
+        double ThresholdA = 1e-13 * (1 + Math.abs(Osculating.getA()));
+        double ThresholdE = 1e-13 * (1 + Osculating.getE());
+        double ThresholdAngles = 1e-13 * Math.PI;
+        double[] Mean = Target.clone();
+        Block Single = new Block(1);
+        for (int Iteration = 0; Iteration < 100; Iteration++) {
+            SetMean(Mean);
+            Single.T[0] = 0;
+            Elements(Single, 1);
+            double[] Delta = {Target[0] - Single.A[0], Target[1] - Single.Ex[0], Target[2] - Single.Ey[0],
+                    Target[3] - Single.I[0], NormalizeAngle(Target[4] - Single.Raan[0], 0),
+                    NormalizeAngle(Target[5] - Single.Alpha[0], 0)};
+            for (int e = 0; e < 6; e++) {
+                Mean[e] += Delta[e];
+            }
+            if (Math.abs(Delta[0]) < ThresholdA && Math.abs(Delta[1]) < ThresholdE && Math.abs(Delta[2]) < ThresholdE
+                    && Math.abs(Delta[3]) < ThresholdAngles && Math.abs(Delta[4]) < ThresholdAngles
+                    && Math.abs(Delta[5]) < ThresholdAngles) {
+                SetMean(Mean);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Eckstein-Hechler mean elements did not converge.");
+    }
+
+    private static double NormalizeAngle(double Angle, double Center)
+    {
+        return Angle - TwoPi * Math.floor((Angle + Math.PI - Center) / TwoPi);
+    }
+
+    // Coefficients of the model for the given mean elements a, ex, ey, i, RAAN, alphaM.
+    private void SetMean(double[] Mean)
+    {
+        a0 = Mean[0];
+        ex0 = Mean[1];
+        ey0 = Mean[2];
+        i0 = Mean[3];
+        raan0 = Mean[4];
+        alpha0 = Mean[5];
+
+        double q = ReferenceRadius / a0;
+        double ql = q * q;
+        double g2 = Ck0[2] * ql;
+        ql *= q;
+        double g3 = Ck0[3] * ql;
+        ql *= q;
+        double g4 = Ck0[4] * ql;
+        ql *= q;
+        double g5 = Ck0[5] * ql;
+        ql *= q;
+        double g6 = Ck0[6] * ql;
+
+        double cosI1 = Math.cos(i0), sinI1 = Math.sin(i0);
+        double sinI2 = sinI1 * sinI1, sinI4 = sinI2 * sinI2, sinI6 = sinI2 * sinI4;
+        if (sinI2 < 1e-10) {
+            throw new IllegalArgumentException("Almost equatorial orbit: i = " + Math.toDegrees(i0) + " deg");
+        }
+        if (Math.abs(sinI2 - 0.8) < 1e-3) {
+            throw new IllegalArgumentException("Almost critically inclined orbit: i = " + Math.toDegrees(i0) + " deg");
+        }
+        if (Math.hypot(ex0, ey0) > 0.1) {
+            throw new IllegalArgumentException("Too large eccentricity for the Eckstein-Hechler model: e = " + Math.hypot(ex0, ey0));
+        }
+
+        xnotDot = Math.sqrt(Mu / a0) / a0;
+        rdpom = -0.75 * g2 * (4.0 - 5.0 * sinI2);
+        rdpomp = 7.5 * g4 * (1.0 - 31.0 / 8.0 * sinI2 + 49.0 / 16.0 * sinI4)
+                - 13.125 * g6 * (1.0 - 8.0 * sinI2 + 129.0 / 8.0 * sinI4 - 297.0 / 32.0 * sinI6);
+
+        q = 3.0 / (32.0 * rdpom);
+        eps1 = q * g4 * sinI2 * (30.0 - 35.0 * sinI2) - 175.0 * q * g6 * sinI2 * (1.0 - 3.0 * sinI2 + 2.0625 * sinI4);
+        q = 3.0 * sinI1 / (8.0 * rdpom);
+        eps2 = q * g3 * (4.0 - 5.0 * sinI2) - q * g5 * (10.0 - 35.0 * sinI2 + 26.25 * sinI4);
+
+        ommD = cosI1 * (1.50 * g2 - 2.25 * g2 * g2 * (2.5 - 19.0 / 6.0 * sinI2)
+                + 0.9375 * g4 * (7.0 * sinI2 - 4.0)
+                + 3.28125 * g6 * (2.0 - 9.0 * sinI2 + 8.25 * sinI4));
+
+        double rdl = 1.0 - 1.50 * g2 * (3.0 - 4.0 * sinI2);
+        aMD = rdl
+                + 2.25 * g2 * g2 * (9.0 - 263.0 / 12.0 * sinI2 + 341.0 / 24.0 * sinI4)
+                + 15.0 / 16.0 * g4 * (8.0 - 31.0 * sinI2 + 24.5 * sinI4)
+                + 105.0 / 32.0 * g6 * (-10.0 / 3.0 + 25.0 * sinI2 - 48.75 * sinI4 + 27.5 * sinI6);
+
+        double qq = -1.5 * g2 / rdl;
+        double qA = 0.75 * g2 * g2 * sinI2;
+        double qB = 0.25 * g4 * sinI2;
+        double qC = 105.0 / 16.0 * g6 * sinI2;
+        double qD = -0.75 * g3 * sinI1;
+        double qE = 3.75 * g5 * sinI1;
+        kh = 0.375 / rdpom;
+        kl = kh / sinI1;
+
+        // semi-major axis
+        ax1 = qq * (2.0 - 3.5 * sinI2);
+        ay1 = qq * (2.0 - 2.5 * sinI2);
+        as1 = qD * (4.0 - 5.0 * sinI2) + qE * (2.625 * sinI4 - 3.5 * sinI2 + 1.0);
+        ac2 = qq * sinI2 + qA * 7.0 * (2.0 - 3.0 * sinI2) + qB * (15.0 - 17.5 * sinI2)
+                + qC * (3.0 * sinI2 - 1.0 - 33.0 / 16.0 * sinI4);
+        axy3 = qq * 3.5 * sinI2;
+        as3 = qD * 5.0 / 3.0 * sinI2 + qE * 7.0 / 6.0 * sinI2 * (1.0 - 1.125 * sinI2);
+        ac4 = qA * sinI2 + qB * 4.375 * sinI2 + qC * 0.75 * (1.1 * sinI4 - sinI2);
+        as5 = qE * 21.0 / 80.0 * sinI4;
+        ac6 = qC * -11.0 / 80.0 * sinI4;
+
+        // eccentricity
+        ex1 = qq * (1.0 - 1.25 * sinI2);
+        exx2 = 0.5 * qq * (3.0 - 5.0 * sinI2);
+        exy2 = qq * (2.0 - 1.5 * sinI2);
+        ex3 = qq * 7.0 / 12.0 * sinI2;
+        ex4 = qq * 17.0 / 8.0 * sinI2;
+        ey1 = qq * (1.0 - 1.75 * sinI2);
+        eyx2 = qq * (1.0 - 3.0 * sinI2);
+        eyy2 = qq * (2.0 * sinI2 - 1.5);
+        ey3 = qq * 7.0 / 12.0 * sinI2;
+        ey4 = qq * 17.0 / 8.0 * sinI2;
+
+        // ascending node
+        q = -qq * cosI1;
+        rx1 = 3.5 * q;
+        ry1 = -2.5 * q;
+        r2 = -0.5 * q;
+        r3 = 7.0 / 6.0 * q;
+        rl = g3 * cosI1 * (4.0 - 15.0 * sinI2) - 2.5 * g5 * cosI1 * (4.0 - 42.0 * sinI2 + 52.5 * sinI4);
+
+        // inclination
+        q = 0.5 * qq * sinI1 * cosI1;
+        iy1 = q;
+        ix1 = -q;
+        i2 = q;
+        i3 = q * 7.0 / 3.0;
+        ih = -g3 * cosI1 * (4.0 - 5.0 * sinI2) + 2.5 * g5 * cosI1 * (4.0 - 14.0 * sinI2 + 10.5 * sinI4);
+
+        // latitude argument
+        lx1 = qq * (7.0 - 77.0 / 8.0 * sinI2);
+        ly1 = qq * (55.0 / 8.0 * sinI2 - 7.50);
+        l2 = qq * (1.25 * sinI2 - 0.5);
+        l3 = qq * (77.0 / 24.0 * sinI2 - 7.0 / 6.0);
+        ll = g3 * (53.0 * sinI2 - 4.0 - 57.5 * sinI4) + 2.5 * g5 * (4.0 - 96.0 * sinI2 + 269.5 * sinI4 - 183.75 * sinI6);
+    }
+
+    // Positions and velocities in the frame of the initial orbit at the grid dates Origin + i * Step,
+    // i = First .. First + Count - 1, built as Scenario.StepDate does.
+    void Evaluate(AbsoluteDate Origin, long First, double Step, int Count, Block Out)
+    {
+        if (Count > Out.Capacity) {
+            throw new IllegalArgumentException("Block of " + Out.Capacity + " dates too small for " + Count + ".");
+        }
+        double[] T = Out.T;
+        for (int k = 0; k < Count; k++) {
+            T[k] = Origin.shiftedBy((First + k) * Step).durationFrom(Epoch);
+        }
+        Elements(Out, Count);
+        Cartesian(Out, Count);
+    }
+
+    // Osculating elements and their rates at the times T of the block.
+    private void Elements(Block B, int Count)
+    {
+        double[] T = B.T, X1 = B.X1, Lm = B.Lm, Om = B.Om, CX = B.CX, SX = B.SX, CL = B.CL, SL = B.SL;
+
+        // Secular angles: argument of the eccentricity vector rotation, latitude argument and node.
+        double wx = xnotDot * (rdpom + rdpomp), wl = xnotDot * aMD, wo = xnotDot * ommD;
+        for (int k = 0; k < Count; k++) {
+            double xnot = T[k] * xnotDot;
+            X1[k] = xnot * (rdpom + rdpomp);
+            double l = alpha0 + aMD * xnot, o = raan0 + ommD * xnot;
+            Lm[k] = l - TwoPi * Math.floor(l / TwoPi);
+            Om[k] = o - TwoPi * Math.floor(o / TwoPi);
+        }
+        for (int k = 0; k < Count; k++) {
+            CX[k] = Math.cos(X1[k]);
+            SX[k] = Math.sin(X1[k]);
+            CL[k] = Math.cos(Lm[k]);
+            SL[k] = Math.sin(Lm[k]);
+        }
+
+        // Mean eccentricity vector and periodic terms. Derivatives use d(cl_n)/dt = -n wl sl_n, d(sl_n)/dt = n wl cl_n.
+        double P = ex0, Q = eps2 - (1.0 - eps1) * ey0, R = (1.0 + eps1) * ex0, S = ey0 - eps2;
+        double[] A = B.A, DA = B.DA, Ex = B.Ex, DEx = B.DEx, Ey = B.Ey, DEy = B.DEy, I = B.I, DI = B.DI;
+        double[] Raan = B.Raan, DRaan = B.DRaan, Alpha = B.Alpha, DAlpha = B.DAlpha;
+        for (int k = 0; k < Count; k++) {
+            double cx = CX[k], sx = SX[k];
+            double exm = cx * P + sx * Q, dexm = wx * (cx * Q - sx * P);
+            double eym = sx * R + cx * S + eps2, deym = wx * (cx * R - sx * S);
+
+            double cl1 = CL[k], sl1 = SL[k];
+            double cl2 = cl1 * cl1 - sl1 * sl1, sl2 = 2 * cl1 * sl1;
+            double cl3 = cl2 * cl1 - sl2 * sl1, sl3 = cl2 * sl1 + sl2 * cl1;
+            double cl4 = cl3 * cl1 - sl3 * sl1, sl4 = cl3 * sl1 + sl3 * cl1;
+            double cl5 = cl4 * cl1 - sl4 * sl1, sl5 = cl4 * sl1 + sl4 * cl1;
+            double cl6 = cl5 * cl1 - sl5 * sl1, sl6 = cl5 * sl1 + sl5 * cl1;
+            double dcl1 = -wl * sl1, dsl1 = wl * cl1, dcl2 = -2 * wl * sl2, dsl2 = 2 * wl * cl2;
+            double dcl3 = -3 * wl * sl3, dsl3 = 3 * wl * cl3, dcl4 = -4 * wl * sl4, dsl4 = 4 * wl * cl4;
+            double dsl5 = 5 * wl * cl5, dcl6 = -6 * wl * sl6;
+
+            double qh = (eym - eps2) * kh, dqh = deym * kh;
+            double ql = exm * kl, dql = dexm * kl;
+
+            double exmCl1 = exm * cl1, dexmCl1 = dexm * cl1 + exm * dcl1;
+            double exmSl1 = exm * sl1, dexmSl1 = dexm * sl1 + exm * dsl1;
+            double eymCl1 = eym * cl1, deymCl1 = deym * cl1 + eym * dcl1;
+            double eymSl1 = eym * sl1, deymSl1 = deym * sl1 + eym * dsl1;
+            double exmCl2 = exm * cl2, dexmCl2 = dexm * cl2 + exm * dcl2;
+            double exmSl2 = exm * sl2, dexmSl2 = dexm * sl2 + exm * dsl2;
+            double eymCl2 = eym * cl2, deymCl2 = deym * cl2 + eym * dcl2;
+            double eymSl2 = eym * sl2, deymSl2 = deym * sl2 + eym * dsl2;
+            double exmCl3 = exm * cl3, dexmCl3 = dexm * cl3 + exm * dcl3;
+            double exmSl3 = exm * sl3, dexmSl3 = dexm * sl3 + exm * dsl3;
+            double eymCl3 = eym * cl3, deymCl3 = deym * cl3 + eym * dcl3;
+            double eymSl3 = eym * sl3, deymSl3 = deym * sl3 + eym * dsl3;
+            double exmCl4 = exm * cl4, dexmCl4 = dexm * cl4 + exm * dcl4;
+            double exmSl4 = exm * sl4, dexmSl4 = dexm * sl4 + exm * dsl4;
+            double eymCl4 = eym * cl4, deymCl4 = deym * cl4 + eym * dcl4;
+            double eymSl4 = eym * sl4, deymSl4 = deym * sl4 + eym * dsl4;
+
+            double rda = ax1 * exmCl1 + ay1 * eymSl1 + as1 * sl1 + ac2 * cl2 + axy3 * (exmCl3 + eymSl3)
+                    + as3 * sl3 + ac4 * cl4 + as5 * sl5 + ac6 * cl6;
+            double drda = ax1 * dexmCl1 + ay1 * deymSl1 + as1 * dsl1 + ac2 * dcl2 + axy3 * (dexmCl3 + deymSl3)
+                    + as3 * dsl3 + ac4 * dcl4 + as5 * dsl5 + ac6 * dcl6;
+            double rdex = ex1 * cl1 + exx2 * exmCl2 + exy2 * eymSl2 + ex3 * cl3 + ex4 * (exmCl4 + eymSl4);
+            double drdex = ex1 * dcl1 + exx2 * dexmCl2 + exy2 * deymSl2 + ex3 * dcl3 + ex4 * (dexmCl4 + deymSl4);
+            double rdey = ey1 * sl1 + eyx2 * exmSl2 + eyy2 * eymCl2 + ey3 * sl3 + ey4 * (exmSl4 - eymCl4);
+            double drdey = ey1 * dsl1 + eyx2 * dexmSl2 + eyy2 * deymCl2 + ey3 * dsl3 + ey4 * (dexmSl4 - deymCl4);
+            double rdom = rx1 * exmSl1 + ry1 * eymCl1 + r2 * sl2 + r3 * (eymCl3 - exmSl3) + rl * ql;
+            double drdom = rx1 * dexmSl1 + ry1 * deymCl1 + r2 * dsl2 + r3 * (deymCl3 - dexmSl3) + rl * dql;
+            double rdxi = iy1 * eymSl1 + ix1 * exmCl1 + i2 * cl2 + i3 * (exmCl3 + eymSl3) + ih * qh;
+            double drdxi = iy1 * deymSl1 + ix1 * dexmCl1 + i2 * dcl2 + i3 * (dexmCl3 + deymSl3) + ih * dqh;
+            double rdxl = lx1 * exmSl1 + ly1 * eymCl1 + l2 * sl2 + l3 * (exmSl3 - eymCl3) + ll * ql;
+            double drdxl = lx1 * dexmSl1 + ly1 * deymCl1 + l2 * dsl2 + l3 * (dexmSl3 - deymCl3) + ll * dql;
+
+            A[k] = (rda + 1.0) * a0;
+            DA[k] = drda * a0;
+            Ex[k] = rdex + exm;
+            DEx[k] = drdex + dexm;
+            Ey[k] = rdey + eym;
+            DEy[k] = drdey + deym;
+            I[k] = rdxi + i0;
+            DI[k] = drdxi;
+            Raan[k] = Om[k] + rdom;
+            DRaan[k] = wo + drdom;
+            Alpha[k] = Lm[k] + rdxl;
+            DAlpha[k] = wl + drdxl;
+        }
+    }
+
+    // Eccentric latitude argument and Cartesian coordinates from the osculating elements of the block.
+    private static void Cartesian(Block B, int Count)
+    {
+        double[] A = B.A, DA = B.DA, Ex = B.Ex, DEx = B.DEx, Ey = B.Ey, DEy = B.DEy, I = B.I, DI = B.DI;
+        double[] Raan = B.Raan, DRaan = B.DRaan, Alpha = B.Alpha, DAlpha = B.DAlpha;
+        double[] CO = B.CO, SO = B.SO, CI = B.CI, SI = B.SI, CE = B.CE, SE = B.SE;
+        for (int k = 0; k < Count; k++) {
+            CO[k] = Math.cos(Raan[k]);
+            SO[k] = Math.sin(Raan[k]);
+            CI[k] = Math.cos(I[k]);
+            SI[k] = Math.sin(I[k]);
+        }
+
+        // Circular Kepler equation alphaM = alphaE - ex sin(alphaE) + ey cos(alphaE), Halley steps from alphaE = alphaM
+        for (int k = 0; k < Count; k++) {
+            double ex = Ex[k], ey = Ey[k], alphaM = Alpha[k];
+            double Shift = 0, Ce = Math.cos(alphaM), Se = Math.sin(alphaM);
+            for (int n = 0; n < KeplerIterations; n++) {
+                double f2 = ex * Se - ey * Ce;
+                double f1 = 1.0 - ex * Ce - ey * Se;
+                double f0 = Shift - f2;
+                double f12 = 2.0 * f1;
+                Shift -= f0 * f12 / (f1 * f12 - f0 * f2);
+                Ce = Math.cos(alphaM + Shift);
+                Se = Math.sin(alphaM + Shift);
+            }
+            CE[k] = Ce;
+            SE[k] = Se;
+        }
+
+        double[] X = B.X, Y = B.Y, Z = B.Z, VX = B.VX, VY = B.VY, VZ = B.VZ;
+        for (int k = 0; k < Count; k++) {
+            double ex = Ex[k], ey = Ey[k], dex = DEx[k], dey = DEy[k], ce = CE[k], se = SE[k];
+
+            // Rate of the eccentric latitude argument from the derivative of the Kepler equation
+            double dae = (DAlpha[k] + dex * se - dey * ce) / (1.0 - ex * ce - ey * se);
+
+            double ex2 = ex * ex, ey2 = ey * ey, exy = ex * ey;
+            double q = Math.sqrt(1.0 - ex2 - ey2), dq = -(ex * dex + ey * dey) / q;
+            double beta = 1.0 / (1.0 + q), dbeta = -beta * beta * dq;
+            double bx2 = beta * ex2, dbx2 = dbeta * ex2 + 2.0 * beta * ex * dex;
+            double by2 = beta * ey2, dby2 = dbeta * ey2 + 2.0 * beta * ey * dey;
+            double bxy = beta * exy, dbxy = dbeta * exy + beta * (dex * ey + ex * dey);
+            double u = bxy * se - (ex + (by2 - 1.0) * ce);
+            double du = dbxy * se + bxy * ce * dae - (dex + dby2 * ce - (by2 - 1.0) * se * dae);
+            double v = bxy * ce - (ey + (bx2 - 1.0) * se);
+            double dv = dbxy * ce - bxy * se * dae - (dey + dbx2 * se + (bx2 - 1.0) * ce * dae);
+            double x = A[k] * u, dx = DA[k] * u + A[k] * du;
+            double y = A[k] * v, dy = DA[k] * v + A[k] * dv;
+
+            double co = CO[k], so = SO[k], ci = CI[k], si = SI[k], dO = DRaan[k], di = DI[k];
+            X[k] = x * co - y * ci * so;
+            Y[k] = x * so + y * ci * co;
+            Z[k] = y * si;
+            VX[k] = dx * co - x * so * dO - dy * ci * so + y * si * di * so - y * ci * co * dO;
+            VY[k] = dx * so + x * co * dO + dy * ci * co - y * si * di * co - y * ci * so * dO;
+            VZ[k] = dy * si + y * ci * di;
+        }
+    }
+
+    // Largest position [m] and velocity [m/s] deviation from a propagator at the grid dates Origin + i * Step,
+    // i = First .. First + Count - 1, e.g. to check the batch against EcksteinHechlerPropagator.
+    double[] Deviation(Propagator Reference, AbsoluteDate Origin, long First, double Step, int Count)
+    {
+        Block Out = new Block(Math.min(Count, 1024));
+        double[] Max = new double[2];
+        for (long BlockFirst = First; BlockFirst < First + Count; BlockFirst += Out.Capacity) {
+            int n = (int) Math.min(Out.Capacity, First + Count - BlockFirst);
+            Evaluate(Origin, BlockFirst, Step, n, Out);
+            for (int k = 0; k < n; k++) {
+                PVCoordinates PV = Reference.propagate(Origin.shiftedBy((BlockFirst + k) * Step)).getPVCoordinates();
+                Max[0] = Math.max(Max[0], Math.sqrt(Square(Out.X[k] - PV.getPosition().getX())
+                        + Square(Out.Y[k] - PV.getPosition().getY()) + Square(Out.Z[k] - PV.getPosition().getZ())));
+                Max[1] = Math.max(Max[1], Math.sqrt(Square(Out.VX[k] - PV.getVelocity().getX())
+                        + Square(Out.VY[k] - PV.getVelocity().getY()) + Square(Out.VZ[k] - PV.getVelocity().getZ())));
+            }
+        }
+        return Max;
+    }
+
+    private static double Square(double x)
+    {
+        return x * x;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+Sun angle rows as STK-style CSV text, encoded without the Formatter.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import org.orekit.time.*;
+
+// Same output as CsvSunAngleSink, rows are collected in a CsvRowEncoder and written in large blocks.
+class FastCsvSunAngleSink implements SunAngleSink
+{
+    private static final int MaxRowLength = 256;
+
+    private final PrintWriter Out;
+    private final int[] ExtraColumns;
+    private final CsvRowEncoder Encoder = new CsvRowEncoder(1 << 16);
+
+    FastCsvSunAngleSink(PrintWriter out)
+    {
+        this(out, new int[0]);
+    }
+
+    // Rows with the extra columns of SunAngleKernel selected by their indices.
+    FastCsvSunAngleSink(PrintWriter out, int[] extraColumns)
+    {
+        Out = out;
+        ExtraColumns = extraColumns;
+    }
+
+    // Append ",<value>" per extra column, "%07.3f" for angles and "%d" for flags.
+    static void AppendExtra(CsvRowEncoder Encoder, int[] ExtraColumns, double[] Extra)
+    {
+        for (int k = 0; k < ExtraColumns.length; k++) {
+            Encoder.Append(',');
+            if (SunAngleKernel.ExtraIsFlag[ExtraColumns[k]]) {
+                Encoder.Append((long) Extra[k]);
+            } else {
+                Encoder.AppendFixed3(Extra[k], 7);
+            }
+        }
+    }
+
+    public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra) throws IOException
+    {
+        Encoder.AppendDate(Date);
+        Encoder.Append(',');
+        Encoder.AppendFixed3(Azimuth, 7);
+        Encoder.Append(',');
+        Encoder.AppendFixed3(Elevation, 7);
+        Encoder.Append(',');
+        Encoder.AppendFixed3(Subsolar, 7);
+        AppendExtra(Encoder, ExtraColumns, Extra);
+        Encoder.Append('\n');
+        if (Encoder.Remaining() < MaxRowLength) {
+            Encoder.Flush(Out);
+        }
+    }
+
+    public void Close() throws IOException
+    {
+        Encoder.Flush(Out);
+        Out.close();
+    }
+}
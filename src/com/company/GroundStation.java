@@ -0,0 +1,118 @@
+/*
+Ground station with its topocentric frame, minimum elevation and optional elevation mask.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.orekit.bodies.*;
+import org.orekit.frames.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+class GroundStation
+{
+    final String Name;
+    final TopocentricFrame Frame;
+    final double MinElevation;          // (deg)
+    final ElevationMask Mask;           // null = minimum elevation only, else the larger of both
+
+    // Screening geometry: unit vector and distance to Earth center in the Earth-fixed frame, lowest elevation (rad).
+    final Vector3D Direction;
+    final double Radius;
+    final double LowestElevation;
+
+    // mask holds the {azimuth, elevation} breakpoints (rad) of the elevation mask, null for none.
+    GroundStation(String name, BodyShape EarthShape, double lat, double lon, double alt, double minElevation,
+                  double[][] mask)
+    {
+        Name = name;
+        Frame = new TopocentricFrame(EarthShape, new GeodeticPoint(Math.toRadians(lat), Math.toRadians(lon), alt), name);
+        MinElevation = minElevation;
+        Mask = mask != null ? new ElevationMask(mask) : null;
+        Vector3D Position = EarthShape.transform(Frame.getPoint());
+        Direction = Position.normalize();
+        Radius = Position.getNorm();
+        double Lowest = Math.toRadians(MinElevation);
+        if (mask != null) {
+            // The mask is linear between breakpoints, its minimum is at one of them. The minimum elevation still
+            // applies where the mask is lower.
+            double LowestMask = Double.POSITIVE_INFINITY;
+            for (double[] AzEl : mask) {
+                LowestMask = Math.min(LowestMask, AzEl[1]);
+            }
+            Lowest = Math.max(Lowest, LowestMask);
+        }
+        LowestElevation = Lowest;
+    }
+
+    // Stations from the settings. GroundStations lists station names separated by ';', each with the keys
+    // GroundStation.<name>.Lat/Lon/Alt, optional .MinElevation (default SimMinElevation) and optional .ElevationMask
+    // as "az:el;az:el;..." in degrees. Without a list, the single station TargetLat/TargetLon/TargetAlt is used.
+    static List<GroundStation> FromSettings(Settings Set, BodyShape EarthShape)
+    {
+        List<GroundStation> Stations = new ArrayList<>();
+        double DefaultMinElevation = Double.parseDouble(Set.GetValue("SimMinElevation"));
+        String Names = Set.GetValue("GroundStations", "").trim();
+        if (Names.isEmpty()) {
+            Stations.add(new GroundStation("Ground Station", EarthShape,
+                    Double.parseDouble(Set.GetValue("TargetLat")), Double.parseDouble(Set.GetValue("TargetLon")),
+                    Double.parseDouble(Set.GetValue("TargetAlt")), DefaultMinElevation, null));
+            return Stations;
+        }
+        for (String Name : Names.split(";")) {
+            Name = Name.trim();
+            if (Name.isEmpty()) {
+                continue;
+            }
+            String Prefix = "GroundStation." + Name + ".";
+            String MaskDefinition = Set.GetValue(Prefix + "ElevationMask", "").trim();
+            Stations.add(new GroundStation(Name, EarthShape,
+                    Double.parseDouble(Set.GetValue(Prefix + "Lat")), Double.parseDouble(Set.GetValue(Prefix + "Lon")),
+                    Double.parseDouble(Set.GetValue(Prefix + "Alt", "0")),
+                    Double.parseDouble(Set.GetValue(Prefix + "MinElevation", String.valueOf(DefaultMinElevation))),
+                    MaskDefinition.isEmpty() ? null : ParseMask(MaskDefinition)));
+        }
+        return Stations;
+    }
+
+    // Parse "az:el;az:el;..." in degrees to {azimuth, elevation} breakpoints in rad.
+    private static double[][] ParseMask(String Definition)
+    {
+        String[] Points = Definition.split(";");
+        double[][] Mask = new double[Points.length][];
+        for (int i = 0; i < Points.length; i++) {
+            String[] AzEl = Points[i].split(":");
+            Mask[i] = new double[] {Math.toRadians(Double.parseDouble(AzEl[0].trim())),
+                    Math.toRadians(Double.parseDouble(AzEl[1].trim()))};
+        }
+        return Mask;
+    }
+
+    @Override
+    public String toString()
+    {
+        GeodeticPoint Point = Frame.getPoint();
+        return Name + " at Lat = " + Math.toDegrees(Point.getLatitude()) + " deg, Lon = "
+                + Math.toDegrees(Point.getLongitude()) + " deg, Alt = " + Point.getAltitude() + "m"
+                + ", min elevation = " + MinElevation + " deg" + (Mask != null ? " with elevation mask" : "");
+    }
+}
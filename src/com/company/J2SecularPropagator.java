@@ -0,0 +1,140 @@
+/*
+Keplerian propagation with the secular J2 drift of node, perigee and mean anomaly.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.orekit.attitudes.AttitudeProvider;
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.analytical.*;
+import org.orekit.time.*;
+import org.orekit.utils.Constants;
+
+// Cheapest model for screening: mean circular elements drift linearly with the first order J2 rates, short periodic
+// terms are left out. The mean elements must be given, e.g. from MeanOrbit; starting from osculating elements the
+// semi-major axis is off by up to J2 * Re^2 / a (about 10 km in LEO) and the satellite drifts along track by degrees
+// per day.
+class J2SecularPropagator extends AbstractAnalyticalPropagator
+{
+    private static final double J2 = -Constants.EIGEN5C_EARTH_C20;
+    private static final double Mu = Constants.EIGEN5C_EARTH_MU;
+    private static final double Re = Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS;
+
+    private CircularOrbit Mean;
+    private double RAANRate, PerigeeRate, AlphaRate;        // (rad/s)
+
+    J2SecularPropagator(Orbit meanOrbit, AttitudeProvider attitude)
+    {
+        super(attitude);
+        SetMean(meanOrbit);
+        super.resetInitialState(new SpacecraftState(Mean,
+                attitude.getAttitude(Mean, Mean.getDate(), Mean.getFrame())));
+    }
+
+    private void SetMean(Orbit MeanOrbit)
+    {
+        Mean = (CircularOrbit) OrbitType.CIRCULAR.convertType(MeanOrbit);
+        double a = Mean.getA(), e2 = Mean.getCircularEx() * Mean.getCircularEx() + Mean.getCircularEy() * Mean.getCircularEy();
+        double n = Math.sqrt(Mu / (a * a * a));
+        double p = a * (1 - e2);
+        double k = 1.5 * J2 * (Re / p) * (Re / p) * n;
+        double CosI2 = Math.cos(Mean.getI()) * Math.cos(Mean.getI());
+        RAANRate = -k * Math.cos(Mean.getI());
+        PerigeeRate = 0.5 * k * (5 * CosI2 - 1);
+        AlphaRate = PerigeeRate + n + 0.5 * k * Math.sqrt(1 - e2) * (3 * CosI2 - 1);
+    }
+
+    @Override
+    protected Orbit propagateOrbit(AbsoluteDate Date)
+    {
+        double dt = Date.durationFrom(Mean.getDate());
+        double Rotation = PerigeeRate * dt;
+        double Cos = Math.cos(Rotation), Sin = Math.sin(Rotation);
+        return new CircularOrbit(Mean.getA(),
+                Cos * Mean.getCircularEx() - Sin * Mean.getCircularEy(),
+                Sin * Mean.getCircularEx() + Cos * Mean.getCircularEy(),
+                Mean.getI(), Mean.getRightAscensionOfAscendingNode() + RAANRate * dt,
+                Mean.getAlphaM() + AlphaRate * dt, PositionAngle.MEAN, Mean.getFrame(), Date, Mu);
+    }
+
+    @Override
+    protected double getMass(AbsoluteDate Date)
+    {
+        return getInitialState().getMass();
+    }
+
+    @Override
+    public void resetInitialState(SpacecraftState State)
+    {
+        super.resetInitialState(State);
+        SetMean(State.getOrbit());
+    }
+
+    @Override
+    protected void resetIntermediateState(SpacecraftState State, boolean Forward)
+    {
+        SetMean(State.getOrbit());
+    }
+
+    // Mean circular elements at the start of a propagator: a, ex, ey and i averaged over one revolution, node and
+    // mean argument of latitude from a linear fit to the revolution.
+    static CircularOrbit MeanOrbit(Propagator Osculating, AbsoluteDate Start, double Period)
+    {
+        int Samples = 64;
+        double a = 0, ex = 0, ey = 0, i = 0;
+        double[] t = new double[Samples], RAAN = new double[Samples], Alpha = new double[Samples];
+        for (int k = 0; k < Samples; k++) {
+            t[k] = Period * k / Samples;
+            CircularOrbit Orbit = (CircularOrbit) OrbitType.CIRCULAR.convertType(
+                    Osculating.propagate(Start.shiftedBy(t[k])).getOrbit());
+            a += Orbit.getA() / Samples;
+            ex += Orbit.getCircularEx() / Samples;
+            ey += Orbit.getCircularEy() / Samples;
+            i += Orbit.getI() / Samples;
+            RAAN[k] = k == 0 ? Orbit.getRightAscensionOfAscendingNode()
+                    : Unwrap(Orbit.getRightAscensionOfAscendingNode(), RAAN[k - 1]);
+            Alpha[k] = k == 0 ? Orbit.getAlphaM() : Unwrap(Orbit.getAlphaM(), Alpha[k - 1]);
+        }
+        return new CircularOrbit(a, ex, ey, i, Intercept(t, RAAN), Intercept(t, Alpha), PositionAngle.MEAN,
+                Osculating.getFrame(), Start, Mu);
+    }
+
+    // Angle closest to Previous that differs from Angle by a multiple of 2 pi.
+    private static double Unwrap(double Angle, double Previous)
+    {
+        return Angle - 2 * Math.PI * Math.round((Angle - Previous) / (2 * Math.PI));
+    }
+
+    // Value at x = 0 of the least squares line through the points.
+    private static double Intercept(double[] x, double[] y)
+    {
+        double MeanX = 0, MeanY = 0;
+        for (int k = 0; k < x.length; k++) {
+            MeanX += x[k] / x.length;
+            MeanY += y[k] / x.length;
+        }
+        double Cov = 0, Var = 0;
+        for (int k = 0; k < x.length; k++) {
+            Cov += (x[k] - MeanX) * (y[k] - MeanY);
+            Var += (x[k] - MeanX) * (x[k] - MeanX);
+        }
+        return MeanY - Cov / Var * MeanX;
+    }
+}
@@ -22,227 +22,216 @@ Contact: max.gulde@emi.fraunhofer.de
 package com.company;
 
 import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
 
-import org.orekit.attitudes.LofOffset;
+import org.orekit.bodies.*;
 import org.orekit.data.*;
 import org.orekit.frames.*;
 import org.orekit.time.*;
-import org.orekit.orbits.*;
-import org.orekit.propagation.*;
-import org.orekit.propagation.analytical.*;
-import org.orekit.bodies.*;
-import org.orekit.utils.*;
-import org.orekit.propagation.events.*;
-import org.hipparchus.geometry.euclidean.threed.*;
+import org.orekit.utils.IERSConventions;
 
 public class Main
 {
     public static void main(String[] args) throws Exception {
 
-        // Fields
-        CelestialBody Sun;//, Earth;
-        Frame InertialFrame, EarthFrame;
-        Orbit InitialOrbit;
-        PrintWriter SunAngles;//, EarthAngles;
-        AbsoluteDate TimeStart, TimeEnd;
+        // Messages go to standard error when the results are streamed to standard output. Messages before the
+        // settings are known are held back until then.
+        PrintStream Stdout = System.out;
+        ByteArrayOutputStream EarlyMessages = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(EarlyMessages, true));
 
         // Print versions
         System.out.println("Using Java Runtime " + System.getProperty("java.version"));
 
         // Load parameters from settings file
         Settings Set = new Settings();
+        String StreamTarget = Set.GetValue("ExpStream", "");
+        System.setOut(StreamTarget.equalsIgnoreCase("stdout") ? System.err : Stdout);
+        System.out.print(EarlyMessages.toString());
 
         // Performance timers
         long SimEndTime, SimStartTime = System.currentTimeMillis();
-
-        // Orekit configuration
-        File OrekitData = new File("//EMI-FS2/Abteilung 1.90/PROJEKTE/aktuell/108715 Nanosat BW/3 Plattform/Thermal/EQM Analyse/Software/SatelliteAttitudePropagator/Libraries/orekit-data"); // The argument indicates the path to the config folder
-        DataProvidersManager Manager = DataProvidersManager.getInstance();
-        Manager.addProvider(new DirectoryCrawler(OrekitData));
+        String SweepFile = Set.GetValue("SweepFile", "");
+        boolean fConstellation = !Set.GetValue("Constellation", "").trim().isEmpty()
+                || !Set.GetValue("ConstellationWalker", "").trim().isEmpty();
+        boolean fComparePropagators = !Set.GetValue("SimComparePropagators", "").trim().isEmpty();
+        String StatisticsFile = Set.GetValue("ExpRunStatistics", "");
+        double LiveReport = Double.parseDouble(Set.GetValue("ExpLiveReport", "0"));
+        RunStatistics Stats = SweepFile.isEmpty() && !fConstellation && !fComparePropagators && StreamTarget.isEmpty() && (!StatisticsFile.isEmpty() || LiveReport > 0)
+                ? new RunStatistics() : null;
+        long Time = System.nanoTime();
+
+        // Orekit configuration, loaded completely before the first step so startup is reported as its own phase. The
+        // sweep cases are read first, so the data covers the time frames of all of them.
+        SweepRun Sweep = SweepFile.isEmpty() ? null : new SweepRun(Set, SweepFile);
+        LoadOrekitData(Set, Sweep != null ? Sweep.CaseSettings() : Collections.singletonList(Set));
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.DataLoading, Time);
+        }
         if (Settings.fDisplayMessages) {
-            System.out.println("Loaded orekit configuration.");
+            long StartupTime = System.currentTimeMillis();
+            System.out.println("Startup done (Orekit data: " + (StartupTime - SimStartTime)/1000.0 + " s, since JVM start: "
+                    + (StartupTime - ManagementFactory.getRuntimeMXBean().getStartTime())/1000.0 + " s).");
         }
 
+        // Batch run over a parameter grid
+        if (Sweep != null) {
+            Sweep.Execute();
+        } else if (fComparePropagators) {
+            // Same scenario on several propagators against a reference
+            new PropagatorComparison(Set).Execute();
+        } else if (fConstellation) {
+            // Several satellites sharing frames and ground stations
+            new ConstellationRun(Set).Execute();
+        } else if (!StreamTarget.isEmpty()) {
+            // Stream samples and accesses instead of writing result files
+            Scenario Scen = new Scenario(Set);
+            System.out.print("Streaming to " + StreamTarget + " ");
+            StreamRun Run = new StreamRun(Set, Scen, Stdout);
+            Run.Execute();
+            System.out.print(" " + Run.Samples + " samples, " + Run.AccessCount + " accesses,");
+        } else {
+            // Set up frames, time frame, orbit and ground station
+            Time = System.nanoTime();
+            Scenario Scen = new Scenario(Set);
+            if (Stats != null) {
+                Stats.Add(RunStatistics.Phase.FrameSetup, Time);
+            }
 
-        // Create inertial frame for Earth, celestial bodies, and ground station
-        InertialFrame = FramesFactory.getEME2000(); // J2000, centered at Earth's center, moving with surface rotation
-        Sun = CelestialBodyFactory.getSun();
-//        Earth = CelestialBodyFactory.getEarth();
-        if (Settings.fDisplayMessages) {
-            System.out.println("Created inertial frames.");
+            // Start propagation
+            if (Settings.fDisplayMessages) {
+                System.out.println("Start time: " + Scen.TimeStart.toString());
+                System.out.println("End time: " + Scen.TimeEnd.toString());
+                System.out.println("Time step: " + Scen.dt);
+                System.out.print("Propagating ");
+            }
+            PropagationRun Run = new PropagationRun(Set, Scen);
+            Run.Stats = Stats;
+            ScheduledExecutorService Reporter = LiveReport > 0 ? Stats.StartLiveReport(LiveReport, System.out) : null;
+            try {
+                Run.Execute();
+            } finally {
+                if (Reporter != null) {
+                    Reporter.shutdownNow();
+                }
+            }
+            Run.ReportVerification();
+
+            // Summary of phase times, throughput and memory
+            if (Stats != null) {
+                Stats.Finish();
+                if (!StatisticsFile.isEmpty()) {
+                    String StatisticsPath = Set.GetValue("ResultsDirectory") + "/" + StatisticsFile;
+                    Stats.WriteJson(StatisticsPath, Scen, Run.Threads);
+                    System.out.print(" statistics written to <" + StatisticsPath + ">,");
+                }
+            }
         }
 
-        // Set up time frame
-        TimeStart = new AbsoluteDate(Integer.parseInt(Set.GetValue("SimStartYear")),
-                Integer.parseInt(Set.GetValue("SimStartMonth")),
-                Integer.parseInt(Set.GetValue("SimStartDay")),
-                Integer.parseInt(Set.GetValue("SimStartHour")),
-                Integer.parseInt(Set.GetValue("SimStartMinute")),
-                Double.parseDouble(Set.GetValue("SimStartSecond")), TimeScalesFactory.getUTC());
-        double SimDurationInSec = Double.parseDouble(Set.GetValue("SimDurationInDays")) * 3600 * 24;
-        TimeEnd = TimeStart.shiftedBy(SimDurationInSec);
-
-        // Set up satellite orbit
-        double SemiMajorAxis = Double.parseDouble(Set.GetValue("SatAltitude")) + Settings.EarthRadius;
-        double SatEccentricity = Double.parseDouble(Set.GetValue("SatEccentricity"));
-        double SatInclination = Double.parseDouble(Set.GetValue("SatInclination"));
-        double SatOmega = Double.parseDouble(Set.GetValue("SatOmega"));
-        double SatRAAN = Double.parseDouble(Set.GetValue("SatRAAN"));
-        double SatMeanAnomaly = Double.parseDouble(Set.GetValue("SatMeanAnomaly"));
-        InitialOrbit = new CircularOrbit(SemiMajorAxis, SatEccentricity * Math.cos(Math.toRadians(SatOmega)),
-                SatEccentricity * Math.sin(Math.toRadians(SatOmega)), Math.toRadians(SatInclination),
-                Math.toRadians(SatRAAN), Math.toRadians(SatMeanAnomaly), PositionAngle.MEAN,
-                InertialFrame, TimeStart, Constants.EIGEN5C_EARTH_MU);
-        if (Settings.fDisplayMessages) {
-            System.out.println("Created satellite orbit:");
-            System.out.println("\tSemiMajorAxis = " + SemiMajorAxis);
-            System.out.println("\tSatEccentricity = " + SatEccentricity);
-            System.out.println("\tSatInclination = " + SatInclination);
-            System.out.println("\tSatOmega = " + SatOmega);
-            System.out.println("\tSatRAAN = " + SatRAAN);
-            System.out.println("\tSatMeanAnomaly = " + SatMeanAnomaly);
-        }
+        // Calculate and print elapsed time.
+        SimEndTime = System.currentTimeMillis();
+        System.out.println(" done (Elapsed time: " + (SimEndTime - SimStartTime)/1000.0 + " s).");
+    }
 
-        // Set up propagator
-        EcksteinHechlerPropagator Propagator = new EcksteinHechlerPropagator(InitialOrbit,
-                new LofOffset(InitialOrbit.getFrame(), LOFType.TNW),
-                Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS,
-                Constants.EIGEN5C_EARTH_MU,  Constants.EIGEN5C_EARTH_C20,
-                Constants.EIGEN5C_EARTH_C30, Constants.EIGEN5C_EARTH_C40,
-                Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60);
-        Propagator.setSlaveMode();
-        if (Settings.fDisplayMessages) {
-            System.out.println("Created Eckstein-Hechler propagator.");
-        }
+    // Default location of the Orekit data directory, relative to the working directory.
+    static final String DefaultOrekitDataPath = "Libraries/orekit-data";
 
-        // Setting up files and print files header
-        String FilePath = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFileSunAngles");
-        SunAngles = new PrintWriter(FilePath,Set.GetValue("ExpTextFormat"));
-        SunAngles.println("\"Time (UTCG)\",\"Azimuth (deg)\",\"Elevation (deg)\",\"Subsolar (deg)\"");
-//        FilePath = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFileEarthAngles");
-//        EarthAngles = new PrintWriter(FilePath,Set.GetValue("ExpTextFormat"));
-//        EarthAngles.println("\"Time (UTCG)\",\"Azimuth (deg)\",\"Elevation (deg)\"");
-        if (Settings.fDisplayMessages) {
-            System.out.println("Created satellite orientation files.");
-        }
+    // Interval of the dates at which the Orekit data is loaded before the run (s).
+    private static final double PreloadStep = 86400;
 
-        // Create ground station
-        double TargetLon = Double.parseDouble(Set.GetValue("TargetLon"));
-        double TargetLat = Double.parseDouble(Set.GetValue("TargetLat"));
-        double TargetAlt = Double.parseDouble(Set.GetValue("TargetAlt"));
-        GeodeticPoint GroundStation = new GeodeticPoint(Math.toRadians(TargetLat), Math.toRadians(TargetLon), TargetAlt);
-        // Topocentric frame for the ground station.
-        EarthFrame = FramesFactory.getITRF(IERSConventions.IERS_2010, true);
-        BodyShape EarthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
-                Constants.WGS84_EARTH_FLATTENING,
-                EarthFrame);
-        TopocentricFrame GroundStationFrame = new TopocentricFrame(EarthShape, GroundStation, "Ground Station");
-        if (Settings.fDisplayMessages) {
-            System.out.println("Created ground station at Lat = " + Math.toDegrees(GroundStation.getLatitude()) + " deg, Lon = " + Math.toDegrees(GroundStation.getLongitude()) + " deg, Alt = " + GroundStation.getAltitude() + "m.");
-        }
+    // Orekit configuration for the simulation window of the settings.
+    static void LoadOrekitData(Settings Set) throws IOException
+    {
+        LoadOrekitData(Set, Collections.singletonList(Set));
+    }
 
-        // Set up event detector
-        VisibilityHandler VisH = new VisibilityHandler(Set);
-        double MinElevation = Double.parseDouble(Set.GetValue("SimMinElevation"));
-        double MaxCheckInterval = Double.parseDouble(Set.GetValue("SimMaxCheck"));
-        double MaxDivThreshold = Double.parseDouble(Set.GetValue("SimDivThreshold"));
-        EventDetector StationVisibility = new ElevationDetector(MaxCheckInterval,MaxDivThreshold,
-                GroundStationFrame).withConstantElevation(Math.toRadians(MinElevation)).withHandler(VisH);
-        // Add event detector to the propagator.
-        Propagator.addEventDetector(StationVisibility);
-        if (Settings.fDisplayMessages) {
-            System.out.println("Created elevation detector with min elevation = " + MinElevation + " deg, max check interval = " + MaxCheckInterval + " s, divergence threshold = " + MaxDivThreshold + " s.");
-        }
+    // Orekit configuration from the data directory OrekitDataPath or, if OrekitDataSnapshot is set, from a snapshot
+    // of the data needed for the simulation windows of all cases. A missing snapshot or one not covering all windows
+    // is recorded from the data directory first.
+    static void LoadOrekitData(Settings Set, List<Settings> Cases) throws IOException
+    {
+        File OrekitData = new File(Set.GetValue("OrekitDataPath", DefaultOrekitDataPath));
+        String SnapshotPath = Set.GetValue("OrekitDataSnapshot", "");
+        DataProvidersManager Manager = DataProvidersManager.getInstance();
 
-        // Start propagation
-        double dt = Double.parseDouble(Set.GetValue("SimTimeStep"));
-        double TimeSteps = Math.round(SimDurationInSec / dt);
-        if (Settings.fDisplayMessages) {
-            System.out.println("Start time: " + TimeStart.toString());
-            System.out.println("End time: " + TimeEnd.toString());
-            System.out.println("Time step: " + dt);
-            System.out.print("Propagating ");
+        // Union of the simulation windows in MJD, without time scales as these are not loaded yet
+        double Start = Double.POSITIVE_INFINITY, End = Double.NEGATIVE_INFINITY;
+        for (Settings Case : Cases) {
+            double CaseStart = new DateComponents(Integer.parseInt(Case.GetValue("SimStartYear")),
+                    Integer.parseInt(Case.GetValue("SimStartMonth")),
+                    Integer.parseInt(Case.GetValue("SimStartDay"))).getMJD()
+                    + (Integer.parseInt(Case.GetValue("SimStartHour")) * 3600
+                    + Integer.parseInt(Case.GetValue("SimStartMinute")) * 60
+                    + Double.parseDouble(Case.GetValue("SimStartSecond"))) / 86400;
+            Start = Math.min(Start, CaseStart);
+            End = Math.max(End, CaseStart + Double.parseDouble(Case.GetValue("SimDurationInDays")));
         }
-
-        for (int i = 0; i < TimeSteps; i++) {
-            if (i % (int)Math.round(TimeSteps / 10) == 0)
-            {
-                System.out.print(".");
-            }
-            AbsoluteDate t = TimeStart.shiftedBy(i * dt);
-
-            // Propagate S/C
-            SpacecraftState CurrentSCState = Propagator.propagate(t);
-
-            // Get the date & time
-            AbsoluteDate AbsDate = CurrentSCState.getDate();
-            DateComponents DateComps = AbsDate.getComponents(0).getDate();
-            TimeComponents TimeComps = AbsDate.getComponents(0).getTime();
-
-            // Get month string.
-            String StrMonth = DateComps.getMonthEnum().getCapitalizedAbbreviation();
-
-            // Get the satellite reference frame.
-            LocalOrbitalFrame SatelliteFrame = new LocalOrbitalFrame(InertialFrame, LOFType.VVLH,
-                            CurrentSCState.getPVCoordinates().toTaylorProvider(InertialFrame), "Satellite Frame");
-
-            // Get position vectors.
-            Vector3D Earth2Sun = Sun.getPVCoordinates(AbsDate, InertialFrame).getPosition();    // Sun position as seen from Earth
-//            Vector3D Sat2Earth = Earth.getPVCoordinates(AbsDate, SatelliteFrame).getPosition(); // Earth position as seen from satellite
-            Vector3D Sat2Sun = Sun.getPVCoordinates(AbsDate, SatelliteFrame).getPosition();     // Sun position as seen from satellite
-            Vector3D Earth2Sat = CurrentSCState.getPVCoordinates().getPosition();
-            // Angle projected on xy plane in satellite geometry
-            Vector3D Sat2SunProjXY = new Vector3D(Sat2Sun.getX(), Sat2Sun.getY(), 0.0);
-
-            // Compute solar angles (deg)
-            double Subsolar, SunAzimuth, SunElevation;
-            Subsolar = Math.toDegrees(Vector3D.angle(Earth2Sun, Earth2Sat));
-            SunAzimuth = Math.toDegrees(Vector3D.angle(Vector3D.PLUS_I, Sat2SunProjXY));
-            SunElevation = Math.toDegrees(Vector3D.angle(Sat2Sun, Sat2SunProjXY));
-            // Check sign
-            if (Sat2Sun.getY() < 0) {
-                SunAzimuth = 360 - SunAzimuth;
-            }
-            if (Sat2Sun.getZ() < 0) {
-                SunElevation = -SunElevation;
-            }
-            // Write to solar angles file.
-            SunAngles.printf(Settings.LocalFormat, "%d %s %d %02d:%02d:%06.3f,%07.3f,%07.3f,%07.3f\n",
-                    DateComps.getDay(), StrMonth, DateComps.getYear(), TimeComps.getHour(), TimeComps.getMinute(),
-                    TimeComps.getSecond(), SunAzimuth, SunElevation, Subsolar);
-
-            /*
-            Compute Earth angles (deg)
-            double EarthAzimuth, EarthElevation;
-            if (Sat2Earth.getX() == 0 & Sat2Earth.getY() == 0) { // Prevents crashing when X and Y are both 0
-            EarthAzimuth = 0.0;
-            EarthElevation = 90.0;
-            } else {
-            EarthAzimuth = Math.toDegrees(Vector3D.angle(Vector3D.PLUS_I, Sat2Earth.add(new Vector3D(0.0, 0.0, -Sat2Earth.getZ()))));
-            EarthElevation = Math.toDegrees(Vector3D.angle(Sat2Earth, new Vector3D(Sat2Earth.getX(), Sat2Earth.getY(), 0.0)));
+        double WindowStart = Start, WindowEnd = End;
+
+        if (SnapshotPath.isEmpty()) {
+            CheckOrekitData(OrekitData);
+            Manager.addProvider(new DirectoryCrawler(OrekitData));
+            PreloadOrekitData(WindowStart, WindowEnd);
+            if (Settings.fDisplayMessages) {
+                System.out.println("Loaded orekit configuration from <" + OrekitData + ">.");
             }
-            // Check sign
-            if (Sat2Earth.getY() < 0) {
-            EarthAzimuth = 360 - EarthAzimuth;
+            return;
+        }
+
+        File SnapshotFile = new File(SnapshotPath);
+        OrekitDataSnapshot Snapshot = OrekitDataSnapshot.Open(SnapshotFile);
+        if (Snapshot != null && Snapshot.Covers(Start, End)) {
+            Manager.addProvider(Snapshot);
+            PreloadOrekitData(WindowStart, WindowEnd);
+            if (Settings.fDisplayMessages) {
+                System.out.println("Loaded orekit configuration from snapshot <" + SnapshotFile + "> with "
+                        + Snapshot.EntryCount() + " entries.");
             }
-            if (Sat2Earth.getZ() < 0) {
-            EarthElevation = -EarthElevation;
+        } else {
+            CheckOrekitData(OrekitData);
+            OrekitDataSnapshot.Build(OrekitData, SnapshotFile, Start, End, () -> PreloadOrekitData(WindowStart, WindowEnd));
+            if (Settings.fDisplayMessages) {
+                System.out.println("Loaded orekit configuration from <" + OrekitData + ">, recorded the files read in snapshot <"
+                        + SnapshotFile + "> (" + SnapshotFile.length() + " bytes).");
             }
+        }
+    }
 
-            // Write to Earth angles file.
-            EarthAngles.printf(Settings.LocalFormat, "%d %s %d %02d:%02d:%06.3f,%07.3f,%07.3f\n",
-            DateComps.getDay(), StrMonth, DateComps.getYear(), TimeComps.getHour(), TimeComps.getMinute(),
-            TimeComps.getSecond(),EarthAzimuth, EarthElevation);
-            */
+    // The data directory must exist; otherwise Orekit only fails later on the first missing time scale.
+    private static void CheckOrekitData(File OrekitData) throws FileNotFoundException
+    {
+        if (!OrekitData.isDirectory()) {
+            throw new FileNotFoundException("Orekit data directory <" + OrekitData.getAbsolutePath()
+                    + "> not found. Set OrekitDataPath in the settings file.");
         }
+    }
 
-        // Close files.
-        SunAngles.close();
-//        EarthAngles.close();
-        VisH.CloseFile();
+    // Load the time scales, EOP and Sun ephemerides used by the propagation over the window [Start, End] (MJD, UTC),
+    // once per PreloadStep and at the end. Orekit reads data files on demand, so this also reads files needed only
+    // within the window, e.g. one of several JPL ephemeris files, and a snapshot recorded meanwhile has all of them.
+    private static void PreloadOrekitData(double Start, double End)
+    {
+        AbsoluteDate StartDate = MJDDate(Start), EndDate = MJDDate(End);
+        double Duration = EndDate.durationFrom(StartDate);
+        Frame EarthFrame = FramesFactory.getITRF(IERSConventions.IERS_2010, true);
+        Frame InertialFrame = FramesFactory.getEME2000();
+        CelestialBody Sun = CelestialBodyFactory.getSun();
+        long Count = (long) Math.ceil(Duration / PreloadStep);
+        for (long k = 0; k <= Count; k++) {
+            AbsoluteDate Date = StartDate.shiftedBy(Math.min(k * PreloadStep, Duration));
+            EarthFrame.getTransformTo(InertialFrame, Date);
+            Sun.getPVCoordinates(Date, InertialFrame);
+        }
+    }
 
-        // Calculate and print elapsed time.
-        SimEndTime = System.currentTimeMillis();
-        System.out.println(" done (Elapsed time: " + (SimEndTime - SimStartTime)/1000.0 + " s).");
+    // Date of a modified Julian day in UTC.
+    private static AbsoluteDate MJDDate(double MJD)
+    {
+        int Day = (int) Math.floor(MJD);
+        return new AbsoluteDate(new DateComponents(DateComponents.MODIFIED_JULIAN_EPOCH, Day), TimeScalesFactory.getUTC())
+                .shiftedBy((MJD - Day) * 86400);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,282 @@
+/*
+Snapshot of the Orekit data files read for a simulation window, loaded from a memory-mapped file.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.orekit.data.*;
+
+// Data provider over a snapshot file with only the data files Orekit actually read for one simulation window, e.g.
+// UTC-TAI history, EOP and Sun ephemerides, instead of crawling the whole data directory. The snapshot is recorded
+// while the data for the whole window is loaded from the directory once (see Build): it holds a copy of each file fed
+// to the Orekit loaders. EOP column files are cut to the window, all other files, including JPL ephemerides, are
+// kept as read. The entries keep the original formats, so the standard Orekit loaders parse them.
+//
+// File layout (big endian): magic, version, recorded window start and end (MJD), entry count, index of name, offset
+// and length per entry, then the entry data.
+class OrekitDataSnapshot implements DataProvider
+{
+    private static final int Magic = 0x4F44534E;    // "ODSN"
+    private static final int Version = 3;           // 3: window as loaded, without the EOP margin
+    private static final double EopMargin = 10;     // (d) EOP kept around the window for interpolation
+
+    // Names of the EOP files, which are cut to the window.
+    private static final Pattern EopFileNames = Pattern.compile("^finals.*\\.(?:daily|data|all)$");
+
+    final double WindowStart, WindowEnd;    // (MJD)
+    private final List<String> Names = new ArrayList<>();
+    private final List<ByteBuffer> Data = new ArrayList<>();
+
+    // Map a snapshot file. Returns null if the file does not exist or is not a snapshot.
+    static OrekitDataSnapshot Open(File SnapshotFile)
+    {
+        if (!SnapshotFile.isFile()) {
+            return null;
+        }
+        try (FileChannel Channel = new RandomAccessFile(SnapshotFile, "r").getChannel()) {
+            return new OrekitDataSnapshot(Channel.map(FileChannel.MapMode.READ_ONLY, 0, Channel.size()));
+        }
+        catch (IOException | RuntimeException e)
+        {
+            System.out.println("Warning: Could not read orekit data snapshot <" + SnapshotFile + ">: " + e.toString());
+            return null;
+        }
+    }
+
+    private OrekitDataSnapshot(ByteBuffer Buffer) throws IOException
+    {
+        if (Buffer.getInt() != Magic || Buffer.getInt() != Version) {
+            throw new IOException("not an orekit data snapshot of version " + Version);
+        }
+        WindowStart = Buffer.getDouble();
+        WindowEnd = Buffer.getDouble();
+        int Count = Buffer.getInt();
+        for (int i = 0; i < Count; i++) {
+            byte[] Name = new byte[Buffer.getInt()];
+            Buffer.get(Name);
+            int Offset = Buffer.getInt(), Length = Buffer.getInt();
+            ByteBuffer Entry = Buffer.duplicate();
+            Entry.position(Offset);
+            Entry.limit(Offset + Length);
+            Names.add(new String(Name, StandardCharsets.UTF_8));
+            Data.add(Entry.slice());
+        }
+    }
+
+    // True if the snapshot was recorded for a window containing [Start, End] (MJD).
+    boolean Covers(double Start, double End)
+    {
+        return WindowStart <= Start && End <= WindowEnd;
+    }
+
+    int EntryCount()
+    {
+        return Names.size();
+    }
+
+    // Feed the entries whose names match the pattern of the loader.
+    @Override
+    public boolean feed(Pattern Supported, DataLoader Visitor)
+    {
+        boolean fLoaded = false;
+        for (int i = 0; i < Names.size() && Visitor.stillAcceptsData(); i++) {
+            if (Supported.matcher(Names.get(i)).matches()) {
+                try (InputStream In = new ByteBufferInputStream(Data.get(i).duplicate())) {
+                    Visitor.loadData(In, Names.get(i));
+                    fLoaded = true;
+                }
+                catch (Exception e)
+                {
+                    throw new IllegalStateException("Could not load <" + Names.get(i) + "> from orekit data snapshot: " + e.toString(), e);
+                }
+            }
+        }
+        return fLoaded;
+    }
+
+    // Register a recorder over the data directory, load the data with Load and write the files read in the meantime
+    // to the snapshot file. Load must read all data needed within [Start, End] (MJD), not only at its ends, as the
+    // snapshot is taken to cover this window. The recorder is then replaced by the new snapshot, so data loaded later
+    // comes from the snapshot as in the runs that open it.
+    static void Build(File DataDirectory, File SnapshotFile, double Start, double End, Runnable Load) throws IOException
+    {
+        DataProvidersManager Manager = DataProvidersManager.getInstance();
+        Recorder Source = new Recorder(new DirectoryCrawler(DataDirectory));
+        Manager.addProvider(Source);
+        try {
+            Load.run();
+        } finally {
+            Manager.removeProvider(Source);
+        }
+
+        List<byte[]> Names = new ArrayList<>(), Entries = new ArrayList<>();
+        for (int i = 0; i < Source.Names.size(); i++) {
+            String Name = Source.Names.get(i);
+            byte[] Entry = Source.Data.get(i);
+            Names.add(Name.getBytes(StandardCharsets.UTF_8));
+            Entries.add(EopFileNames.matcher(Name).matches() ? CutToWindow(Entry, Start - EopMargin, End + EopMargin) : Entry);
+        }
+
+        int Offset = 4 + 4 + 8 + 8 + 4;
+        for (byte[] Name : Names) {
+            Offset += 4 + Name.length + 4 + 4;
+        }
+        try (DataOutputStream Out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(SnapshotFile)))) {
+            Out.writeInt(Magic);
+            Out.writeInt(Version);
+            Out.writeDouble(Start);
+            Out.writeDouble(End);
+            Out.writeInt(Names.size());
+            for (int i = 0; i < Names.size(); i++) {
+                Out.writeInt(Names.get(i).length);
+                Out.write(Names.get(i));
+                Out.writeInt(Offset);
+                Out.writeInt(Entries.get(i).length);
+                Offset += Entries.get(i).length;
+            }
+            for (byte[] Entry : Entries) {
+                Out.write(Entry);
+            }
+        }
+        OrekitDataSnapshot Snapshot = Open(SnapshotFile);
+        if (Snapshot == null) {
+            throw new IOException("Could not read back orekit data snapshot <" + SnapshotFile + ">.");
+        }
+        Manager.addProvider(Snapshot);
+    }
+
+    // Lines of an IERS column file (finals*.all etc.) with the MJD in columns 8-15 within the window. Lines without
+    // a readable MJD are kept.
+    private static byte[] CutToWindow(byte[] Entry, double Start, double End) throws IOException
+    {
+        ByteArrayOutputStream Out = new ByteArrayOutputStream();
+        BufferedReader Reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(Entry), StandardCharsets.US_ASCII));
+        for (String Line = Reader.readLine(); Line != null; Line = Reader.readLine()) {
+            double MJD;
+            try {
+                MJD = Double.parseDouble(Line.substring(7, 15).trim());
+            }
+            catch (RuntimeException e)
+            {
+                MJD = Double.NaN;
+            }
+            if (Double.isNaN(MJD) || (Start <= MJD && MJD <= End)) {
+                Out.write(Line.getBytes(StandardCharsets.US_ASCII));
+                Out.write('\n');
+            }
+        }
+        return Out.toByteArray();
+    }
+
+    // Provider that keeps a copy of every file fed to a loader, by the base name the loader pattern was matched with.
+    private static class Recorder implements DataProvider
+    {
+        private final DataProvider Source;
+        final List<String> Names = new ArrayList<>();
+        final List<byte[]> Data = new ArrayList<>();
+
+        Recorder(DataProvider source)
+        {
+            Source = source;
+        }
+
+        @Override
+        public boolean feed(Pattern Supported, DataLoader Visitor)
+        {
+            return Source.feed(Supported, new DataLoader()
+            {
+                @Override
+                public boolean stillAcceptsData()
+                {
+                    return Visitor.stillAcceptsData();
+                }
+
+                @Override
+                public void loadData(InputStream Input, String Name) throws IOException, java.text.ParseException
+                {
+                    ByteArrayOutputStream Copy = new ByteArrayOutputStream();
+                    byte[] Buffer = new byte[65536];
+                    for (int n = Input.read(Buffer); n >= 0; n = Input.read(Buffer)) {
+                        Copy.write(Buffer, 0, n);
+                    }
+                    String BaseName = MatchedName(Name);
+                    synchronized (Recorder.this) {
+                        if (!Names.contains(BaseName)) {
+                            Names.add(BaseName);
+                            Data.add(Copy.toByteArray());
+                        }
+                    }
+                    Visitor.loadData(new ByteArrayInputStream(Copy.toByteArray()), Name);
+                }
+            });
+        }
+    }
+
+    // Base name of a crawled file as matched against the loader patterns. The crawler passes the file path, but
+    // matches the name left by the data filters, e.g. "finals2000A.all" for "finals2000A.all.gz", and feeds the
+    // uncompressed content. The filters only look at the name until the stream is opened.
+    private static String MatchedName(String Path) throws IOException
+    {
+        NamedData Filtered = DataProvidersManager.getInstance().applyAllFilters(
+                new NamedData(new File(Path).getName(), () -> new ByteArrayInputStream(new byte[0])));
+        return Filtered.getName();
+    }
+
+    // Input stream over a mapped buffer.
+    private static class ByteBufferInputStream extends InputStream
+    {
+        private final ByteBuffer Buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer)
+        {
+            Buffer = buffer;
+        }
+
+        @Override
+        public int read()
+        {
+            return Buffer.hasRemaining() ? Buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len)
+        {
+            if (!Buffer.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(len, Buffer.remaining());
+            Buffer.get(b, off, n);
+            return n;
+        }
+
+        @Override
+        public int available()
+        {
+            return Buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,441 @@
+/*
+Propagation of a contiguous range of time steps with its own propagator.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.orekit.time.*;
+import org.orekit.propagation.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// Propagates the time steps [FirstStep, EndStep) of a scenario and writes one sun angle row per step, then searches the
+// accesses of the chunk in a separate pass. The propagators can start at any date of the scenario, so chunks are
+// independent and can run concurrently. Consecutive chunks on one thread can share their propagators, so an
+// integrated propagator continues from the previous chunk instead of starting again at the initial orbit.
+class PropagationChunk implements Callable<PropagationChunk>
+{
+    // Fractions of a candidate interval at which adaptive sampling probes the angles, the first is kept on failure.
+    private static final double[] Probes = {1.0 / 3, 0.5, 2.0 / 3};
+    private static final double[][] ProbeWeights = ProbeWeights(48);
+
+    private final Scenario Scen;
+    private final long FirstStep, EndStep;
+    private final SunAngleSink SunAngles;
+    private final AtomicLong StepsDone;
+    private final boolean fVerifyKernel;
+    private final double[] Earth2Sun = new double[3];   // Sun position as seen from Earth of the current step
+
+    final List<VisibilityHandler> Handlers;      // one per ground station
+    double MaxKernelDeviation = 0;
+    long Rows = 0;
+    RunStatistics Stats = null;                 // null = no instrumentation
+    Propagator SamplePropagator = null;         // kept across chunks by the caller, null = new one per chunk
+    Propagator SearchPropagator = null;         // same for the access search
+
+    PropagationChunk(Scenario scen, long firstStep, long endStep, SunAngleSink sunAngles,
+                     List<VisibilityHandler> handlers, AtomicLong stepsDone, boolean verifyKernel)
+    {
+        Scen = scen;
+        FirstStep = firstStep;
+        EndStep = endStep;
+        SunAngles = sunAngles;
+        Handlers = handlers;
+        StepsDone = stepsDone;
+        fVerifyKernel = verifyKernel;
+    }
+
+    public PropagationChunk call() throws IOException
+    {
+        long StartAllocated = Stats != null ? RunStatistics.AllocatedBytes() : 0;
+        AbsoluteDate ChunkStart = Scen.StepDate(FirstStep);
+
+        // Search accesses up to the start of the next chunk, which does not see them, or up to the end of the scenario.
+        // Adaptive sampling needs the rise and set dates, so the search comes first there.
+        AbsoluteDate AccessEnd = EndStep < Scen.TimeSteps ? Scen.StepDate(EndStep) : Scen.TimeEnd;
+        if (Scen.AdaptiveTolerance > 0) {
+            List<AbsoluteDate> Events = new ArrayList<>();
+            SearchAccesses(ChunkStart, AccessEnd, Events);
+            SampleAdaptive(ChunkStart, Events);
+        } else if (Scen.Batch != null) {
+            SampleBatch();
+            SearchAccesses(ChunkStart, AccessEnd, null);
+        } else {
+            SampleGrid(ChunkStart);
+            SearchAccesses(ChunkStart, AccessEnd, null);
+        }
+        if (Stats != null) {
+            Stats.AddWorkerAllocation(StartAllocated);
+        }
+        return this;
+    }
+
+    // One sun angle row per time step.
+    private void SampleGrid(AbsoluteDate ChunkStart) throws IOException
+    {
+        // Set up propagator, without event detectors so every step ends on the time grid.
+        Propagator Propagator = SamplePropagator != null ? SamplePropagator : Scen.CreatePropagator();
+        SunAngleKernel Kernel = new SunAngleKernel();
+        double[] Extra = new double[Scen.ExtraColumns.length];
+        long ProgressInterval = Math.max(1, Math.round(Scen.TimeSteps / 10.0));
+        long Time = Stats != null ? System.nanoTime() : 0;
+
+        SpacecraftState CurrentSCState = Propagator.propagate(ChunkStart, ChunkStart);
+
+        for (long i = FirstStep; i < EndStep; i++) {
+            if (StepsDone != null && StepsDone.getAndIncrement() % ProgressInterval == 0)
+            {
+                System.out.print(".");
+            }
+
+            // Propagate S/C
+            if (i > FirstStep) {
+                CurrentSCState = Propagator.propagate(Scen.StepDate(i));
+            }
+            AbsoluteDate AbsDate = CurrentSCState.getDate();
+            if (Stats != null) {
+                Time = Stats.Add(RunStatistics.Phase.Propagation, Time);
+                Stats.Steps.increment();
+            }
+
+            // Get position vectors (interpolated from the Sun ephemeris cache).
+            Scen.SunPosition(AbsDate, Earth2Sun);
+
+            // Compute solar angles (deg) in the satellite frame (VVLH).
+            Kernel.Compute(CurrentSCState.getPVCoordinates(), Earth2Sun);
+            double SunAzimuth = Kernel.Azimuth, SunElevation = Kernel.Elevation, Subsolar = Kernel.Subsolar;
+            Kernel.ComputeExtra(Scen.ExtraColumns, Extra);
+
+            // Optionally compare against the frame-based computation with the direct Sun lookup.
+            if (fVerifyKernel) {
+                double[] Reference = SunAngleKernel.ComputeReference(CurrentSCState.getPVCoordinates(), Scen.Sun, Scen.InertialFrame);
+                MaxKernelDeviation = Math.max(MaxKernelDeviation, Kernel.Deviation(Reference));
+            }
+            if (Stats != null) {
+                Time = Stats.Add(RunStatistics.Phase.AngleMath, Time);
+            }
+
+            // Write to solar angles file.
+            SunAngles.Write(AbsDate, SunAzimuth, SunElevation, Subsolar, Extra);
+            Rows++;
+            if (Stats != null) {
+                Time = Stats.Add(RunStatistics.Phase.OutputIO, Time);
+                Stats.Rows.increment();
+            }
+        }
+        SunAngles.Close();
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.OutputIO, Time);
+        }
+    }
+
+    // One sun angle row per time step as above, positions and velocities evaluated in blocks of SimBatchSize steps.
+    private void SampleBatch() throws IOException
+    {
+        EcksteinHechlerBatch.Block Block = new EcksteinHechlerBatch.Block((int) Math.min(Scen.BatchSize, EndStep - FirstStep));
+        SunAngleKernel Kernel = new SunAngleKernel();
+        double[] Extra = new double[Scen.ExtraColumns.length];
+        long ProgressInterval = Math.max(1, Math.round(Scen.TimeSteps / 10.0));
+        long Time = Stats != null ? System.nanoTime() : 0;
+
+        for (long First = FirstStep; First < EndStep; First += Block.Capacity) {
+            int Count = (int) Math.min(Block.Capacity, EndStep - First);
+            Scen.Batch.Evaluate(Scen.TimeStart, First, Scen.dt, Count, Block);
+            if (Stats != null) {
+                Time = Stats.Add(RunStatistics.Phase.Propagation, Time);
+                Stats.Steps.add(Count);
+            }
+
+            for (int k = 0; k < Count; k++) {
+                if (StepsDone != null && StepsDone.getAndIncrement() % ProgressInterval == 0)
+                {
+                    System.out.print(".");
+                }
+
+                // Compute solar angles (deg) in the satellite frame (VVLH).
+                AbsoluteDate AbsDate = Scen.StepDate(First + k);
+                Scen.SunPosition(AbsDate, Earth2Sun);
+                Kernel.Compute(Block.X[k], Block.Y[k], Block.Z[k], Block.VX[k], Block.VY[k], Block.VZ[k],
+                        Earth2Sun[0], Earth2Sun[1], Earth2Sun[2]);
+                Kernel.ComputeExtra(Scen.ExtraColumns, Extra);
+                if (fVerifyKernel) {
+                    TimeStampedPVCoordinates PV = new TimeStampedPVCoordinates(AbsDate,
+                            new Vector3D(Block.X[k], Block.Y[k], Block.Z[k]), new Vector3D(Block.VX[k], Block.VY[k], Block.VZ[k]));
+                    double[] Reference = SunAngleKernel.ComputeReference(PV, Scen.Sun, Scen.InertialFrame);
+                    MaxKernelDeviation = Math.max(MaxKernelDeviation, Kernel.Deviation(Reference));
+                }
+                if (Stats != null) {
+                    Time = Stats.Add(RunStatistics.Phase.AngleMath, Time);
+                }
+
+                // Write to solar angles file.
+                SunAngles.Write(AbsDate, Kernel.Azimuth, Kernel.Elevation, Kernel.Subsolar, Extra);
+                Rows++;
+                if (Stats != null) {
+                    Time = Stats.Add(RunStatistics.Phase.OutputIO, Time);
+                    Stats.Rows.increment();
+                }
+            }
+        }
+        SunAngles.Close();
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.OutputIO, Time);
+        }
+    }
+
+    // Search the accesses in [Start, End], optionally collecting the rise and set dates.
+    private void SearchAccesses(AbsoluteDate Start, AbsoluteDate End, List<AbsoluteDate> Events)
+    {
+        long Time = Stats != null ? System.nanoTime() : 0;
+        for (VisibilityHandler VisH : Handlers) {
+            VisH.Events = Events;
+        }
+        AccessSearch Search = new AccessSearch(Scen, Handlers, SearchPropagator != null ? SearchPropagator : Scen.CreatePropagator());
+        Search.Run(Start, End);
+        for (VisibilityHandler VisH : Handlers) {
+            VisH.FinishChunk();
+            VisH.Events = null;
+        }
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.EventDetection, Time);
+            Stats.DetectorEvaluations.add(Search.DetectorEvaluations);
+            Stats.DetectorPrescreened.add(Search.DetectorPrescreened);
+        }
+    }
+
+    // State, angles and extra columns at one date.
+    private static final class Sample
+    {
+        final AbsoluteDate Date;
+        final PVCoordinates PV;
+        final double[] Angles;      // azimuth, elevation, subsolar, extra columns
+
+        Sample(AbsoluteDate date, PVCoordinates pv, double[] angles)
+        {
+            Date = date;
+            PV = pv;
+            Angles = angles;
+        }
+    }
+
+    private Sample Evaluate(Propagator Propagator, SunAngleKernel Kernel, AbsoluteDate Date)
+    {
+        long Time = Stats != null ? System.nanoTime() : 0;
+        SpacecraftState State = Propagator.propagate(Date);
+        if (Stats != null) {
+            Time = Stats.Add(RunStatistics.Phase.Propagation, Time);
+            Stats.Steps.increment();
+        }
+        double[] Angles = new double[3 + Scen.ExtraColumns.length];
+        double[] Extra = new double[Scen.ExtraColumns.length];
+        Scen.SunPosition(Date, Earth2Sun);
+        Kernel.Compute(State.getPVCoordinates(), Earth2Sun);
+        Kernel.ComputeExtra(Scen.ExtraColumns, Extra);
+        Angles[0] = Kernel.Azimuth;
+        Angles[1] = Kernel.Elevation;
+        Angles[2] = Kernel.Subsolar;
+        System.arraycopy(Extra, 0, Angles, 3, Extra.length);
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.AngleMath, Time);
+        }
+        return new Sample(Date, State.getPVCoordinates(), Angles);
+    }
+
+    // Weights of the deviations at the Probes in the quartic through them and the zero deviations at both ends of the
+    // interval, at Points - 1 evenly spaced fractions of the interval.
+    private static double[][] ProbeWeights(int Points)
+    {
+        double[] Nodes = {0, Probes[0], Probes[1], Probes[2], 1};
+        double[][] Weights = new double[Points - 1][Probes.length];
+        for (int m = 1; m < Points; m++) {
+            double f = (double) m / Points;
+            for (int k = 0; k < Probes.length; k++) {
+                Weights[m - 1][k] = 1;
+                for (double Node : Nodes) {
+                    if (Node != Probes[k]) {
+                        Weights[m - 1][k] *= (f - Node) / (Probes[k] - Node);
+                    }
+                }
+            }
+        }
+        return Weights;
+    }
+
+    // True if the angles between two samples deviate from the linear interpolation by at most the tolerance,
+    // azimuths taken along the shorter arc, given the samples at the Probes fractions in between. Flags must not
+    // change. The deviation between the probes is taken from the quartic through the probes and both ends, which is
+    // exact for angles curved like a parabola or with an inflection point, as the azimuth close to the subsolar point.
+    private boolean IsLinear(Sample First, Sample Last, Sample[] Between)
+    {
+        double Span = Last.Date.durationFrom(First.Date);
+        double Tolerance = Scen.AdaptiveTolerance;
+        double[] Deviations = new double[Between.length];
+        for (int c = 0; c < First.Angles.length; c++) {
+            boolean fFlag = c >= 3 && SunAngleKernel.ExtraIsFlag[Scen.ExtraColumns[c - 3]];
+            boolean fAzimuth = c == 0 || (c >= 3 && Scen.ExtraColumns[c - 3] == 0);
+            double Delta = Last.Angles[c] - First.Angles[c];
+            for (int k = 0; k < Between.length; k++) {
+                Sample Mid = Between[k];
+                if (fFlag) {
+                    if (Mid.Angles[c] != First.Angles[c] || Last.Angles[c] != First.Angles[c]) {
+                        return false;
+                    }
+                    continue;
+                }
+                double f = Mid.Date.durationFrom(First.Date) / Span;
+                double Deviation = Mid.Angles[c] - (First.Angles[c] + f * (fAzimuth ? Wrap(Delta) : Delta));
+                Deviations[k] = fAzimuth ? Wrap(Deviation) : Deviation;
+                if (Math.abs(Deviations[k]) > Tolerance) {
+                    return false;
+                }
+            }
+            for (double[] Weights : fFlag ? new double[0][] : ProbeWeights) {
+                double Deviation = 0;
+                for (int k = 0; k < Between.length; k++) {
+                    Deviation += Weights[k] * Deviations[k];
+                }
+                if (Math.abs(Deviation) > Tolerance) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Angle difference in (-180, 180] deg.
+    private static double Wrap(double Delta)
+    {
+        return Delta - 360 * Math.ceil((Delta - 180) / 360);
+    }
+
+    // Rows at adaptive intervals between SimAdaptiveMinStep and SimAdaptiveMaxStep, such that linear interpolation
+    // between rows reproduces the angles within SimAdaptiveTolerance. A candidate interval is checked at the Probes;
+    // if it fails, the interval shrinks to its first third, whose sample is already known, otherwise the next
+    // candidate doubles. Rise and set dates of accesses are always rows, and changes of the eclipse flags are bracketed
+    // by rows at most SimAdaptiveMinStep apart. Covers [ChunkStart, start of the next chunk), the last chunk includes
+    // the last grid date.
+    private void SampleAdaptive(AbsoluteDate ChunkStart, List<AbsoluteDate> Events) throws IOException
+    {
+        Propagator Propagator = SamplePropagator != null ? SamplePropagator : Scen.CreatePropagator();
+        Propagator.propagate(ChunkStart, ChunkStart);
+        SunAngleKernel Kernel = new SunAngleKernel();
+        long ProgressInterval = Math.max(1, Math.round(Scen.TimeSteps / 10.0));
+        boolean fLastChunk = EndStep >= Scen.TimeSteps;
+        AbsoluteDate Limit = fLastChunk ? Scen.StepDate(Scen.TimeSteps - 1) : Scen.StepDate(EndStep);
+        double MinStep = Scen.AdaptiveMinStep, MaxStep = Scen.AdaptiveMaxStep;
+
+        // Forced rows within the chunk, in time order
+        List<AbsoluteDate> Forced = new ArrayList<>();
+        for (AbsoluteDate Event : Events) {
+            if (Event.compareTo(ChunkStart) > 0 && Event.compareTo(Limit) < 0) {
+                Forced.add(Event);
+            }
+        }
+        Forced.sort(AbsoluteDate::compareTo);
+        int NextForced = 0;
+
+        Sample Previous = Evaluate(Propagator, Kernel, ChunkStart);
+        Emit(Previous);
+        long StepsCounted = FirstStep;
+        double Step = MaxStep;
+        Sample Candidate = null;
+        while (Previous.Date.compareTo(Limit) < 0) {
+            // Candidate end: the known first third of a failed interval, or the next step clipped to the next forced
+            // row and the chunk end.
+            // Ends short of them by a rounding error of the step are clipped, too.
+            if (Candidate == null) {
+                AbsoluteDate End = Previous.Date.shiftedBy(Step);
+                AbsoluteDate Reach = End.shiftedBy(1e-6 * MinStep);
+                if (NextForced < Forced.size() && Forced.get(NextForced).compareTo(Reach) <= 0) {
+                    End = Forced.get(NextForced);
+                }
+                if (Limit.compareTo(Reach) <= 0) {
+                    End = Limit;
+                }
+                Candidate = Evaluate(Propagator, Kernel, End);
+            }
+            double Span = Candidate.Date.durationFrom(Previous.Date);
+            if (Span > MinStep * (1 + 1e-9)) {
+                Sample[] Between = new Sample[Probes.length];
+                for (int k = 0; k < Probes.length; k++) {
+                    Between[k] = Evaluate(Propagator, Kernel, Previous.Date.shiftedBy(Probes[k] * Span));
+                }
+                if (!IsLinear(Previous, Candidate, Between)) {
+                    Candidate = Span / 3 >= MinStep ? Between[0] : null;
+                    Step = Math.max(Span / 3, MinStep);
+                    continue;
+                }
+            }
+
+            // Accept the candidate, the end of a non-last chunk is the first row of the next chunk.
+            if (NextForced < Forced.size() && Candidate.Date.equals(Forced.get(NextForced))) {
+                NextForced++;
+            }
+            if (fLastChunk || Candidate.Date.compareTo(Limit) < 0) {
+                Emit(Candidate);
+            }
+            Previous = Candidate;
+            Candidate = null;
+            Step = Math.min(MaxStep, 2 * Math.max(Step, Span));
+
+            // Progress in grid steps covered
+            long Covered = Math.min(EndStep, FirstStep + (long) (Previous.Date.durationFrom(ChunkStart) / Scen.dt));
+            for (; StepsCounted < Covered; StepsCounted++) {
+                if (StepsDone != null && StepsDone.getAndIncrement() % ProgressInterval == 0) {
+                    System.out.print(".");
+                }
+            }
+        }
+        for (; StepsCounted < EndStep; StepsCounted++) {
+            if (StepsDone != null && StepsDone.getAndIncrement() % ProgressInterval == 0) {
+                System.out.print(".");
+            }
+        }
+
+        long Time = Stats != null ? System.nanoTime() : 0;
+        SunAngles.Close();
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.OutputIO, Time);
+        }
+    }
+
+    // Write one row, with the optional comparison to the frame-based computation.
+    private void Emit(Sample Row) throws IOException
+    {
+        if (fVerifyKernel) {
+            double[] Reference = SunAngleKernel.ComputeReference(new TimeStampedPVCoordinates(Row.Date, Row.PV), Scen.Sun, Scen.InertialFrame);
+            MaxKernelDeviation = Math.max(MaxKernelDeviation, SunAngleKernel.Deviation(Row.Angles, Reference));
+        }
+        long Time = Stats != null ? System.nanoTime() : 0;
+        SunAngles.Write(Row.Date, Row.Angles[0], Row.Angles[1], Row.Angles[2],
+                Arrays.copyOfRange(Row.Angles, 3, Row.Angles.length));
+        Rows++;
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.OutputIO, Time);
+            Stats.Rows.increment();
+        }
+    }
+}
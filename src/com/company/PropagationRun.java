@@ -0,0 +1,356 @@
+/*
+Runs a scenario sequentially or split into time chunks on a fork-join pool and writes the result files.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.orekit.time.*;
+
+class PropagationRun
+{
+    // Number of chunks per worker thread, evens out the load of the workers. Integrated propagators run one chunk per
+    // thread, as every further chunk would integrate again from the initial orbit up to its start.
+    static final int ChunksPerThread = 4;
+
+    private final Settings Set;
+    private final Scenario Scen;
+    final int Threads;
+    private final boolean fVerifyKernel;
+
+    double MaxKernelDeviation = 0;
+    int AccessCount = 0;
+    double AccessDuration = 0;
+    boolean fShowProgress = true;
+    RunStatistics Stats = null;     // null = no instrumentation
+    AccessSink Timeline = null;     // also receives the accesses, null = access file only
+
+    PropagationRun(Settings set, Scenario scen)
+    {
+        this(set, scen, Integer.parseInt(set.GetValue("SimThreads", "1")));
+    }
+
+    PropagationRun(Settings set, Scenario scen, int threads)
+    {
+        Set = set;
+        Scen = scen;
+        Threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        fVerifyKernel = Boolean.parseBoolean(Set.GetValue("SimVerifyKernel", "false"));
+    }
+
+    void Execute() throws Exception
+    {
+        long Time = System.nanoTime();
+
+        // Output formats: csv (default), binary or both
+        String Format = Set.GetValue("ExpSunAnglesFormat", "csv");
+        boolean fCsv = !Format.equalsIgnoreCase("binary");
+        boolean fBinary = !Format.equalsIgnoreCase("csv");
+
+        // Setting up files and print files header
+        String FilePath = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFileSunAngles");
+        String BinaryPath = Set.GetValue("ResultsDirectory") + "/" + BinaryFileName();
+        PrintWriter SunAngles = null;
+        FileChannel SunAnglesBinary = null;
+        if (fCsv) {
+            SunAngles = new PrintWriter(FilePath, Set.GetValue("ExpTextFormat"));
+            SunAngles.println(CsvSunAngleSink.Header(Scen.ExtraColumns));
+        }
+        if (fBinary) {
+            SunAnglesBinary = FileChannel.open(Paths.get(BinaryPath), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            BinarySunAngleSink.WriteHeader(SunAnglesBinary, Scen.TimeStart, 0, Scen.ExtraColumns);
+            SunAnglesBinary.position(SunAnglesBinary.size());
+        }
+        AccessFile Accesses = new AccessFile(Set, Scen.fTagStations);
+        Accesses.Timeline = Timeline;
+        ResultCache Cache = ResultCache.Open(Set, Scen);
+        ResultCache.Entry Cached = Cache != null ? Cache.Find() : null;
+        if (Scen.fDisplayMessages) {
+            System.out.println("Created satellite orientation files.");
+            System.out.println("Created elevation detectors for " + Scen.Stations.size() + " ground station(s) with max check interval = " + Scen.MaxCheckInterval + " s, divergence threshold = " + Scen.MaxDivThreshold + " s.");
+            if (Cached != null) {
+                System.out.println("Reusing cached results for " + Cached.Steps + " of " + Scen.TimeSteps + " steps.");
+            }
+        }
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.OutputIO, Time);
+        }
+
+        long Rows;
+        if (Cache == null && (Threads == 1 || Scen.TimeSteps < 2)) {
+            // Single chunk writing directly into the result files
+            List<VisibilityHandler> Handlers = new ArrayList<>();
+            for (String Station : Scen.StationNames()) {
+                Handlers.add(new VisibilityHandler(Accesses, Station));
+            }
+            PropagationChunk Chunk = new PropagationChunk(Scen, 0, Scen.TimeSteps, CreateSink(SunAngles, SunAnglesBinary, null),
+                    Handlers, fShowProgress ? new AtomicLong() : null, fVerifyKernel);
+            Chunk.Stats = Stats;
+            Chunk.call();
+            MaxKernelDeviation = Chunk.MaxKernelDeviation;
+            Rows = Chunk.Rows;
+        } else {
+            if (SunAngles != null) {
+                SunAngles.close();
+            }
+            if (SunAnglesBinary != null) {
+                SunAnglesBinary.close();
+            }
+            Rows = ExecuteParallel(fCsv ? FilePath : null, fBinary ? BinaryPath : null, Accesses, Cache, Cached);
+        }
+        Time = System.nanoTime();
+        AccessCount = Accesses.AccessCount();
+        AccessDuration = Accesses.AccessDuration();
+        Accesses.CloseFile();
+
+        // Complete binary header with the number of rows.
+        if (fBinary) {
+            try (FileChannel Binary = FileChannel.open(Paths.get(BinaryPath), StandardOpenOption.WRITE)) {
+                BinarySunAngleSink.WriteHeader(Binary, Scen.TimeStart, Rows, Scen.ExtraColumns);
+            }
+        }
+        if (Stats != null) {
+            Stats.Add(RunStatistics.Phase.OutputIO, Time);
+            Stats.Accesses = AccessCount;
+        }
+    }
+
+    // Binary file name, derived from the CSV file name unless given explicitly.
+    private String BinaryFileName()
+    {
+        String FileName = Set.GetValue("ExpFileSunAnglesBinary", "");
+        if (FileName.isEmpty()) {
+            FileName = Set.GetValue("ExpFileSunAngles").replaceFirst("\\.csv$", "") + ".bin";
+        }
+        return FileName;
+    }
+
+    // Sink writing to the enabled outputs and the cache, any of which may be null.
+    private SunAngleSink CreateSink(PrintWriter Csv, FileChannel Binary, FileChannel Cache)
+    {
+        SunAngleSink CsvSink = null;
+        if (Csv != null) {
+            boolean fPrintf = Set.GetValue("ExpCsvWriter", "fast").equalsIgnoreCase("printf");
+            CsvSink = fPrintf ? new CsvSunAngleSink(Csv, Scen.ExtraColumns) : new FastCsvSunAngleSink(Csv, Scen.ExtraColumns);
+        }
+        SunAngleSink BinarySink = Binary != null ? new BinarySunAngleSink(Binary, Scen.TimeStart, Scen.ExtraColumns) : null;
+        SunAngleSink CacheSink = Cache != null ? new BinarySunAngleSink(Cache, Scen.TimeStart, Scen.ExtraColumns) : null;
+        SunAngleSink Sink = null;
+        for (SunAngleSink Output : new SunAngleSink[] {CsvSink, BinarySink, CacheSink}) {
+            if (Output != null) {
+                Sink = Sink == null ? Output : SunAngleSink.Both(Sink, Output);
+            }
+        }
+        return Sink;
+    }
+
+    // Propagate time chunks concurrently into temporary files, then append them in order and stitch the accesses.
+    // Results of a cached run make up the first chunk; with a cache the results are stored at the end. Returns the
+    // number of rows written.
+    private long ExecuteParallel(String FilePath, String BinaryPath, AccessFile Accesses, ResultCache Cache,
+                                 ResultCache.Entry Cached) throws Exception
+    {
+        File ResultsDirectory = new File(Set.GetValue("ResultsDirectory"));
+        long CachedSteps = Cached != null ? Cached.Steps : 0;
+        int PerThread = Scen.Backend.IsIntegrated() ? 1 : ChunksPerThread;
+        long NumChunks = Math.min(Scen.TimeSteps - CachedSteps, Threads == 1 ? 1 : (long) Threads * PerThread);
+        if (Cached == null) {
+            NumChunks = Math.max(1, NumChunks);
+        }
+        AtomicLong StepsDone = fShowProgress ? new AtomicLong() : null;
+        List<PropagationChunk> Chunks = new ArrayList<>();
+        List<File> ChunkFiles = new ArrayList<>(), ChunkBinaryFiles = new ArrayList<>(), ChunkCacheFiles = new ArrayList<>();
+        List<Closeable> ChunkOutputs = new ArrayList<>();
+        File CacheFile = null;
+        if (fShowProgress && Threads > 1 && NumChunks > 0) {
+            System.out.print("(" + NumChunks + " chunks on " + Threads + " threads) ");
+        }
+
+        ForkJoinPool Pool = new ForkJoinPool(Threads);
+        try {
+            long Rows = 0;
+            List<List<VisibilityHandler>> ChunksPerStation = new ArrayList<>();
+            for (int s = 0; s < Scen.Stations.size(); s++) {
+                ChunksPerStation.add(new ArrayList<>());
+            }
+            if (Cached != null) {
+                long Time = System.nanoTime();
+                SunAngleSink Sink = CreateChunkSink(FilePath, BinaryPath, Cache, NumChunks > 0, ResultsDirectory,
+                        ChunkFiles, ChunkBinaryFiles, ChunkCacheFiles, ChunkOutputs);
+                try (BinarySunAngleReader Reader = new BinarySunAngleReader(Cached.RowsFile.getPath())) {
+                    Rows += Reader.ReadAll(Sink);
+                }
+                Sink.Close();
+                for (int s = 0; s < Scen.Stations.size(); s++) {
+                    ChunksPerStation.get(s).add(new VisibilityHandler(Scen.Stations.get(s).Name, Scen.TimeStart,
+                            Cached.Accesses.get(s)));
+                }
+                MaxKernelDeviation = Cached.MaxKernelDeviation;
+                if (Stats != null) {
+                    Stats.Add(RunStatistics.Phase.OutputIO, Time);
+                    Stats.Rows.add(Rows);
+                }
+            }
+            for (long c = 0; c < NumChunks; c++) {
+                long FirstStep = CachedSteps + (Scen.TimeSteps - CachedSteps) * c / NumChunks;
+                long EndStep = CachedSteps + (Scen.TimeSteps - CachedSteps) * (c + 1) / NumChunks;
+                List<VisibilityHandler> Handlers = new ArrayList<>();
+                for (String Station : Scen.StationNames()) {
+                    Handlers.add(new VisibilityHandler(Station, Scen.StepDate(FirstStep)));
+                }
+                PropagationChunk Chunk = new PropagationChunk(Scen, FirstStep, EndStep,
+                        CreateChunkSink(FilePath, BinaryPath, Cache, true, ResultsDirectory, ChunkFiles,
+                                ChunkBinaryFiles, ChunkCacheFiles, ChunkOutputs),
+                        Handlers, StepsDone, fVerifyKernel);
+                Chunk.Stats = Stats;
+                Chunks.add(Chunk);
+            }
+            for (Future<PropagationChunk> Result : Pool.invokeAll(Chunks)) {
+                Result.get();
+            }
+            long Time = System.nanoTime();
+
+            // Merge chunk outputs in time order.
+            if (FilePath != null) {
+                AppendFiles(FilePath, ChunkFiles);
+            }
+            if (BinaryPath != null) {
+                AppendBlocks(BinaryPath, ChunkBinaryFiles);
+            }
+            for (PropagationChunk Chunk : Chunks) {
+                for (int s = 0; s < Scen.Stations.size(); s++) {
+                    ChunksPerStation.get(s).add(Chunk.Handlers.get(s));
+                }
+                MaxKernelDeviation = Math.max(MaxKernelDeviation, Chunk.MaxKernelDeviation);
+                Rows += Chunk.Rows;
+            }
+            Accesses.WriteStitched(Scen.StationNames(), ChunksPerStation);
+
+            // Store the rows and the accesses, with those still open at the end, unless all came from the cache.
+            if (NumChunks > 0 && Cache != null) {
+                CacheFile = Cache.CreateTempFile(".bin");
+                try (FileChannel Channel = FileChannel.open(CacheFile.toPath(), StandardOpenOption.WRITE)) {
+                    BinarySunAngleSink.WriteHeader(Channel, Scen.TimeStart, Rows, Scen.ExtraColumns);
+                }
+                AppendBlocks(CacheFile.getPath(), ChunkCacheFiles);
+                List<List<AbsoluteDate[]>> StationAccesses = new ArrayList<>();
+                for (List<VisibilityHandler> StationChunks : ChunksPerStation) {
+                    StationAccesses.add(VisibilityHandler.Stitch(StationChunks, true));
+                }
+                Cache.Store(CacheFile, Rows, StationAccesses, MaxKernelDeviation);
+            }
+            if (Stats != null) {
+                Stats.Add(RunStatistics.Phase.OutputIO, Time);
+            }
+            return Rows;
+        } finally {
+            Pool.shutdown();
+            for (Closeable ChunkOutput : ChunkOutputs) {
+                ChunkOutput.close();
+            }
+            List<File> TemporaryFiles = new ArrayList<>(ChunkFiles);
+            TemporaryFiles.addAll(ChunkBinaryFiles);
+            TemporaryFiles.addAll(ChunkCacheFiles);
+            if (CacheFile != null && CacheFile.exists()) {
+                TemporaryFiles.add(CacheFile);
+            }
+            for (File ChunkFile : TemporaryFiles) {
+                if (!ChunkFile.delete()) {
+                    System.out.println("Warning: Could not delete temporary file <" + ChunkFile + ">.");
+                }
+            }
+        }
+    }
+
+    // Sink of one chunk into new temporary files for the enabled outputs and, if fCache, the cache entry.
+    private SunAngleSink CreateChunkSink(String FilePath, String BinaryPath, ResultCache Cache, boolean fCache,
+                                         File ResultsDirectory, List<File> ChunkFiles, List<File> ChunkBinaryFiles,
+                                         List<File> ChunkCacheFiles, List<Closeable> ChunkOutputs) throws IOException
+    {
+        PrintWriter ChunkWriter = null;
+        FileChannel ChunkChannel = null, CacheChannel = null;
+        if (FilePath != null) {
+            File ChunkFile = File.createTempFile("SunAngles", ".part", ResultsDirectory);
+            ChunkFiles.add(ChunkFile);
+            ChunkWriter = new PrintWriter(ChunkFile, Set.GetValue("ExpTextFormat"));
+            ChunkOutputs.add(ChunkWriter);
+        }
+        if (BinaryPath != null) {
+            File ChunkFile = File.createTempFile("SunAngles", ".binpart", ResultsDirectory);
+            ChunkBinaryFiles.add(ChunkFile);
+            ChunkChannel = new FileOutputStream(ChunkFile).getChannel();
+            ChunkOutputs.add(ChunkChannel);
+        }
+        if (Cache != null && fCache) {
+            File ChunkFile = Cache.CreateTempFile(".binpart");
+            ChunkCacheFiles.add(ChunkFile);
+            CacheChannel = new FileOutputStream(ChunkFile).getChannel();
+            ChunkOutputs.add(CacheChannel);
+        }
+        return CreateSink(ChunkWriter, ChunkChannel, CacheChannel);
+    }
+
+    // Append files to the end of a file.
+    private static void AppendFiles(String FilePath, List<File> Parts) throws IOException
+    {
+        try (FileChannel Out = new FileOutputStream(FilePath, true).getChannel()) {
+            for (File Part : Parts) {
+                try (FileChannel In = new FileInputStream(Part).getChannel()) {
+                    long Position = 0, Size = In.size();
+                    while (Position < Size) {
+                        Position += In.transferTo(Position, Size - Position, Out);
+                    }
+                }
+            }
+        }
+    }
+
+    // Append the blocks of binary chunk files to the end of a binary file, re-blocked so that only the last is short.
+    private void AppendBlocks(String FilePath, List<File> Parts) throws IOException
+    {
+        BinarySunAngleSink Sink = new BinarySunAngleSink(new FileOutputStream(FilePath, true).getChannel(),
+                Scen.TimeStart, Scen.ExtraColumns);
+        try {
+            for (File Part : Parts) {
+                Sink.Append(Part);
+            }
+        } finally {
+            Sink.Close();
+        }
+    }
+
+    // Report sun angle kernel verification.
+    void ReportVerification()
+    {
+        if (fVerifyKernel) {
+            System.out.print(" kernel deviation " + MaxKernelDeviation + " deg"
+                    + (MaxKernelDeviation <= SunAngleKernel.Tolerance ? " (ok)," : " (EXCEEDS TOLERANCE " + SunAngleKernel.Tolerance + " deg),"));
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+Propagation models selectable from the settings.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.orekit.attitudes.*;
+import org.orekit.errors.*;
+import org.orekit.forces.gravity.HolmesFeatherstoneAttractionModel;
+import org.orekit.forces.gravity.potential.*;
+import org.orekit.frames.*;
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.analytical.*;
+import org.orekit.propagation.analytical.tle.*;
+import org.orekit.propagation.conversion.*;
+import org.orekit.propagation.numerical.NumericalPropagator;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+import org.hipparchus.ode.nonstiff.DormandPrince853Integrator;
+
+// Creates the propagators of a scenario. Set up once per scenario (e.g. mean elements or a fitted TLE), then each
+// chunk and access search asks for a new propagator in slave mode starting from the initial orbit, or keeps one
+// across consecutive chunks. All propagators give states in the frame of the initial orbit and use the same attitude,
+// so the sun angle and access pipeline does not depend on the model.
+//   EcksteinHechler   analytical J2-J6 model for near circular orbits (default), time grid also in blocks
+//   J2Secular         Keplerian with secular J2 drift from mean elements, for quick screening
+//   SGP4              SGP4/SDP4 from the TLE in SatTLELine1/2, or from a TLE fitted to the orbit over one day
+//   Numerical         Dormand-Prince 8(5,3) with the J2-J6 zonal field of the other models, SimNumericalTolerance (m)
+interface PropagatorBackend
+{
+    String[] Names = {"EcksteinHechler", "J2Secular", "SGP4", "Numerical"};
+
+    Propagator CreatePropagator();
+
+    // Evaluation of the time grid in blocks, null if the model has none.
+    default EcksteinHechlerBatch CreateBatch()
+    {
+        return null;
+    }
+
+    // True if a new propagator has to integrate from the initial orbit up to the first date asked for, so a propagator
+    // should be kept and advanced rather than created again for a later date.
+    default boolean IsIntegrated()
+    {
+        return false;
+    }
+
+    // Backend of the given name for an initial orbit.
+    static PropagatorBackend Create(String Name, Settings Set, Orbit InitialOrbit, Frame EarthFrame)
+    {
+        AttitudeProvider Attitude = new LofOffset(InitialOrbit.getFrame(), LOFType.TNW);
+        PropagatorBackend EcksteinHechler = () -> {
+            EcksteinHechlerPropagator Propagator = new CachingEcksteinHechlerPropagator(InitialOrbit, Attitude,
+                    Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS,
+                    Constants.EIGEN5C_EARTH_MU,  Constants.EIGEN5C_EARTH_C20,
+                    Constants.EIGEN5C_EARTH_C30, Constants.EIGEN5C_EARTH_C40,
+                    Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60);
+            Propagator.setSlaveMode();
+            return Propagator;
+        };
+        switch (Name.trim().toLowerCase()) {
+            case "ecksteinhechler":
+                return new PropagatorBackend()
+                {
+                    @Override
+                    public Propagator CreatePropagator()
+                    {
+                        return EcksteinHechler.CreatePropagator();
+                    }
+
+                    @Override
+                    public EcksteinHechlerBatch CreateBatch()
+                    {
+                        return new EcksteinHechlerBatch(InitialOrbit, Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS,
+                                Constants.EIGEN5C_EARTH_MU,  Constants.EIGEN5C_EARTH_C20,
+                                Constants.EIGEN5C_EARTH_C30, Constants.EIGEN5C_EARTH_C40,
+                                Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60);
+                    }
+                };
+            case "j2secular": {
+                Orbit Mean = J2SecularPropagator.MeanOrbit(EcksteinHechler.CreatePropagator(), InitialOrbit.getDate(),
+                        InitialOrbit.getKeplerianPeriod());
+                return () -> {
+                    J2SecularPropagator Propagator = new J2SecularPropagator(Mean, Attitude);
+                    Propagator.setSlaveMode();
+                    return Propagator;
+                };
+            }
+            case "sgp4": {
+                TLE Elements = GivenTLE(Set);
+                if (Elements == null) {
+                    Elements = FitTLE(EcksteinHechler.CreatePropagator(), InitialOrbit);
+                }
+                TLE Fixed = Elements;
+                return () -> {
+                    InertialTLEPropagator Propagator = new InertialTLEPropagator(Fixed, InitialOrbit.getFrame(), Attitude);
+                    Propagator.setSlaveMode();
+                    return Propagator;
+                };
+            }
+            case "numerical": {
+                double Tolerance = Double.parseDouble(Set.GetValue("SimNumericalTolerance", "0.001"));
+                double[][] C = new double[7][], S = new double[7][];
+                double[] Zonal = {1, 0, Constants.EIGEN5C_EARTH_C20, Constants.EIGEN5C_EARTH_C30,
+                        Constants.EIGEN5C_EARTH_C40, Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60};
+                for (int n = 0; n < C.length; n++) {
+                    C[n] = new double[n + 1];
+                    S[n] = new double[n + 1];
+                    C[n][0] = Zonal[n];
+                }
+                NormalizedSphericalHarmonicsProvider Field = GravityFieldFactory.getNormalizedProvider(
+                        GravityFieldFactory.getUnnormalizedProvider(Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS,
+                                Constants.EIGEN5C_EARTH_MU, TideSystem.UNKNOWN, C, S));
+                double[][] Tolerances = NumericalPropagator.tolerances(Tolerance, InitialOrbit, OrbitType.CARTESIAN);
+                return new PropagatorBackend()
+                {
+                    @Override
+                    public Propagator CreatePropagator()
+                    {
+                        NumericalPropagator Propagator = new NumericalPropagator(
+                                new DormandPrince853Integrator(1e-3, 300, Tolerances[0], Tolerances[1]));
+                        Propagator.setOrbitType(OrbitType.CARTESIAN);
+                        Propagator.addForceModel(new HolmesFeatherstoneAttractionModel(EarthFrame, Field));
+                        Propagator.setAttitudeProvider(Attitude);
+                        Propagator.setInitialState(new SpacecraftState(InitialOrbit,
+                                Attitude.getAttitude(InitialOrbit, InitialOrbit.getDate(), InitialOrbit.getFrame())));
+                        Propagator.setSlaveMode();
+                        return Propagator;
+                    }
+
+                    @Override
+                    public boolean IsIntegrated()
+                    {
+                        return true;
+                    }
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown propagator <" + Name + ">, expected one of "
+                        + String.join(", ", Names) + ".");
+        }
+    }
+
+    // TLE from SatTLELine1 and SatTLELine2, null if not given or if the propagator is not SGP4.
+    static TLE GivenTLE(Settings Set)
+    {
+        String Line1 = Set.GetValue("SatTLELine1", "").trim(), Line2 = Set.GetValue("SatTLELine2", "").trim();
+        if (Line1.isEmpty() && Line2.isEmpty() || !Set.GetValue("SimPropagator", "EcksteinHechler").trim().equalsIgnoreCase("SGP4")) {
+            return null;
+        }
+        if (!TLE.isFormatOK(Line1, Line2)) {
+            throw new IllegalArgumentException("SatTLELine1 and SatTLELine2 are not a valid TLE.");
+        }
+        return new TLE(Line1, Line2);
+    }
+
+    // TLE at the epoch of the orbit fitted to the states of a propagator over one day.
+    static TLE FitTLE(Propagator Source, Orbit InitialOrbit)
+    {
+        KeplerianOrbit Teme = (KeplerianOrbit) OrbitType.KEPLERIAN.convertType(new CartesianOrbit(
+                InitialOrbit.getPVCoordinates(FramesFactory.getTEME()), FramesFactory.getTEME(),
+                InitialOrbit.getDate(), InitialOrbit.getMu()));
+        TLE Template = new TLE(99999, 'U', 2000, 1, "A", TLE.DEFAULT, 999, Teme.getDate(),
+                Teme.getKeplerianMeanMotion(), 0, 0, Teme.getE(), Teme.getI(), Teme.getPerigeeArgument(),
+                Teme.getRightAscensionOfAscendingNode(), Teme.getMeanAnomaly(), 1, 0);
+        FiniteDifferencePropagatorConverter Converter = new FiniteDifferencePropagatorConverter(
+                new TLEPropagatorBuilder(Template, PositionAngle.MEAN, 1.0), 1e-3, 1000);
+        return ((TLEPropagator) Converter.convert(Source, Constants.JULIAN_DAY, 240)).getTLE();
+    }
+
+    // SGP4/SDP4 with states in an inertial frame instead of TEME.
+    class InertialTLEPropagator extends AbstractAnalyticalPropagator
+    {
+        private final TLEPropagator Sgp4;
+        private final Frame OutputFrame;
+
+        InertialTLEPropagator(TLE Elements, Frame outputFrame, AttitudeProvider Attitude)
+        {
+            super(Attitude);
+            Sgp4 = TLEPropagator.selectExtrapolator(Elements);
+            OutputFrame = outputFrame;
+            Orbit Initial = propagateOrbit(Elements.getDate());
+            super.resetInitialState(new SpacecraftState(Initial,
+                    Attitude.getAttitude(Initial, Initial.getDate(), OutputFrame)));
+        }
+
+        @Override
+        protected Orbit propagateOrbit(AbsoluteDate Date)
+        {
+            return new CartesianOrbit(Sgp4.getPVCoordinates(Date, OutputFrame), OutputFrame, Date, TLEPropagator.getMU());
+        }
+
+        @Override
+        protected double getMass(AbsoluteDate Date)
+        {
+            return getInitialState().getMass();
+        }
+
+        @Override
+        protected void resetIntermediateState(SpacecraftState State, boolean Forward)
+        {
+            throw new OrekitException(OrekitMessages.NON_RESETABLE_STATE);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+Runs one scenario on several propagators and compares speed and deviations against a reference.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.*;
+
+import org.orekit.propagation.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// SimComparePropagators lists the propagators separated by ';' (or "all"), SimReferencePropagator the one they are
+// compared against. Each propagator samples the time grid of the scenario with the sun angles, single threaded, and
+// searches the accesses over the whole duration. Reported per propagator: setup time (e.g. mean elements or the TLE
+// fit), grid steps per second including the sun angle math, largest and RMS position deviation and largest sun angle
+// deviation from the reference on the grid, number of accesses and the largest deviation of rise and set times if the
+// accesses match, and the time of the access search. The propagators sample the grid side by side in windows of
+// WindowSteps steps, so only the reference positions and angles of one window are held in memory.
+class PropagatorComparison
+{
+    // Grid steps per window.
+    private static final int WindowSteps = 4096;
+
+    private final Settings Set;
+    private final List<String> Backends = new ArrayList<>();
+    private final String Reference;
+
+    PropagatorComparison(Settings set)
+    {
+        Set = set;
+        Reference = Set.GetValue("SimReferencePropagator", "Numerical").trim();
+        // A TLE is only used by SGP4, the other propagators would start from the Sat* orbit.
+        if (!Set.GetValue("SatTLELine1", "").trim().isEmpty() || !Set.GetValue("SatTLELine2", "").trim().isEmpty()) {
+            throw new IllegalArgumentException("SimComparePropagators cannot be combined with SatTLELine1 and SatTLELine2.");
+        }
+        String List = Set.GetValue("SimComparePropagators", "").trim();
+        for (String Name : List.equalsIgnoreCase("all") ? PropagatorBackend.Names : List.split(";")) {
+            if (!Name.trim().isEmpty() && !Name.trim().equalsIgnoreCase(Reference)) {
+                Backends.add(Name.trim());
+            }
+        }
+    }
+
+    // Propagator under comparison and its results, deviations against the reference.
+    private static class Result
+    {
+        String Name;
+        Scenario Scen;
+        Propagator Propagator;
+        final SunAngleKernel Kernel = new SunAngleKernel();
+        double SetupTime, GridTime, AccessTime;
+        double MaxPositionDeviation, SumSquares, RmsPositionDeviation, MaxAngleDeviation;
+        List<AbsoluteDate[]> Accesses = new ArrayList<>();
+    }
+
+    void Execute() throws Exception
+    {
+        Scenario Base = new Scenario(Set);
+        List<Result> Results = new ArrayList<>();
+        System.out.print("Comparing " + Backends.size() + " propagators with " + Reference + " over " + Base.TimeSteps + " steps ");
+        Results.add(Setup(Base, Reference));
+        for (String Name : Backends) {
+            Results.add(Setup(Base, Name));
+        }
+
+        // Sun angles on the grid, window by window: the reference first, then the others against it
+        double[] Positions = new double[3 * WindowSteps], Angles = new double[3 * WindowSteps];
+        for (long First = 0; First < Base.TimeSteps; First += WindowSteps) {
+            int Count = (int) Math.min(WindowSteps, Base.TimeSteps - First);
+            for (Result Res : Results) {
+                Sample(Res, First, Count, Positions, Angles, Res == Results.get(0));
+            }
+        }
+        for (Result Res : Results) {
+            Res.RmsPositionDeviation = Base.TimeSteps > 0 ? Math.sqrt(Res.SumSquares / Base.TimeSteps) : 0;
+            SearchAccesses(Res);
+        }
+        System.out.println();
+
+        String Header = "\"Propagator\",\"Setup (sec)\",\"Steps\",\"Steps per second\",\"Max position deviation (m)\","
+                + "\"RMS position deviation (m)\",\"Max angle deviation (deg)\",\"Accesses\","
+                + "\"Max access time deviation (sec)\",\"Access search (sec)\"";
+        String FilePath = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFilePropagatorComparison", "PropagatorComparison.csv");
+        try (PrintWriter Table = new PrintWriter(FilePath, Set.GetValue("ExpTextFormat"))) {
+            Table.println(Header);
+            System.out.println(Header.replace("\"", ""));
+            for (Result Res : Results) {
+                String Row = String.format(Settings.LocalFormat, "%s,%.3f,%d,%.1f,%.3f,%.3f,%.6f,%d,%.3f,%.3f",
+                        Res.Name, Res.SetupTime, Base.TimeSteps, Base.TimeSteps / Math.max(Res.GridTime, 1e-9),
+                        Res.MaxPositionDeviation, Res.RmsPositionDeviation, Res.MaxAngleDeviation, Res.Accesses.size(),
+                        AccessDeviation(Res.Accesses, Results.get(0).Accesses), Res.AccessTime);
+                Table.println(Row);
+                System.out.println(Row);
+            }
+        }
+        System.out.print("Comparison written to <" + FilePath + ">,");
+    }
+
+    // Scenario and propagator of one backend, timed as setup and grid time.
+    private Result Setup(Scenario Base, String Name)
+    {
+        Result Out = new Result();
+        Out.Name = Name;
+        long Time = System.nanoTime();
+        Map<String, String> Overrides = new HashMap<>();
+        Overrides.put("SimPropagator", Name);
+        Out.Scen = new Scenario(new Settings(Set, Overrides), Base, false);
+        Out.SetupTime = (System.nanoTime() - Time) * 1e-9;
+        Time = System.nanoTime();
+        Out.Propagator = Out.Scen.CreatePropagator();
+        Out.GridTime = (System.nanoTime() - Time) * 1e-9;
+        return Out;
+    }
+
+    // Sample Count grid steps from First with the sun angles. The reference keeps its positions and angles (x, y, z
+    // and azimuth, elevation, subsolar per step), the others sum up their deviations from them.
+    private static void Sample(Result Res, long First, int Count, double[] Positions, double[] Angles, boolean fReference)
+    {
+        double[] RefAngles = new double[3], Earth2Sun = new double[3];
+        long Time = System.nanoTime();
+        for (int i = 0; i < Count; i++) {
+            AbsoluteDate Date = Res.Scen.StepDate(First + i);
+            TimeStampedPVCoordinates PV = Res.Propagator.propagate(Date).getPVCoordinates();
+            Res.Scen.SunPosition(Date, Earth2Sun);
+            Res.Kernel.Compute(PV, Earth2Sun);
+            Vector3D Position = PV.getPosition();
+            if (fReference) {
+                Positions[3 * i] = Position.getX();
+                Positions[3 * i + 1] = Position.getY();
+                Positions[3 * i + 2] = Position.getZ();
+                Angles[3 * i] = Res.Kernel.Azimuth;
+                Angles[3 * i + 1] = Res.Kernel.Elevation;
+                Angles[3 * i + 2] = Res.Kernel.Subsolar;
+            } else {
+                double Distance = Position.distance(new Vector3D(Positions[3 * i], Positions[3 * i + 1], Positions[3 * i + 2]));
+                System.arraycopy(Angles, 3 * i, RefAngles, 0, 3);
+                Res.MaxPositionDeviation = Math.max(Res.MaxPositionDeviation, Distance);
+                Res.MaxAngleDeviation = Math.max(Res.MaxAngleDeviation, Res.Kernel.Deviation(RefAngles));
+                Res.SumSquares += Distance * Distance;
+            }
+        }
+        Res.GridTime += (System.nanoTime() - Time) * 1e-9;
+    }
+
+    // Accesses of all stations over the whole duration, in station order.
+    private static void SearchAccesses(Result Res)
+    {
+        long Time = System.nanoTime();
+        List<VisibilityHandler> Handlers = new ArrayList<>();
+        for (String Station : Res.Scen.StationNames()) {
+            Handlers.add(new VisibilityHandler(Station, Res.Scen.TimeStart));
+        }
+        new AccessSearch(Res.Scen, Handlers).Run(Res.Scen.TimeStart, Res.Scen.TimeEnd);
+        for (VisibilityHandler Handler : Handlers) {
+            Handler.FinishChunk();
+            Res.Accesses.addAll(VisibilityHandler.Stitch(Collections.singletonList(Handler)));
+        }
+        Res.AccessTime = (System.nanoTime() - Time) * 1e-9;
+        System.out.print(".");
+    }
+
+    // Largest deviation (s) of begin and end of matching accesses, NaN if the number of accesses differs.
+    private static double AccessDeviation(List<AbsoluteDate[]> Accesses, List<AbsoluteDate[]> Reference)
+    {
+        if (Accesses.size() != Reference.size()) {
+            return Double.NaN;
+        }
+        double Max = 0;
+        for (int a = 0; a < Accesses.size(); a++) {
+            for (int k = 0; k < 2; k++) {
+                Max = Math.max(Max, Math.abs(Accesses.get(a)[k].durationFrom(Reference.get(a)[k])));
+            }
+        }
+        return Max;
+    }
+}
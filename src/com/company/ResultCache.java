@@ -0,0 +1,341 @@
+/*
+On-disk cache of sun angle rows and accesses, keyed by the physics-relevant settings.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.*;
+
+import org.orekit.frames.Frame;
+import org.orekit.time.*;
+
+// One entry per key in CacheDirectory/<key>: the sun angle rows as binary sun angle file, the accesses per station in
+// chunk form (an access open at the end is kept) and the properties of the run. The key is a hash of the settings that
+// change the results (orbit, propagator, batch size, start, time step, adaptive sampling, stations, detector
+// parameters, extra columns), the Orekit version and a fingerprint of the Orekit data, but not of the duration: a run
+// over a longer duration with an entry for a shorter one on the same time grid continues after the cached steps, and
+// then replaces the entry. Batch and step by step evaluation differ within EcksteinHechlerBatch.PositionTolerance, so
+// they do not share entries. Output names, formats and the number of threads do not matter. When the directory grows
+// beyond CacheMaxSize (MB), the least recently used entries are removed.
+class ResultCache
+{
+    private static final int EntryVersion = 1;      // changes whenever the entry layout or the computation changes
+    private static final String[] KeySettings = {"SatAltitude", "SatEccentricity", "SatInclination", "SatOmega",
+            "SatRAAN", "SatMeanAnomaly", "SatTLELine1", "SatTLELine2", "SimPropagator", "SimNumericalTolerance",
+            "SimBatchSize", "SimStartYear", "SimStartMonth", "SimStartDay", "SimStartHour", "SimStartMinute",
+            "SimStartSecond", "SimTimeStep", "SimAdaptiveTolerance", "SimAdaptiveMinStep", "SimAdaptiveMaxStep",
+            "SimMaxCheck", "SimDivThreshold", "SimMinElevation", "SimStationPrescreen", "SimSunCacheAccuracy",
+            "SimVerifyKernel", "TargetLat", "TargetLon", "TargetAlt", "GroundStations", "ExpExtraColumns"};
+    private static final String[] StationSettings = {"Lat", "Lon", "Alt", "MinElevation", "ElevationMask"};
+    private static final Map<String, String> DataFingerprints = new HashMap<>();    // per data path
+
+    private final File Directory;
+    private final long MaxSize;         // (bytes)
+    private final Scenario Scen;
+    final String Key;
+
+    // Cached run, covering all steps of the scenario or the steps before FirstStep.
+    static class Entry
+    {
+        long Steps;
+        long Rows;
+        double Duration;                        // (s)
+        double MaxKernelDeviation;              // (deg)
+        File RowsFile;
+        List<List<AbsoluteDate[]>> Accesses;    // per station, end null = open at the end
+        boolean fComplete;
+    }
+
+    private ResultCache(File directory, long maxSize, Scenario scen, String key)
+    {
+        Directory = directory;
+        MaxSize = maxSize;
+        Scen = scen;
+        Key = key;
+    }
+
+    // Cache of a scenario, null if CacheDirectory is empty.
+    static ResultCache Open(Settings Set, Scenario Scen) throws IOException
+    {
+        String Path = Set.GetValue("CacheDirectory", "").trim();
+        if (Path.isEmpty()) {
+            return null;
+        }
+        File Directory = new File(Path);
+        if (!Directory.isDirectory() && !Directory.mkdirs()) {
+            throw new IOException("Could not create cache directory <" + Path + ">.");
+        }
+        long MaxSize = (long) (Double.parseDouble(Set.GetValue("CacheMaxSize", "1024")) * 1024 * 1024);
+        return new ResultCache(Directory, MaxSize, Scen, ComputeKey(Set));
+    }
+
+    // SHA-256 of the settings that change the results, the Orekit version and the Orekit data.
+    static String ComputeKey(Settings Set)
+    {
+        StringBuilder Text = new StringBuilder("Format=" + EntryVersion + "\n");
+        for (String Name : KeySettings) {
+            Text.append(Name).append('=').append(Set.GetValue(Name, "").trim()).append('\n');
+        }
+        for (String Station : Set.GetValue("GroundStations", "").split(";")) {
+            Station = Station.trim();
+            for (String Name : Station.isEmpty() ? new String[0] : StationSettings) {
+                String StationKey = "GroundStation." + Station + "." + Name;
+                Text.append(StationKey).append('=').append(Set.GetValue(StationKey, "").trim()).append('\n');
+            }
+        }
+        Text.append("Orekit=").append(OrekitVersion()).append('\n');
+        Text.append("Data=").append(DataFingerprint(Set)).append('\n');
+        try {
+            byte[] Hash = MessageDigest.getInstance("SHA-256").digest(Text.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder Hex = new StringBuilder();
+            for (byte b : Hash) {
+                Hex.append(String.format("%02x", b));
+            }
+            return Hex.toString();
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Version from the Maven properties in the Orekit jar, kept in the application jar as well.
+    private static String OrekitVersion()
+    {
+        try (InputStream In = Frame.class.getResourceAsStream("/META-INF/maven/org.orekit/orekit/pom.properties")) {
+            Properties Pom = new Properties();
+            if (In != null) {
+                Pom.load(In);
+            }
+            return Pom.getProperty("version", "unknown");
+        } catch (IOException e) {
+            return "unknown";
+        }
+    }
+
+    // Names, sizes and modification times of the files in the data directory. A snapshot is derived from them and
+    // rebuilt whenever the window grows, so it is not part of the fingerprint; otherwise a longer run would never find
+    // the entry of a shorter one. The directory may be on a network share, so it is walked once per process and path,
+    // not for every case of a sweep or satellite of a constellation.
+    private static synchronized String DataFingerprint(Settings Set)
+    {
+        String Path = Set.GetValue("OrekitDataPath", Main.DefaultOrekitDataPath);
+        String Fingerprint = DataFingerprints.get(Path);
+        if (Fingerprint == null) {
+            StringBuilder Text = new StringBuilder();
+            AppendFiles(Text, new File(Path), "");
+            Fingerprint = Text.toString();
+            DataFingerprints.put(Path, Fingerprint);
+        }
+        return Fingerprint;
+    }
+
+    private static void AppendFiles(StringBuilder Text, File Path, String Name)
+    {
+        if (Path.isDirectory()) {
+            String[] Children = Path.list();
+            if (Children != null) {
+                Arrays.sort(Children);
+                for (String Child : Children) {
+                    AppendFiles(Text, new File(Path, Child), Name + "/" + Child);
+                }
+            }
+        } else {
+            Text.append(Name).append(',').append(Path.length()).append(',').append(Path.lastModified()).append(';');
+        }
+    }
+
+    // Entry usable for the scenario: all its steps, or on the time grid the steps up to an entry whose duration ends
+    // on a grid date. Adaptive rows are not continued, the last cached row then lies one time step before the next.
+    // null = none.
+    Entry Find()
+    {
+        File EntryDirectory = new File(Directory, Key);
+        Properties Info = new Properties();
+        try (InputStream In = new FileInputStream(new File(EntryDirectory, "Entry.properties"))) {
+            Info.load(In);
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            Entry Cached = new Entry();
+            Cached.Steps = Long.parseLong(Info.getProperty("Steps"));
+            Cached.Rows = Long.parseLong(Info.getProperty("Rows"));
+            Cached.Duration = Double.parseDouble(Info.getProperty("Duration"));
+            Cached.MaxKernelDeviation = Double.parseDouble(Info.getProperty("MaxKernelDeviation"));
+            Cached.RowsFile = new File(EntryDirectory, "SunAngles.bin");
+            Cached.fComplete = Cached.Steps == Scen.TimeSteps && Cached.Duration == Scen.SimDurationInSec;
+            boolean fPrefix = Scen.AdaptiveTolerance == 0 && Cached.Steps < Scen.TimeSteps
+                    && Cached.Duration == Cached.Steps * Scen.dt;
+            if (!Cached.fComplete && !fPrefix) {
+                return null;
+            }
+            Cached.Accesses = ReadAccesses(new File(EntryDirectory, "Accesses.bin"));
+            if (!EntryDirectory.setLastModified(System.currentTimeMillis())) {
+                System.out.println("Warning: Could not mark cache entry <" + EntryDirectory + "> as used.");
+            }
+            return Cached;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Warning: Ignoring unreadable cache entry <" + EntryDirectory + ">: " + e.toString());
+            return null;
+        }
+    }
+
+    // Accesses per station in the order of the scenario's stations, dates as offsets from the start.
+    private List<List<AbsoluteDate[]>> ReadAccesses(File AccessFile) throws IOException
+    {
+        List<List<AbsoluteDate[]>> Accesses = new ArrayList<>();
+        try (DataInputStream In = new DataInputStream(new BufferedInputStream(new FileInputStream(AccessFile)))) {
+            int Stations = In.readInt();
+            if (Stations != Scen.Stations.size()) {
+                throw new IOException("entry has " + Stations + " stations");
+            }
+            for (int s = 0; s < Stations; s++) {
+                if (!In.readUTF().equals(Scen.Stations.get(s).Name)) {
+                    throw new IOException("stations differ");
+                }
+                List<AbsoluteDate[]> Station = new ArrayList<>();
+                for (int n = In.readInt(); n > 0; n--) {
+                    double Begin = In.readDouble(), End = In.readDouble();
+                    Station.add(new AbsoluteDate[] {Scen.TimeStart.shiftedBy(Begin),
+                            Double.isNaN(End) ? null : Scen.TimeStart.shiftedBy(End)});
+                }
+                Accesses.add(Station);
+            }
+        }
+        return Accesses;
+    }
+
+    // New file in the cache directory for the rows of an entry or a part of them.
+    File CreateTempFile(String Suffix) throws IOException
+    {
+        return File.createTempFile("Entry", Suffix, Directory);
+    }
+
+    // Store the run of the scenario, taking over the rows file, and evict old entries if the cache is too large.
+    void Store(File RowsFile, long Rows, List<List<AbsoluteDate[]>> Accesses, double MaxKernelDeviation) throws IOException
+    {
+        File Staging = Files.createTempDirectory(Directory.toPath(), Key + ".").toFile();
+        try {
+            Files.move(RowsFile.toPath(), new File(Staging, "SunAngles.bin").toPath());
+            try (DataOutputStream Out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(new File(Staging, "Accesses.bin"))))) {
+                Out.writeInt(Accesses.size());
+                for (int s = 0; s < Accesses.size(); s++) {
+                    Out.writeUTF(Scen.Stations.get(s).Name);
+                    Out.writeInt(Accesses.get(s).size());
+                    for (AbsoluteDate[] Access : Accesses.get(s)) {
+                        Out.writeDouble(Access[0].durationFrom(Scen.TimeStart));
+                        Out.writeDouble(Access[1] == null ? Double.NaN : Access[1].durationFrom(Scen.TimeStart));
+                    }
+                }
+            }
+            Properties Info = new Properties();
+            Info.setProperty("Steps", Long.toString(Scen.TimeSteps));
+            Info.setProperty("Rows", Long.toString(Rows));
+            Info.setProperty("Duration", Double.toString(Scen.SimDurationInSec));
+            Info.setProperty("MaxKernelDeviation", Double.toString(MaxKernelDeviation));
+            try (OutputStream Out = new FileOutputStream(new File(Staging, "Entry.properties"))) {
+                Info.store(Out, "Cached run from " + Scen.TimeStart + " to " + Scen.TimeEnd);
+            }
+
+            // Replace the entry unless it covers more steps; concurrent runs of the same length may store it as well,
+            // the last one wins.
+            synchronized (ResultCache.class) {
+                File EntryDirectory = new File(Directory, Key);
+                long StoredSteps = StoredSteps(EntryDirectory);
+                if (StoredSteps > Scen.TimeSteps) {
+                    if (Scen.fDisplayMessages) {
+                        System.out.println("Keeping cache entry over " + StoredSteps + " steps.");
+                    }
+                    return;
+                }
+                Delete(EntryDirectory);
+                if (!Staging.renameTo(EntryDirectory)) {
+                    throw new IOException("Could not move cache entry to <" + EntryDirectory + ">.");
+                }
+                Evict();
+            }
+        } finally {
+            Delete(Staging);
+        }
+    }
+
+    // Steps of the stored entry, -1 if there is none or it is incomplete.
+    private static long StoredSteps(File EntryDirectory)
+    {
+        Properties Info = new Properties();
+        try (InputStream In = new FileInputStream(new File(EntryDirectory, "Entry.properties"))) {
+            Info.load(In);
+            if (!new File(EntryDirectory, "SunAngles.bin").isFile() || !new File(EntryDirectory, "Accesses.bin").isFile()) {
+                return -1;
+            }
+            return Long.parseLong(Info.getProperty("Steps"));
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    // Remove the least recently used entries other than the current one until the cache fits into MaxSize.
+    private void Evict()
+    {
+        File[] Entries = Directory.listFiles(Candidate -> Candidate.isDirectory() && Candidate.getName().matches("[0-9a-f]{64}"));
+        if (Entries == null) {
+            return;
+        }
+        long Total = 0;
+        Map<File, Long> Sizes = new HashMap<>();
+        for (File EntryDirectory : Entries) {
+            long Size = 0;
+            File[] EntryFiles = EntryDirectory.listFiles();
+            for (File EntryFile : EntryFiles != null ? EntryFiles : new File[0]) {
+                Size += EntryFile.length();
+            }
+            Sizes.put(EntryDirectory, Size);
+            Total += Size;
+        }
+        Arrays.sort(Entries, Comparator.comparingLong(File::lastModified));
+        for (File EntryDirectory : Entries) {
+            if (Total <= MaxSize) {
+                break;
+            }
+            if (!EntryDirectory.getName().equals(Key)) {
+                Delete(EntryDirectory);
+                Total -= Sizes.get(EntryDirectory);
+                if (Scen.fDisplayMessages) {
+                    System.out.println("Removed cache entry <" + EntryDirectory.getName() + ">.");
+                }
+            }
+        }
+    }
+
+    // Delete a file or a directory with its files.
+    private static void Delete(File Path)
+    {
+        File[] Children = Path.listFiles();
+        for (File Child : Children != null ? Children : new File[0]) {
+            Delete(Child);
+        }
+        if (Path.exists() && !Path.delete()) {
+            System.out.println("Warning: Could not delete <" + Path + ">.");
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+Phase timers, throughput counters and memory figures of a propagation run.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Collected from all worker threads while the run is going on. Phase times are summed over the threads, so with
+// several threads they can exceed the wall time. Allocations are counted for the thread that created the statistics
+// and the worker threads reporting through AddWorkerAllocation.
+class RunStatistics
+{
+    enum Phase { DataLoading, FrameSetup, Propagation, EventDetection, AngleMath, OutputIO }
+
+    private final LongAdder[] PhaseNanos = new LongAdder[Phase.values().length];
+    final LongAdder Steps = new LongAdder();                    // propagation steps on the time grid
+    final LongAdder Rows = new LongAdder();                     // sun angle rows written
+    final LongAdder DetectorEvaluations = new LongAdder();      // calls of the visibility detectors' g
+    final LongAdder DetectorPrescreened = new LongAdder();      // of which answered by the pre-screen
+    long Accesses = 0;
+
+    private final Thread Owner = Thread.currentThread();
+    private final long StartNanos = System.nanoTime();
+    private final long StartAllocated = AllocatedBytes();
+    private final long StartGcCount, StartGcMillis;
+    private final LongAdder WorkerAllocated = new LongAdder();
+    private long WallNanos, Allocated, GcCount, GcMillis, HeapUsed, HeapPeak;
+
+    RunStatistics()
+    {
+        for (int p = 0; p < PhaseNanos.length; p++) {
+            PhaseNanos[p] = new LongAdder();
+        }
+        long[] Gc = GcTotals();
+        StartGcCount = Gc[0];
+        StartGcMillis = Gc[1];
+        for (MemoryPoolMXBean Pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            Pool.resetPeakUsage();
+        }
+    }
+
+    // Add the time since Start (from System.nanoTime) to a phase and return the current time.
+    long Add(Phase P, long Start)
+    {
+        long Now = System.nanoTime();
+        PhaseNanos[P.ordinal()].add(Now - Start);
+        return Now;
+    }
+
+    double Seconds(Phase P)
+    {
+        return PhaseNanos[P.ordinal()].sum() * 1e-9;
+    }
+
+    // Bytes allocated by the current thread so far, -1 if the JVM does not count them.
+    static long AllocatedBytes()
+    {
+        ThreadMXBean Threads = ManagementFactory.getThreadMXBean();
+        if (Threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) Threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    // Add the bytes a worker thread allocated since Start (from AllocatedBytes). Ignored on the owner thread, whose
+    // allocations are counted as a whole.
+    void AddWorkerAllocation(long Start)
+    {
+        if (Thread.currentThread() != Owner && Start >= 0) {
+            WorkerAllocated.add(AllocatedBytes() - Start);
+        }
+    }
+
+    // Collection count and time (ms) of all garbage collectors.
+    private static long[] GcTotals()
+    {
+        long[] Totals = new long[2];
+        for (GarbageCollectorMXBean Gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            Totals[0] += Math.max(0, Gc.getCollectionCount());
+            Totals[1] += Math.max(0, Gc.getCollectionTime());
+        }
+        return Totals;
+    }
+
+    private static long HeapPeak()
+    {
+        long Peak = 0;
+        for (MemoryPoolMXBean Pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (Pool.getType() == MemoryType.HEAP && Pool.getPeakUsage() != null) {
+                Peak += Pool.getPeakUsage().getUsed();
+            }
+        }
+        return Peak;
+    }
+
+    // Freeze wall time and memory figures at the end of the run, called on the owner thread.
+    void Finish()
+    {
+        WallNanos = System.nanoTime() - StartNanos;
+        long OwnerAllocated = AllocatedBytes();
+        Allocated = StartAllocated >= 0 && OwnerAllocated >= 0 ? OwnerAllocated - StartAllocated + WorkerAllocated.sum() : -1;
+        long[] Gc = GcTotals();
+        GcCount = Gc[0] - StartGcCount;
+        GcMillis = Gc[1] - StartGcMillis;
+        HeapUsed = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        HeapPeak = HeapPeak();
+    }
+
+    // Summary as JSON object, after Finish.
+    String ToJson(Scenario Scen, int Threads)
+    {
+        double Wall = WallNanos * 1e-9;
+        StringBuilder Json = new StringBuilder();
+        Json.append("{\n");
+        Json.append("  \"Scenario\": {\n");
+        Json.append(String.format(Settings.LocalFormat, "    \"Start\": \"%s\",\n", Scen.TimeStart));
+        Json.append(String.format(Settings.LocalFormat, "    \"End\": \"%s\",\n", Scen.TimeEnd));
+        Json.append(String.format(Settings.LocalFormat, "    \"TimeStep\": %s,\n", Scen.dt));
+        Json.append(String.format(Settings.LocalFormat, "    \"SemiMajorAxis\": %s,\n", Scen.InitialOrbit.getA()));
+        Json.append(String.format(Settings.LocalFormat, "    \"Eccentricity\": %s,\n", Scen.InitialOrbit.getE()));
+        Json.append(String.format(Settings.LocalFormat, "    \"Inclination\": %s,\n",
+                Math.toDegrees(Scen.InitialOrbit.getI())));
+        Json.append(String.format(Settings.LocalFormat, "    \"Stations\": %d,\n", Scen.Stations.size()));
+        Json.append(String.format(Settings.LocalFormat, "    \"Threads\": %d\n", Threads));
+        Json.append("  },\n");
+        Json.append(String.format(Settings.LocalFormat, "  \"WallTime\": %.6f,\n", Wall));
+        Json.append("  \"PhaseTimes\": {\n");
+        for (Phase P : Phase.values()) {
+            Json.append(String.format(Settings.LocalFormat, "    \"%s\": %.6f%s\n", P, Seconds(P),
+                    P.ordinal() < PhaseNanos.length - 1 ? "," : ""));
+        }
+        Json.append("  },\n");
+        Json.append("  \"Counters\": {\n");
+        Json.append(String.format(Settings.LocalFormat, "    \"Steps\": %d,\n", Steps.sum()));
+        Json.append(String.format(Settings.LocalFormat, "    \"Rows\": %d,\n", Rows.sum()));
+        Json.append(String.format(Settings.LocalFormat, "    \"Accesses\": %d,\n", Accesses));
+        Json.append(String.format(Settings.LocalFormat, "    \"DetectorEvaluations\": %d,\n",
+                DetectorEvaluations.sum()));
+        Json.append(String.format(Settings.LocalFormat, "    \"DetectorPrescreened\": %d\n",
+                DetectorPrescreened.sum()));
+        Json.append("  },\n");
+        Json.append("  \"Throughput\": {\n");
+        Json.append(String.format(Settings.LocalFormat, "    \"StepsPerSecond\": %.1f,\n", Steps.sum() / Wall));
+        Json.append(String.format(Settings.LocalFormat, "    \"RowsPerSecond\": %.1f\n", Rows.sum() / Wall));
+        Json.append("  },\n");
+        Json.append("  \"Memory\": {\n");
+        Json.append(String.format(Settings.LocalFormat, "    \"AllocatedBytes\": %d,\n", Allocated));
+        Json.append(String.format(Settings.LocalFormat, "    \"GcCount\": %d,\n", GcCount));
+        Json.append(String.format(Settings.LocalFormat, "    \"GcTime\": %.3f,\n", GcMillis * 1e-3));
+        Json.append(String.format(Settings.LocalFormat, "    \"HeapUsedBytes\": %d,\n", HeapUsed));
+        Json.append(String.format(Settings.LocalFormat, "    \"HeapPeakBytes\": %d\n", HeapPeak));
+        Json.append("  }\n");
+        Json.append("}\n");
+        return Json.toString();
+    }
+
+    void WriteJson(String Path, Scenario Scen, int Threads) throws IOException
+    {
+        try (Writer Out = new OutputStreamWriter(new FileOutputStream(Path), "UTF-8")) {
+            Out.write(ToJson(Scen, Threads));
+        }
+    }
+
+    // Print a line with the progress every Interval seconds until the returned executor is shut down.
+    ScheduledExecutorService StartLiveReport(double Interval, PrintStream Out)
+    {
+        ScheduledExecutorService Reporter = Executors.newSingleThreadScheduledExecutor(Task -> {
+            Thread Worker = new Thread(Task, "LiveReport");
+            Worker.setDaemon(true);
+            return Worker;
+        });
+        long Period = Math.max(1, Math.round(Interval * 1000));
+        Reporter.scheduleAtFixedRate(() -> {
+            double Elapsed = (System.nanoTime() - StartNanos) * 1e-9;
+            long[] Gc = GcTotals();
+            Out.println(String.format(Settings.LocalFormat, "[%.1f s] %d steps (%.0f/s), %d rows, %d detector evaluations, heap %d MB, %d gc (%.3f s)",
+                    Elapsed, Steps.sum(), Steps.sum() / Elapsed, Rows.sum(), DetectorEvaluations.sum(),
+                    ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20,
+                    Gc[0] - StartGcCount, (Gc[1] - StartGcMillis) * 1e-3));
+        }, Period, Period, TimeUnit.MILLISECONDS);
+        return Reporter;
+    }
+}
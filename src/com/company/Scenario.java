@@ -0,0 +1,248 @@
+/*
+Scenario definition (time frame, orbit, ground stations, detectors) built from the settings.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.orekit.frames.*;
+import org.orekit.time.*;
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.analytical.tle.*;
+import org.orekit.bodies.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// Immutable scenario shared by all propagation chunks. Propagators and detectors are stateful and therefore created
+// per chunk through CreatePropagator and CreateDetectors.
+class Scenario
+{
+    // Frames and bodies
+    final CelestialBody Sun;
+    final SunEphemerisCache SunCache;       // null = direct ephemeris lookup
+    final Frame InertialFrame, EarthFrame;
+
+    // Ground stations, tagged in the access file if given as station list
+    final List<GroundStation> Stations;
+    final boolean fTagStations;
+
+    // Time frame
+    final AbsoluteDate TimeStart, TimeEnd;
+    final double SimDurationInSec;
+    final double dt;
+    final long TimeSteps;
+
+    // Adaptive sampling, tolerance 0 = one row per time step
+    final double AdaptiveTolerance, AdaptiveMinStep, AdaptiveMaxStep;
+
+    // Orbit and propagation model
+    final Orbit InitialOrbit;
+    final PropagatorBackend Backend;
+    final EcksteinHechlerBatch Batch;       // null = grid propagated step by step
+    final int BatchSize;
+
+    // Extra output columns, indices into SunAngleKernel.ExtraNames
+    final int[] ExtraColumns;
+
+    // Event detection
+    final double MaxCheckInterval, MaxDivThreshold;
+    final boolean fStationPrescreen;
+    private final double MaxRadius, MaxAngularRate;
+
+    // Console messages of the scenario and of the runs over it
+    final boolean fDisplayMessages;
+
+    Scenario(Settings Set)
+    {
+        this(Set, null, Settings.fDisplayMessages);
+    }
+
+    // Scenario of another satellite of a constellation: frames, Sun, Sun cache and ground stations are taken from
+    // Shared (null = set up from the settings), only the time frame, orbit and event parameters are read from Set.
+    // Runs of many scenarios at once, e.g. sweep cases, pass fDisplayMessages false.
+    Scenario(Settings Set, Scenario Shared, boolean fDisplayMessages)
+    {
+        this.fDisplayMessages = fDisplayMessages;
+
+        // Create inertial frame for Earth, celestial bodies, and ground station
+        InertialFrame = Shared != null ? Shared.InertialFrame : FramesFactory.getEME2000(); // J2000, centered at Earth's center, moving with surface rotation
+        Sun = Shared != null ? Shared.Sun : CelestialBodyFactory.getSun();
+        if (fDisplayMessages && Shared == null) {
+            System.out.println("Created inertial frames.");
+        }
+
+        // Set up time frame
+        TimeStart = new AbsoluteDate(Integer.parseInt(Set.GetValue("SimStartYear")),
+                Integer.parseInt(Set.GetValue("SimStartMonth")),
+                Integer.parseInt(Set.GetValue("SimStartDay")),
+                Integer.parseInt(Set.GetValue("SimStartHour")),
+                Integer.parseInt(Set.GetValue("SimStartMinute")),
+                Double.parseDouble(Set.GetValue("SimStartSecond")), TimeScalesFactory.getUTC());
+        SimDurationInSec = Double.parseDouble(Set.GetValue("SimDurationInDays")) * 3600 * 24;
+        TimeEnd = TimeStart.shiftedBy(SimDurationInSec);
+        dt = Double.parseDouble(Set.GetValue("SimTimeStep"));
+        TimeSteps = Math.round(SimDurationInSec / dt);
+        AdaptiveTolerance = Double.parseDouble(Set.GetValue("SimAdaptiveTolerance", "0"));
+        AdaptiveMinStep = Double.parseDouble(Set.GetValue("SimAdaptiveMinStep", "1"));
+        AdaptiveMaxStep = Double.parseDouble(Set.GetValue("SimAdaptiveMaxStep", "600"));
+        if (AdaptiveTolerance > 0 && !(0 < AdaptiveMinStep && AdaptiveMinStep <= AdaptiveMaxStep)) {
+            throw new IllegalArgumentException("Adaptive sampling needs 0 < SimAdaptiveMinStep <= SimAdaptiveMaxStep.");
+        }
+
+        // Sun positions interpolated from a cache over the time frame if an accuracy is given, direct lookup with 0.
+        double SunCacheAccuracy = Double.parseDouble(Set.GetValue("SimSunCacheAccuracy", "0"));
+        SunCache = Shared != null ? Shared.SunCache : SunCacheAccuracy > 0 ? SunEphemerisCache.Get(Sun, InertialFrame, TimeStart, TimeEnd, SunCacheAccuracy) : null;
+        if (fDisplayMessages && Shared == null) {
+            if (SunCache != null) {
+                System.out.println("Created Sun ephemeris cache with cadence = " + SunCache.Cadence + " s, max deviation = " + SunCache.MaxDeviation + " deg.");
+            } else if (SunCacheAccuracy > 0) {
+                System.out.println("Warning: Sun ephemeris cache cannot reach " + SunCacheAccuracy + " deg, using direct lookup.");
+            }
+        }
+
+        // Set up satellite orbit, from the TLE at the start date if one is given for SGP4.
+        double SemiMajorAxis, SatEccentricity;
+        TLE Elements = PropagatorBackend.GivenTLE(Set);
+        if (Elements == null && !Set.GetValue("SatTLELine1", "").trim().isEmpty() && fDisplayMessages && Shared == null) {
+            System.out.println("Warning: SatTLELine1 and SatTLELine2 are only used with SimPropagator SGP4, using the Sat* orbit.");
+        }
+        if (Elements != null) {
+            InitialOrbit = new CircularOrbit(TLEPropagator.selectExtrapolator(Elements).getPVCoordinates(TimeStart, InertialFrame),
+                    InertialFrame, TimeStart, Constants.EIGEN5C_EARTH_MU);
+            SemiMajorAxis = InitialOrbit.getA();
+            SatEccentricity = InitialOrbit.getE();
+            if (fDisplayMessages) {
+                System.out.println("Created satellite orbit from TLE of " + Elements.getDate() + ": " + InitialOrbit);
+            }
+        } else {
+            SemiMajorAxis = Double.parseDouble(Set.GetValue("SatAltitude")) + Settings.EarthRadius;
+            SatEccentricity = Double.parseDouble(Set.GetValue("SatEccentricity"));
+            double SatInclination = Double.parseDouble(Set.GetValue("SatInclination"));
+            double SatOmega = Double.parseDouble(Set.GetValue("SatOmega"));
+            double SatRAAN = Double.parseDouble(Set.GetValue("SatRAAN"));
+            double SatMeanAnomaly = Double.parseDouble(Set.GetValue("SatMeanAnomaly"));
+            InitialOrbit = new CircularOrbit(SemiMajorAxis, SatEccentricity * Math.cos(Math.toRadians(SatOmega)),
+                    SatEccentricity * Math.sin(Math.toRadians(SatOmega)), Math.toRadians(SatInclination),
+                    Math.toRadians(SatRAAN), Math.toRadians(SatMeanAnomaly), PositionAngle.MEAN,
+                    InertialFrame, TimeStart, Constants.EIGEN5C_EARTH_MU);
+            if (fDisplayMessages) {
+                System.out.println("Created satellite orbit:");
+                System.out.println("\tSemiMajorAxis = " + SemiMajorAxis);
+                System.out.println("\tSatEccentricity = " + SatEccentricity);
+                System.out.println("\tSatInclination = " + SatInclination);
+                System.out.println("\tSatOmega = " + SatOmega);
+                System.out.println("\tSatRAAN = " + SatRAAN);
+                System.out.println("\tSatMeanAnomaly = " + SatMeanAnomaly);
+            }
+        }
+
+        // Create ground stations with their topocentric frames.
+        if (Shared != null) {
+            EarthFrame = Shared.EarthFrame;
+            Stations = Shared.Stations;
+        } else {
+            EarthFrame = FramesFactory.getITRF(IERSConventions.IERS_2010, true);
+            BodyShape EarthShape = new OneAxisEllipsoid(Constants.WGS84_EARTH_EQUATORIAL_RADIUS,
+                    Constants.WGS84_EARTH_FLATTENING,
+                    EarthFrame);
+            Stations = GroundStation.FromSettings(Set, EarthShape);
+        }
+        fTagStations = !Set.GetValue("GroundStations", "").trim().isEmpty();
+        if (fDisplayMessages && Shared == null) {
+            for (GroundStation Station : Stations) {
+                System.out.println("Created ground station " + Station + ".");
+            }
+        }
+
+        // Propagation model
+        Backend = PropagatorBackend.Create(Set.GetValue("SimPropagator", "EcksteinHechler"), Set, InitialOrbit, EarthFrame);
+        if (fDisplayMessages) {
+            System.out.println("Created " + Set.GetValue("SimPropagator", "EcksteinHechler") + " propagator.");
+        }
+        BatchSize = Integer.parseInt(Set.GetValue("SimBatchSize", "0"));
+        Batch = BatchSize > 0 ? Backend.CreateBatch() : null;
+
+        // Extra output columns computed with the sun angles
+        ExtraColumns = SunAngleKernel.SelectExtra(Set.GetValue("ExpExtraColumns", ""));
+
+        // Event detector parameters
+        MaxCheckInterval = Double.parseDouble(Set.GetValue("SimMaxCheck"));
+        MaxDivThreshold = Double.parseDouble(Set.GetValue("SimDivThreshold"));
+
+        // Bounds for the station pre-screen: apogee distance and ground track rate at perigee, both with margin.
+        fStationPrescreen = Boolean.parseBoolean(Set.GetValue("SimStationPrescreen", "true"));
+        double Apogee = SemiMajorAxis * (1 + SatEccentricity), Perigee = SemiMajorAxis * (1 - SatEccentricity);
+        double PerigeeVelocity = Math.sqrt(Constants.EIGEN5C_EARTH_MU * (2 / Perigee - 1 / SemiMajorAxis));
+        MaxRadius = Apogee * 1.01;
+        MaxAngularRate = 1.2 * (PerigeeVelocity / Perigee + Constants.WGS84_EARTH_ANGULAR_VELOCITY);
+    }
+
+    // Date of a given time step.
+    AbsoluteDate StepDate(long i)
+    {
+        return TimeStart.shiftedBy(i * dt);
+    }
+
+    // Sun position in the inertial frame, from the cache if available.
+    void SunPosition(AbsoluteDate Date, double[] Out)
+    {
+        if (SunCache != null) {
+            SunCache.Position(Date, Out);
+        } else {
+            Vector3D Position = Sun.getPVCoordinates(Date, InertialFrame).getPosition();
+            Out[0] = Position.getX();
+            Out[1] = Position.getY();
+            Out[2] = Position.getZ();
+        }
+    }
+
+    // Set up a new propagator in slave mode.
+    Propagator CreatePropagator()
+    {
+        return Backend.CreatePropagator();
+    }
+
+    // Set up new visibility detectors, one per ground station in the order of Stations. The detectors of one
+    // propagator share the transform to the Earth frame.
+    List<StationVisibilityDetector> CreateDetectors(List<VisibilityHandler> Handlers,
+                                                    StationVisibilityDetector.EarthTransformCache Cache)
+    {
+        List<StationVisibilityDetector> Detectors = new ArrayList<>();
+        for (int s = 0; s < Stations.size(); s++) {
+            GroundStation Station = Stations.get(s);
+            double MaxCentralAngle = fStationPrescreen ? StationVisibilityDetector.MaxCentralAngle(Station, MaxRadius) : Math.PI;
+            Detectors.add(new StationVisibilityDetector(MaxCheckInterval, MaxDivThreshold, Handlers.get(s), Station,
+                    Cache, MaxCentralAngle, MaxAngularRate));
+        }
+        return Detectors;
+    }
+
+    // Station names in the order of Stations.
+    List<String> StationNames()
+    {
+        List<String> Names = new ArrayList<>();
+        for (GroundStation Station : Stations) {
+            Names.add(Station.Name);
+        }
+        return Names;
+    }
+}
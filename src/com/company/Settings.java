@@ -22,6 +22,7 @@ package com.company;
 
 import java.io.*;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Properties;
 import java.lang.String;
 import java.sql.Timestamp;
@@ -67,6 +68,28 @@ class Settings
         }
     }
 
+    // Default settings without reading or writing the settings file, e.g. for benchmarks.
+    static Settings CreateDefault()
+    {
+        return new Settings(new Properties());
+    }
+
+    private Settings(Properties Defaults)
+    {
+        AppSettings = Defaults;
+        SetDefaultSettings();
+    }
+
+    // Copy of the settings with some values replaced, e.g. one case of a sweep.
+    Settings(Settings Base, Map<String, String> Overrides)
+    {
+        AppSettings = new Properties();
+        AppSettings.putAll(Base.AppSettings);
+        for (Map.Entry<String, String> Entry : Overrides.entrySet()) {
+            AppSettings.setProperty(Entry.getKey(), Entry.getValue());
+        }
+    }
+
     // Make properties accessible within package.
     String GetValue(String key)
     {
@@ -80,6 +103,12 @@ class Settings
         }
     }
 
+    // Get property or fall back to default if the key is missing in the settings file.
+    String GetValue(String key, String defaultValue)
+    {
+        return AppSettings.getProperty(key, defaultValue);
+    }
+
     // Save properties to XML.
     private void SaveToXML(String path)
     {
@@ -105,11 +134,16 @@ class Settings
         AppSettings.setProperty("SatOmega", "0");                                       // (deg)
         AppSettings.setProperty("SatRAAN", "10.5834");                                  // (deg)
         AppSettings.setProperty("SatMeanAnomaly", "0");                                 // (deg)
+        AppSettings.setProperty("SatTLELine1", "");                                     // TLE of the satellite, empty = orbit above.
+        AppSettings.setProperty("SatTLELine2", "");
+        AppSettings.setProperty("Constellation", "");                                   // Satellite names separated by ';', empty = single satellite.
+        AppSettings.setProperty("ConstellationWalker", "");                             // Walker pattern total/planes/phasing, empty = none.
 
         // Target definition
         AppSettings.setProperty("TargetLon", "7.846619");                               // (deg)
         AppSettings.setProperty("TargetLat", "48.001081");                              // (deg)
         AppSettings.setProperty("TargetAlt", "320");                                    // (m)
+        AppSettings.setProperty("GroundStations", "");                                  // Station names separated by ';', empty = target above.
 
         // Simulation parameters
         AppSettings.setProperty("SimStartYear", "2020");                                // (a)
@@ -120,9 +154,26 @@ class Settings
         AppSettings.setProperty("SimStartSecond", "00.000");                            // (s.ms)
         AppSettings.setProperty("SimDurationInDays", "1.0");                            // (decimal days)
         AppSettings.setProperty("SimTimeStep", "60");                                   // (s)
+        AppSettings.setProperty("SimAdaptiveTolerance", "0");                           // (deg) Adaptive sampling, 0 = every time step.
+        AppSettings.setProperty("SimAdaptiveMinStep", "1");                             // (s)
+        AppSettings.setProperty("SimAdaptiveMaxStep", "600");                           // (s)
         AppSettings.setProperty("SimMaxCheck", "60");                                   // (s)
         AppSettings.setProperty("SimDivThreshold", "0.001");                            // (s)
         AppSettings.setProperty("SimMinElevation", "0");                                // (deg)
+        AppSettings.setProperty("SimStationPrescreen", "true");                         // Skip stations far below the horizon.
+        AppSettings.setProperty("SimVerifyKernel", "false");                            // Compare sun angles with frame-based path.
+        AppSettings.setProperty("SimSunCacheAccuracy", "0");                            // (deg) Sun ephemeris cache, 0 = direct lookup.
+        AppSettings.setProperty("SimPropagator", "EcksteinHechler");                    // EcksteinHechler, J2Secular, SGP4 or Numerical.
+        AppSettings.setProperty("SimBatchSize", "0");                                   // Grid steps per block of the EcksteinHechler batch, 0 = Orekit step by step.
+        AppSettings.setProperty("SimNumericalTolerance", "0.001");                      // (m) Position tolerance of the numerical propagator.
+        AppSettings.setProperty("SimComparePropagators", "");                           // Propagators separated by ';' or all, empty = no comparison.
+        AppSettings.setProperty("SimReferencePropagator", "Numerical");
+        AppSettings.setProperty("SimThreads", "1");                                     // Worker threads, 0 = all cores.
+        AppSettings.setProperty("SweepFile", "");                                       // Parameter grid, empty = single run.
+        AppSettings.setProperty("OrekitDataPath", Main.DefaultOrekitDataPath);          // Orekit data directory.
+        AppSettings.setProperty("OrekitDataSnapshot", "");                              // Snapshot of the data for the time frame, empty = directory.
+        AppSettings.setProperty("CacheDirectory", "");                                  // Result cache, empty = none.
+        AppSettings.setProperty("CacheMaxSize", "1024");                                // (MB)
 
         // Export options
         String SatelliteName = "ERNST";
@@ -131,6 +182,17 @@ class Settings
         AppSettings.setProperty("ExpFileSunAngles", SatelliteName + "_" + StrIdentifier + "_SunAngles.csv");
 //        AppSettings.setProperty("ExpFileEarthAngles", SatelliteName + "_" + StrIdentifier + "_EarthAngles.csv");
         AppSettings.setProperty("ExpFileAccessTimes", SatelliteName + "_" + StrIdentifier + "_AccessTimes.csv");
+        AppSettings.setProperty("ExpFileSunAnglesBinary", "");                          // Empty = derived from CSV name.
+        AppSettings.setProperty("ExpSunAnglesFormat", "csv");                           // csv, binary or both.
+        AppSettings.setProperty("ExpCsvWriter", "fast");                                // fast or printf.
+        AppSettings.setProperty("ExpExtraColumns", "");                                 // Extra columns, e.g. EarthAzimuth;EarthElevation;EarthRadius;Umbra;Penumbra.
+        AppSettings.setProperty("ExpFileSweepSummary", "SweepSummary.csv");
+        AppSettings.setProperty("ExpFileConstellationAccesses", "ConstellationAccessTimes.csv");
+        AppSettings.setProperty("ExpFilePropagatorComparison", "PropagatorComparison.csv");
+        AppSettings.setProperty("ExpStream", "");                                       // stdout, pipe:<path> or socket:<port>, empty = files.
+        AppSettings.setProperty("ExpStreamBuffer", "4096");                             // Records buffered ahead of the consumer.
+        AppSettings.setProperty("ExpRunStatistics", "");                                // JSON summary of the run, empty = none.
+        AppSettings.setProperty("ExpLiveReport", "0");                                  // (s) Progress report interval, 0 = none.
         AppSettings.setProperty("ExpTextFormat", "UTF-8");
         AppSettings.setProperty("ResultsDirectory", "U:/3 Plattform/Thermal/2018-11 EQM Analyse/Data");
     }
@@ -0,0 +1,164 @@
+/*
+Elevation detector for one ground station with a geometric pre-screen and a shared Earth frame transform.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.orekit.frames.*;
+import org.orekit.time.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.events.*;
+import org.orekit.propagation.events.handlers.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// Switching function is the elevation above the station's minimum elevation and mask, like ElevationDetector, but
+// computed from a transform to the Earth frame that is shared by all stations of one propagator. While the satellite
+// is far below the horizon, g returns -1 without any geometry: the central angle between satellite and station
+// exceeds the largest angle at which the satellite can be visible, and the time it needs to close the gap at the
+// maximum ground track rate defines a window in which the station stays out of view.
+class StationVisibilityDetector extends AbstractDetector<StationVisibilityDetector>
+{
+    private static final long serialVersionUID = 1L;
+
+    // Transform from the propagation frame to the Earth frame, computed once per date for all stations.
+    static class EarthTransformCache
+    {
+        private final Frame EarthFrame;
+        private AbsoluteDate Date;
+        private Frame From;
+        private Transform Current;
+
+        EarthTransformCache(Frame earthFrame)
+        {
+            EarthFrame = earthFrame;
+        }
+
+        Transform Get(Frame from, AbsoluteDate date)
+        {
+            if (Current == null || from != From || !date.equals(Date)) {
+                Current = from.getTransformTo(EarthFrame, date);
+                From = from;
+                Date = date;
+            }
+            return Current;
+        }
+    }
+
+    // Longest out-of-view window (s), limits the effect of orbit changes not covered by the rate bound.
+    private static final double MaxDormantTime = 3600;
+
+    final GroundStation Station;
+    private final EarthTransformCache Cache;
+    private final Vector3D StationPosition, Zenith, East, North;
+    private final double MaxCentralAngle;   // (rad), pi disables the pre-screen
+    private final double MaxAngularRate;    // (rad/s)
+
+    // Out-of-view window [DormantCenter - DormantHalfWidth, DormantCenter + DormantHalfWidth]
+    private AbsoluteDate DormantCenter;
+    private double DormantHalfWidth;
+
+    // Calls of g, and of these answered by the pre-screen
+    long Evaluations = 0, Prescreened = 0;
+
+    StationVisibilityDetector(double maxCheck, double threshold, EventHandler<? super StationVisibilityDetector> handler,
+                              GroundStation station, EarthTransformCache cache, double maxCentralAngle,
+                              double maxAngularRate)
+    {
+        this(maxCheck, threshold, DEFAULT_MAX_ITER, handler, station, cache, maxCentralAngle, maxAngularRate);
+    }
+
+    private StationVisibilityDetector(double maxCheck, double threshold, int maxIter,
+                                      EventHandler<? super StationVisibilityDetector> handler, GroundStation station,
+                                      EarthTransformCache cache, double maxCentralAngle, double maxAngularRate)
+    {
+        super(maxCheck, threshold, maxIter, handler);
+        Station = station;
+        Cache = cache;
+        MaxCentralAngle = maxCentralAngle;
+        MaxAngularRate = maxAngularRate;
+        StationPosition = Station.Direction.scalarMultiply(Station.Radius);
+        Zenith = Station.Frame.getZenith();
+        East = Station.Frame.getEast();
+        North = Station.Frame.getNorth();
+    }
+
+    protected StationVisibilityDetector create(double newMaxCheck, double newThreshold, int newMaxIter,
+                                               EventHandler<? super StationVisibilityDetector> newHandler)
+    {
+        return new StationVisibilityDetector(newMaxCheck, newThreshold, newMaxIter, newHandler, Station, Cache,
+                MaxCentralAngle, MaxAngularRate);
+    }
+
+    // Largest central angle (rad) between station and a satellite at a distance of up to MaxRadius from the Earth
+    // center that is still above the lowest elevation of the station, plus a margin for the ellipsoid.
+    static double MaxCentralAngle(GroundStation Station, double MaxRadius)
+    {
+        double Elevation = Station.LowestElevation;
+        double Ratio = Station.Radius * Math.cos(Elevation) / MaxRadius;
+        if (Ratio >= 1) {
+            return Math.PI;
+        }
+        return Math.min(Math.PI, Math.acos(Ratio) - Elevation + Math.toRadians(1));
+    }
+
+    // Time (s) for which the station certainly cannot see a satellite at the given position in the Earth frame, before
+    // or after the current date. Zero if the satellite is close enough to be visible or the pre-screen is disabled.
+    double OutOfViewTime(Vector3D Position)
+    {
+        if (MaxCentralAngle >= Math.PI) {
+            return 0;
+        }
+        double CentralAngle = Vector3D.angle(Position, Station.Direction);
+        if (CentralAngle <= MaxCentralAngle) {
+            return 0;
+        }
+        return Math.min((CentralAngle - MaxCentralAngle) / MaxAngularRate, MaxDormantTime);
+    }
+
+    public double g(SpacecraftState s)
+    {
+        AbsoluteDate Date = s.getDate();
+        Evaluations++;
+        if (DormantCenter != null && Math.abs(Date.durationFrom(DormantCenter)) < DormantHalfWidth) {
+            Prescreened++;
+            return -1;
+        }
+
+        Vector3D Position = Cache.Get(s.getFrame(), Date).transformPosition(s.getPVCoordinates().getPosition());
+        double OutOfView = OutOfViewTime(Position);
+        if (OutOfView > 0) {
+            Prescreened++;
+            DormantCenter = Date;
+            DormantHalfWidth = OutOfView;
+            return -1;
+        }
+
+        // Elevation and azimuth in the topocentric frame of the station.
+        Vector3D Line = Position.subtract(StationPosition);
+        double Elevation = Math.asin(Vector3D.dotProduct(Line, Zenith) / Line.getNorm());
+        if (Station.Mask == null) {
+            return Elevation - Math.toRadians(Station.MinElevation);
+        }
+        double Azimuth = Math.atan2(Vector3D.dotProduct(Line, East), Vector3D.dotProduct(Line, North));
+        if (Azimuth < 0) {
+            Azimuth += 2 * Math.PI;
+        }
+        return Elevation - Math.max(Math.toRadians(Station.MinElevation), Station.Mask.getElevation(Azimuth));
+    }
+}
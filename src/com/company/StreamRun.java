@@ -0,0 +1,115 @@
+/*
+Streams sun angle samples and accesses to stdout, a named pipe or a local socket while propagating.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+// ExpStream selects the target: "stdout", "pipe:<path>" (a named pipe created with mkfifo, or any file) or
+// "socket:<port>" (waits for one client on the loopback interface). Each record is one line,
+//   S,<time>,<azimuth>,<elevation>,<subsolar>[,<extra>...]  for a sun angle sample
+//   A,<station>,<start time>,<stop time>,<duration>          for an access,
+// formatted like the result files. Output is flushed whenever the producer has no record ready, so the consumer
+// receives the first orbit while later ones are computed. At most ExpStreamBuffer records are buffered.
+class StreamRun
+{
+    private final Settings Set;
+    private final Scenario Scen;
+    private final PrintStream Stdout;
+
+    long Samples = 0;
+    int AccessCount = 0;
+
+    // Stdout is the original standard output, as Main redirects messages to standard error when streaming to it.
+    StreamRun(Settings set, Scenario scen, PrintStream stdout)
+    {
+        Set = set;
+        Scen = scen;
+        Stdout = stdout;
+    }
+
+    void Execute() throws IOException
+    {
+        String Target = Set.GetValue("ExpStream", "");
+        int Capacity = Integer.parseInt(Set.GetValue("ExpStreamBuffer", "4096"));
+        if (Target.equalsIgnoreCase("stdout")) {
+            Stream(Stdout, Capacity);
+        } else if (Target.startsWith("pipe:")) {
+            try (OutputStream Out = new FileOutputStream(Target.substring("pipe:".length()))) {
+                Stream(Out, Capacity);
+            }
+        } else if (Target.startsWith("socket:")) {
+            int Port = Integer.parseInt(Target.substring("socket:".length()));
+            try (ServerSocket Server = new ServerSocket(Port, 1, InetAddress.getLoopbackAddress())) {
+                System.out.print("(waiting for client on port " + Server.getLocalPort() + ") ");
+                try (Socket Client = Server.accept()) {
+                    Stream(Client.getOutputStream(), Capacity);
+                }
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown stream target <" + Target + ">, use stdout, pipe:<path> or socket:<port>.");
+        }
+    }
+
+    private void Stream(OutputStream Target, int Capacity) throws IOException
+    {
+        Writer Out = new BufferedWriter(new OutputStreamWriter(Target, Set.GetValue("ExpTextFormat")), 1 << 16);
+        CsvRowEncoder Encoder = new CsvRowEncoder(256);
+        long ProgressInterval = Math.max(1, Math.round(Scen.TimeSteps / 10.0));
+        try (AttitudeStream Records = new AttitudeStream(Scen, Capacity)) {
+            while (Records.hasNext()) {
+                AttitudeStream.Record Rec = Records.next();
+                if (Rec.fAccess) {
+                    Encoder.Append("A,");
+                    Encoder.Append(Rec.Station);
+                    Encoder.Append(',');
+                    Encoder.AppendDate(Rec.Date);
+                    Encoder.Append(',');
+                    Encoder.AppendDate(Rec.End);
+                    Encoder.Append(',');
+                    Encoder.AppendFixed3(Rec.End.durationFrom(Rec.Date), 7);
+                    AccessCount++;
+                } else {
+                    Encoder.Append("S,");
+                    Encoder.AppendDate(Rec.Date);
+                    Encoder.Append(',');
+                    Encoder.AppendFixed3(Rec.Azimuth, 7);
+                    Encoder.Append(',');
+                    Encoder.AppendFixed3(Rec.Elevation, 7);
+                    Encoder.Append(',');
+                    Encoder.AppendFixed3(Rec.Subsolar, 7);
+                    FastCsvSunAngleSink.AppendExtra(Encoder, Scen.ExtraColumns, Rec.Extra);
+                    if (Samples++ % ProgressInterval == 0) {
+                        System.out.print(".");
+                    }
+                }
+                Encoder.Append('\n');
+                Encoder.Flush(Out);
+                if (!Records.IsReady()) {
+                    Out.flush();
+                }
+            }
+        }
+        Out.flush();
+    }
+}
@@ -0,0 +1,232 @@
+/*
+Allocation-free computation of the sun angles in the satellite frame (VVLH).
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.orekit.bodies.*;
+import org.orekit.frames.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// Computes azimuth, elevation and subsolar angle from the spacecraft state and the Sun position, both given in the
+// same inertial frame. The VVLH axes are built directly from position and velocity (Z = -r, Y = -h, X = Y x Z), which
+// is the rotation Orekit's LOFType.VVLH applies, so no LocalOrbitalFrame and no second ephemeris lookup are needed.
+// Results agree with the frame-based path (ComputeReference) to better than Tolerance.
+//
+// The optional extra columns reuse the satellite axes and the Sun vector of the same step: Earth azimuth and elevation
+// in satellite axes (same conventions as for the Sun; nadir pointing gives 0 and 90 deg), the angular radius of the
+// Earth, and umbra and penumbra flags from the apparent disks of a spherical Earth and Sun.
+final class SunAngleKernel
+{
+    // Maximum deviation from the frame-based path [deg].
+    static final double Tolerance = 1e-6;
+
+    // Extra columns, selected by name in ExpExtraColumns
+    static final String[] ExtraNames = {"EarthAzimuth", "EarthElevation", "EarthRadius", "Umbra", "Penumbra"};
+    static final String[] ExtraHeaders = {"Earth Azimuth (deg)", "Earth Elevation (deg)", "Earth Angular Radius (deg)", "Umbra", "Penumbra"};
+    static final boolean[] ExtraIsFlag = {false, false, false, true, true};
+
+    // Results of the last call to Compute [deg].
+    double Azimuth;
+    double Elevation;
+    double Subsolar;
+
+    // Satellite position, axes and Sun position as seen from the satellite of the last call to Compute.
+    private double px, py, pz, rNorm, xx, xy, xz, yx, yy, yz, zx, zy, zz, dx, dy, dz;
+    private final double[] Extra = new double[ExtraNames.length];
+
+    // Compute angles from primitive position [m], velocity [m/s] and Sun position [m].
+    void Compute(double px, double py, double pz, double vx, double vy, double vz, double sx, double sy, double sz)
+    {
+        this.px = px;
+        this.py = py;
+        this.pz = pz;
+
+        // Z axis: nadir.
+        rNorm = Math.sqrt(px * px + py * py + pz * pz);
+        zx = -px / rNorm;
+        zy = -py / rNorm;
+        zz = -pz / rNorm;
+
+        // Y axis: negative orbit normal, made exactly orthogonal to Z.
+        double hx = py * vz - pz * vy, hy = pz * vx - px * vz, hz = px * vy - py * vx;
+        double hDotZ = hx * zx + hy * zy + hz * zz;
+        hx -= hDotZ * zx;
+        hy -= hDotZ * zy;
+        hz -= hDotZ * zz;
+        double hNorm = Math.sqrt(hx * hx + hy * hy + hz * hz);
+        yx = -hx / hNorm;
+        yy = -hy / hNorm;
+        yz = -hz / hNorm;
+
+        // X axis: completes the right-handed triad.
+        xx = yy * zz - yz * zy;
+        xy = yz * zx - yx * zz;
+        xz = yx * zy - yy * zx;
+
+        // Sun position as seen from the satellite, in satellite axes.
+        dx = sx - px;
+        dy = sy - py;
+        dz = sz - pz;
+        double Sx = dx * xx + dy * xy + dz * xz;
+        double Sy = dx * yx + dy * yy + dz * yz;
+        double Sz = dx * zx + dy * zy + dz * zz;
+
+        // Angles, same sign conventions as the frame-based path.
+        double ProjXY = Math.sqrt(Sx * Sx + Sy * Sy);
+        Azimuth = Math.toDegrees(Math.atan2(Math.abs(Sy), Sx));
+        Elevation = Math.toDegrees(Math.atan2(Math.abs(Sz), ProjXY));
+        if (Sy < 0) {
+            Azimuth = 360 - Azimuth;
+        }
+        if (Sz < 0) {
+            Elevation = -Elevation;
+        }
+
+        // Subsolar angle between Earth-Sun and Earth-satellite directions.
+        double cx = sy * pz - sz * py, cy = sz * px - sx * pz, cz = sx * py - sy * px;
+        Subsolar = Math.toDegrees(Math.atan2(Math.sqrt(cx * cx + cy * cy + cz * cz), sx * px + sy * py + sz * pz));
+    }
+
+    // Indices into ExtraNames of a list of column names separated by ';', empty for none.
+    static int[] SelectExtra(String Names)
+    {
+        List<Integer> Selection = new ArrayList<>();
+        for (String Name : Names.split(";")) {
+            if (Name.trim().isEmpty()) {
+                continue;
+            }
+            int Index = Arrays.asList(ExtraNames).indexOf(Name.trim());
+            if (Index < 0) {
+                throw new IllegalArgumentException("Unknown output column <" + Name.trim() + ">, use " + String.join(", ", ExtraNames) + ".");
+            }
+            Selection.add(Index);
+        }
+        int[] Result = new int[Selection.size()];
+        for (int k = 0; k < Result.length; k++) {
+            Result[k] = Selection.get(k);
+        }
+        return Result;
+    }
+
+    // Extra columns of the last call to Compute, Out[k] for column Selection[k]. Flags are 0 or 1.
+    void ComputeExtra(int[] Selection, double[] Out)
+    {
+        if (Selection.length == 0) {
+            return;
+        }
+
+        // Earth center as seen from the satellite, in satellite axes.
+        double Ex = -(px * xx + py * xy + pz * xz);
+        double Ey = -(px * yx + py * yy + pz * yz);
+        double Ez = -(px * zx + py * zy + pz * zz);
+        double ProjXY = Math.sqrt(Ex * Ex + Ey * Ey);
+        double EarthAzimuth = 0, EarthElevation = Ez < 0 ? -90 : 90;
+        if (ProjXY > 1e-12 * rNorm) {    // Earth off the Z axis
+            EarthAzimuth = Math.toDegrees(Math.atan2(Math.abs(Ey), Ex));
+            EarthElevation = Math.toDegrees(Math.atan2(Math.abs(Ez), ProjXY));
+            if (Ey < 0) {
+                EarthAzimuth = 360 - EarthAzimuth;
+            }
+            if (Ez < 0) {
+                EarthElevation = -EarthElevation;
+            }
+        }
+
+        // Apparent radii of Earth and Sun and their separation as seen from the satellite, compared through their
+        // sines and cosines: umbra if the separation is at most the difference of the radii, penumbra if less than
+        // their sum.
+        double SinEarth = Math.min(1, Constants.WGS84_EARTH_EQUATORIAL_RADIUS / rNorm);
+        double CosEarth = Math.sqrt(1 - SinEarth * SinEarth);
+        double dNorm = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        double SinSun = Math.min(1, Constants.SUN_RADIUS / dNorm);
+        double CosSun = Math.sqrt(1 - SinSun * SinSun);
+        double CosSeparation = -(px * dx + py * dy + pz * dz) / (rNorm * dNorm);
+        boolean fUmbra = SinEarth >= SinSun && CosSeparation >= CosEarth * CosSun + SinEarth * SinSun;
+        boolean fPenumbra = !fUmbra && CosSeparation > CosEarth * CosSun - SinEarth * SinSun;
+
+        // The angular radius needs an inverse trigonometric function, computed only if selected.
+        Extra[0] = EarthAzimuth;
+        Extra[1] = EarthElevation;
+        Extra[3] = fUmbra ? 1 : 0;
+        Extra[4] = fPenumbra ? 1 : 0;
+        for (int k = 0; k < Selection.length; k++) {
+            Out[k] = Selection[k] == 2 ? Math.toDegrees(Math.atan2(SinEarth, CosEarth)) : Extra[Selection[k]];
+        }
+    }
+
+    // Compute angles from a spacecraft PV and the Sun position in the same inertial frame.
+    void Compute(PVCoordinates SatPV, Vector3D Earth2Sun)
+    {
+        Vector3D p = SatPV.getPosition();
+        Vector3D v = SatPV.getVelocity();
+        Compute(p.getX(), p.getY(), p.getZ(), v.getX(), v.getY(), v.getZ(),
+                Earth2Sun.getX(), Earth2Sun.getY(), Earth2Sun.getZ());
+    }
+
+    // Compute angles from a spacecraft PV and the Sun position {x, y, z} in the same inertial frame.
+    void Compute(PVCoordinates SatPV, double[] Earth2Sun)
+    {
+        Vector3D p = SatPV.getPosition();
+        Vector3D v = SatPV.getVelocity();
+        Compute(p.getX(), p.getY(), p.getZ(), v.getX(), v.getY(), v.getZ(), Earth2Sun[0], Earth2Sun[1], Earth2Sun[2]);
+    }
+
+    // Reference computation through a LocalOrbitalFrame, as originally done in Main. Returns {azimuth, elevation, subsolar}.
+    static double[] ComputeReference(TimeStampedPVCoordinates SatPV, CelestialBody Sun, Frame InertialFrame)
+    {
+        AbsoluteDate Date = SatPV.getDate();
+        LocalOrbitalFrame SatelliteFrame = new LocalOrbitalFrame(InertialFrame, LOFType.VVLH,
+                SatPV.toTaylorProvider(InertialFrame), "Satellite Frame");
+        Vector3D Earth2Sun = Sun.getPVCoordinates(Date, InertialFrame).getPosition();
+        Vector3D Sat2Sun = Sun.getPVCoordinates(Date, SatelliteFrame).getPosition();
+        Vector3D Sat2SunProjXY = new Vector3D(Sat2Sun.getX(), Sat2Sun.getY(), 0.0);
+
+        double Subsolar = Math.toDegrees(Vector3D.angle(Earth2Sun, SatPV.getPosition()));
+        double SunAzimuth = Math.toDegrees(Vector3D.angle(Vector3D.PLUS_I, Sat2SunProjXY));
+        double SunElevation = Math.toDegrees(Vector3D.angle(Sat2Sun, Sat2SunProjXY));
+        if (Sat2Sun.getY() < 0) {
+            SunAzimuth = 360 - SunAzimuth;
+        }
+        if (Sat2Sun.getZ() < 0) {
+            SunElevation = -SunElevation;
+        }
+        return new double[] {SunAzimuth, SunElevation, Subsolar};
+    }
+
+    // Largest deviation of the last Compute result from a reference result [deg], azimuth taken modulo 360.
+    double Deviation(double[] Reference)
+    {
+        return Deviation(new double[] {Azimuth, Elevation, Subsolar}, Reference);
+    }
+
+    // Largest deviation of {azimuth, elevation, subsolar, ...} from a reference result [deg], azimuth modulo 360.
+    static double Deviation(double[] Angles, double[] Reference)
+    {
+        double dAz = Math.abs(Angles[0] - Reference[0]);
+        dAz = Math.min(dAz, 360 - dAz);
+        return Math.max(dAz, Math.max(Math.abs(Angles[1] - Reference[1]), Math.abs(Angles[2] - Reference[2])));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+Output target for the sun angle rows.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.IOException;
+import org.orekit.time.*;
+
+// Receives one row per propagated time step. Implementations buffer as they like; Close flushes everything. Extra
+// holds the values of the selected extra columns (see SunAngleKernel.ExtraNames) and is reused by the caller.
+interface SunAngleSink
+{
+    double[] NoExtra = new double[0];
+
+    void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra) throws IOException;
+
+    default void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar) throws IOException
+    {
+        Write(Date, Azimuth, Elevation, Subsolar, NoExtra);
+    }
+
+    void Close() throws IOException;
+
+    // Forward rows to two sinks.
+    static SunAngleSink Both(SunAngleSink First, SunAngleSink Second)
+    {
+        return new SunAngleSink() {
+            public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra)
+                    throws IOException
+            {
+                First.Write(Date, Azimuth, Elevation, Subsolar, Extra);
+                Second.Write(Date, Azimuth, Elevation, Subsolar, Extra);
+            }
+
+            public void Close() throws IOException
+            {
+                First.Close();
+                Second.Close();
+            }
+        };
+    }
+}
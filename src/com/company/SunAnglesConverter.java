@@ -0,0 +1,55 @@
+/*
+Converts binary sun angle files into the STK-style CSV format.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+
+// Usage: SunAnglesConverter <binary file> [<csv file>], run in the directory of the settings file (set.xml), which
+// gives the Orekit data as for the simulation.
+public class SunAnglesConverter
+{
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.out.println("Usage: SunAnglesConverter <binary file> [<csv file>]");
+            return;
+        }
+        String BinaryPath = args[0];
+        String CsvPath = args.length > 1 ? args[1] : BinaryPath.replaceFirst("\\.bin$", "") + ".csv";
+        Main.LoadOrekitData(new Settings());
+        long Rows = Convert(BinaryPath, CsvPath, "UTF-8");
+        System.out.println("Converted " + Rows + " rows to <" + CsvPath + ">.");
+    }
+
+    // Convert a binary sun angle file to CSV, returns the number of rows.
+    static long Convert(String BinaryPath, String CsvPath, String Encoding) throws IOException
+    {
+        try (BinarySunAngleReader In = new BinarySunAngleReader(BinaryPath)) {
+            PrintWriter Writer = new PrintWriter(CsvPath, Encoding);
+            Writer.println(CsvSunAngleSink.Header(In.ExtraColumns));
+            SunAngleSink Out = new FastCsvSunAngleSink(Writer, In.ExtraColumns);
+            try {
+                return In.ReadAll(Out);
+            } finally {
+                Out.Close();
+            }
+        }
+    }
+}
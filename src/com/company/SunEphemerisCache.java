@@ -0,0 +1,211 @@
+/*
+Sun positions sampled over a time span and interpolated for the step loop.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.orekit.bodies.*;
+import org.orekit.frames.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// Samples the Sun ephemeris (position and velocity) at a fixed cadence and interpolates between two nodes with a cubic
+// Hermite polynomial. The cadence starts from a bound derived from the Earth's annual and monthly (Moon) motion and is
+// halved until the direction error at 1/4, 1/2 and 3/4 of all intervals is below the accuracy bound. The error bound
+// peaks at the midpoint, the other two points catch errors that peak off-center when the motions superpose. Caches are
+// shared by all scenarios of the JVM through Get, so sweep cases over the same dates sample the ephemeris only once;
+// spans where an accuracy could not be reached are remembered, too.
+final class SunEphemerisCache
+{
+    // Smallest cadence tried (s); below it the ephemeris is used directly.
+    private static final double MinCadence = 60;
+
+    // Fractions of an interval at which the interpolation is checked.
+    private static final double[] CheckPoints = {0.25, 0.5, 0.75};
+
+    // Largest number of caches kept for reuse.
+    private static final int MaxCaches = 8;
+    private static final List<SunEphemerisCache> Caches = new ArrayList<>();
+    private static final List<Failure> Failures = new ArrayList<>();
+
+    // Span of a cache that did not reach its accuracy with the smallest cadence.
+    private static final class Failure
+    {
+        final CelestialBody Sun;
+        final Frame InertialFrame;
+        final AbsoluteDate Start, End;
+        final double Accuracy;
+
+        Failure(SunEphemerisCache Cache)
+        {
+            Sun = Cache.Sun;
+            InertialFrame = Cache.InertialFrame;
+            Start = Cache.Epoch;
+            End = Cache.Epoch.shiftedBy(Cache.Span);
+            Accuracy = Cache.Accuracy;
+        }
+    }
+
+    private final CelestialBody Sun;
+    private final Frame InertialFrame;
+    private final AbsoluteDate Epoch;
+    private final double Span, Accuracy;
+    final double Cadence;                   // (s)
+    final double MaxDeviation;              // largest direction error at the check points (deg)
+    private final double[] X, Y, Z, VX, VY, VZ;
+
+    private SunEphemerisCache(CelestialBody sun, Frame inertialFrame, AbsoluteDate start, AbsoluteDate end,
+                              double accuracy)
+    {
+        Sun = sun;
+        InertialFrame = inertialFrame;
+        Epoch = start;
+        Span = end.durationFrom(start);
+        Accuracy = accuracy;
+
+        // Cubic Hermite error for a circular motion of radius r and rate w is r (w h)^4 / 384. The Earth's wobble
+        // around the Earth-Moon barycenter (4700 km, 27.3 days) dominates the annual motion.
+        double Rate = 2 * Math.PI / (27.32 * 86400);
+        double Relative = Math.toRadians(accuracy) * 1.496e11 / 4.7e6;
+        double h = Math.min(86400, Math.pow(384 * Relative, 0.25) / Rate);
+        double[][] Nodes;
+        while (true) {
+            int n = (int) Math.ceil(Span / h);
+            h = Span / Math.max(n, 1);
+            Nodes = Sample(Math.max(n, 1), h);
+            double Deviation = Verify(Nodes, h);
+            if (Deviation <= accuracy || h <= MinCadence) {
+                MaxDeviation = Deviation;
+                break;
+            }
+            h /= 2;
+        }
+        Cadence = h;
+        X = Nodes[0];
+        Y = Nodes[1];
+        Z = Nodes[2];
+        VX = Nodes[3];
+        VY = Nodes[4];
+        VZ = Nodes[5];
+    }
+
+    // Cache covering [Start, End] with the given accuracy (deg), reused if an existing one does. Returns null if the
+    // accuracy cannot be reached with the smallest cadence, without sampling again if that was seen for the same span
+    // and an accuracy at least as large.
+    static synchronized SunEphemerisCache Get(CelestialBody Sun, Frame InertialFrame, AbsoluteDate Start,
+                                              AbsoluteDate End, double Accuracy)
+    {
+        for (SunEphemerisCache Cache : Caches) {
+            if (Cache.Sun == Sun && Cache.InertialFrame == InertialFrame && Cache.Accuracy <= Accuracy
+                    && Cache.Covers(Start) && Cache.Covers(End)) {
+                return Cache;
+            }
+        }
+        for (Failure Failed : Failures) {
+            if (Failed.Sun == Sun && Failed.InertialFrame == InertialFrame && Failed.Accuracy >= Accuracy
+                    && Start.compareTo(Failed.Start) >= 0 && End.compareTo(Failed.End) <= 0) {
+                return null;
+            }
+        }
+        // Pad by one day on either side, so neighbouring ranges are likely to be covered, too.
+        SunEphemerisCache Cache = new SunEphemerisCache(Sun, InertialFrame, Start.shiftedBy(-86400),
+                End.shiftedBy(86400), Accuracy);
+        if (Cache.MaxDeviation > Accuracy) {
+            if (Failures.size() == MaxCaches) {
+                Failures.remove(0);
+            }
+            Failures.add(new Failure(Cache));
+            return null;
+        }
+        if (Caches.size() == MaxCaches) {
+            Caches.remove(0);
+        }
+        Caches.add(Cache);
+        return Cache;
+    }
+
+    boolean Covers(AbsoluteDate Date)
+    {
+        double t = Date.durationFrom(Epoch);
+        return t >= 0 && t <= Span;
+    }
+
+    // Positions and velocities at n + 1 nodes, as {x, y, z, vx, vy, vz} arrays.
+    private double[][] Sample(int n, double h)
+    {
+        double[][] Nodes = new double[6][n + 1];
+        for (int i = 0; i <= n; i++) {
+            PVCoordinates PV = Sun.getPVCoordinates(Epoch.shiftedBy(i * h), InertialFrame);
+            Nodes[0][i] = PV.getPosition().getX();
+            Nodes[1][i] = PV.getPosition().getY();
+            Nodes[2][i] = PV.getPosition().getZ();
+            Nodes[3][i] = PV.getVelocity().getX();
+            Nodes[4][i] = PV.getVelocity().getY();
+            Nodes[5][i] = PV.getVelocity().getZ();
+        }
+        return Nodes;
+    }
+
+    // Largest angle (deg) between interpolated and direct Sun position at 1/4, 1/2 and 3/4 of each interval.
+    private double Verify(double[][] Nodes, double h)
+    {
+        double Max = 0;
+        double[] Interpolated = new double[3];
+        for (int i = 0; i < Nodes[0].length - 1; i++) {
+            for (double Fraction : CheckPoints) {
+                double t = (i + Fraction) * h;
+                Interpolate(Nodes[0], Nodes[1], Nodes[2], Nodes[3], Nodes[4], Nodes[5], h, t, Interpolated);
+                Vector3D Direct = Sun.getPVCoordinates(Epoch.shiftedBy(t), InertialFrame).getPosition();
+                Max = Math.max(Max, Math.toDegrees(Vector3D.angle(Direct, new Vector3D(Interpolated))));
+            }
+        }
+        return Max;
+    }
+
+    // Sun position (m) in the inertial frame at a date within the cache span into Out.
+    void Position(AbsoluteDate Date, double[] Out)
+    {
+        Position(Date.durationFrom(Epoch), Out);
+    }
+
+    // Sun position (m) at t seconds after the start of the cache span into Out.
+    void Position(double t, double[] Out)
+    {
+        if (t < 0 || t > Span) {
+            throw new IllegalArgumentException("Date outside of the Sun ephemeris cache span.");
+        }
+        Interpolate(X, Y, Z, VX, VY, VZ, Cadence, t, Out);
+    }
+
+    // Cubic Hermite interpolation between the nodes around t.
+    private static void Interpolate(double[] X, double[] Y, double[] Z, double[] VX, double[] VY, double[] VZ,
+                                    double h, double t, double[] Out)
+    {
+        int i = Math.min((int) (t / h), X.length - 2);
+        double s = t / h - i, s2 = s * s, s3 = s2 * s;
+        double h00 = 2 * s3 - 3 * s2 + 1, h10 = (s3 - 2 * s2 + s) * h, h01 = -2 * s3 + 3 * s2, h11 = (s3 - s2) * h;
+        Out[0] = h00 * X[i] + h10 * VX[i] + h01 * X[i + 1] + h11 * VX[i + 1];
+        Out[1] = h00 * Y[i] + h10 * VY[i] + h01 * Y[i + 1] + h11 * VY[i + 1];
+        Out[2] = h00 * Z[i] + h10 * VZ[i] + h01 * Z[i + 1] + h11 * VZ[i + 1];
+    }
+}
@@ -0,0 +1,228 @@
+/*
+Batch run over a grid of settings values within one JVM.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// The sweep file has the same XML format as the settings file. Each entry overrides a settings key with a list of
+// values separated by ';' (e.g. "97.4;97.5;98.0") or a range "start:step:end" (e.g. "400000:50000:600000"). Keys
+// whose values contain ';' or ':' themselves (station lists, elevation masks etc.) take one entry "Key[n]" per value
+// instead, e.g. "GroundStation.Freiburg.ElevationMask[1]" = "0:5;90:10", used as given in the order of n. Every
+// combination is run as a separate case. Orekit frames, the Sun and EOP data are loaded once and shared by all cases.
+class SweepRun
+{
+    private static final Pattern CompoundKeys = Pattern.compile(
+            "^(?:GroundStations|Constellation|SimComparePropagators|ExpExtraColumns|GroundStation\\..+\\.ElevationMask)$");
+    private static final Pattern IndexedKey = Pattern.compile("^(.+)\\[(\\d+)\\]$");
+
+    private final Settings Set;
+    private final List<String> Keys = new ArrayList<>();
+    private final List<List<String>> Values = new ArrayList<>();
+    private final List<Map<String, String>> Cases = new ArrayList<>();
+    private final int Threads;
+
+    SweepRun(Settings set, String SweepFile) throws IOException
+    {
+        Set = set;
+        int threads = Integer.parseInt(Set.GetValue("SimThreads", "1"));
+        Threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        // Read grid definition, keys in alphabetical order for a reproducible case numbering.
+        Properties Grid = new Properties();
+        try (InputStream In = new FileInputStream(SweepFile)) {
+            Grid.loadFromXML(In);
+        }
+        Map<String, List<String>> Parsed = new TreeMap<>();
+        Map<String, TreeMap<Integer, String>> Indexed = new TreeMap<>();
+        for (String Entry : Grid.stringPropertyNames()) {
+            Matcher Index = IndexedKey.matcher(Entry);
+            if (Index.matches()) {
+                Indexed.computeIfAbsent(Index.group(1), Key -> new TreeMap<>())
+                        .put(Integer.parseInt(Index.group(2)), Grid.getProperty(Entry).trim());
+            } else if (CompoundKeys.matcher(Entry).matches()) {
+                throw new IllegalArgumentException("Values of " + Entry + " contain ';' or ':', give one entry "
+                        + Entry + "[1], " + Entry + "[2], ... per value in the sweep file.");
+            } else {
+                Parsed.put(Entry, ParseValues(Grid.getProperty(Entry)));
+            }
+        }
+        for (Map.Entry<String, TreeMap<Integer, String>> Entry : Indexed.entrySet()) {
+            if (Parsed.containsKey(Entry.getKey())) {
+                throw new IllegalArgumentException("Sweep key " + Entry.getKey() + " is given both as list and per value.");
+            }
+            Parsed.put(Entry.getKey(), new ArrayList<>(Entry.getValue().values()));
+        }
+        for (Map.Entry<String, List<String>> Entry : Parsed.entrySet()) {
+            Keys.add(Entry.getKey());
+            Values.add(Entry.getValue());
+        }
+        if (Settings.fDisplayMessages) {
+            System.out.println("Read sweep file <" + SweepFile + ">:");
+            for (int k = 0; k < Keys.size(); k++) {
+                System.out.println("\t" + Keys.get(k) + " = " + Values.get(k));
+            }
+        }
+
+        // Build all combinations, last key varying fastest.
+        Cases.add(new LinkedHashMap<>());
+        for (int k = 0; k < Keys.size(); k++) {
+            List<Map<String, String>> Expanded = new ArrayList<>();
+            for (Map<String, String> Case : Cases) {
+                for (String Value : Values.get(k)) {
+                    Map<String, String> NewCase = new LinkedHashMap<>(Case);
+                    NewCase.put(Keys.get(k), Value);
+                    Expanded.add(NewCase);
+                }
+            }
+            Cases.clear();
+            Cases.addAll(Expanded);
+        }
+    }
+
+    // Expand a range "start:step:end" or a list "a;b;c" into single values.
+    static List<String> ParseValues(String Definition)
+    {
+        List<String> Result = new ArrayList<>();
+        String[] Range = Definition.trim().split(":");
+        if (Range.length == 3) {
+            try {
+                BigDecimal Start = new BigDecimal(Range[0].trim());
+                BigDecimal Step = new BigDecimal(Range[1].trim());
+                BigDecimal End = new BigDecimal(Range[2].trim());
+                if (Step.signum() == 0) {
+                    throw new IllegalArgumentException("Step of range <" + Definition + "> must not be zero.");
+                }
+                for (BigDecimal Value = Start; Step.signum() > 0 ? Value.compareTo(End) <= 0 : Value.compareTo(End) >= 0;
+                     Value = Value.add(Step)) {
+                    Result.add(Value.stripTrailingZeros().toPlainString());
+                }
+                return Result;
+            } catch (NumberFormatException e) {
+                // Not a numeric range (e.g. a path with a drive letter), treat as list.
+            }
+        }
+        for (String Value : Definition.split(";")) {
+            if (!Value.trim().isEmpty()) {
+                Result.add(Value.trim());
+            }
+        }
+        return Result;
+    }
+
+    // Settings of all cases, e.g. to load the Orekit data for their time frames.
+    List<Settings> CaseSettings()
+    {
+        List<Settings> Result = new ArrayList<>();
+        for (Map<String, String> Case : Cases) {
+            Result.add(new Settings(Set, Case));
+        }
+        return Result;
+    }
+
+    // Insert the case name in front of a file name.
+    private static String CaseFileName(String FileName, String CaseName)
+    {
+        return CaseName + "_" + FileName;
+    }
+
+    void Execute() throws Exception
+    {
+        // With a TLE, SGP4 ignores the Sat* orbit keys, so sweeping them would run identical cases.
+        for (Map<String, String> Case : Cases) {
+            if (PropagatorBackend.GivenTLE(new Settings(Set, Case)) != null) {
+                for (String Key : ConstellationRun.OrbitKeys) {
+                    if (Case.containsKey(Key) && !Key.startsWith("SatTLE")) {
+                        throw new IllegalArgumentException("Sweep over " + Key + " cannot be combined with SatTLELine1 and SatTLELine2 for SGP4.");
+                    }
+                }
+            }
+        }
+
+        System.out.print("Running " + Cases.size() + " cases on " + Threads + " threads ");
+
+        // Run cases on the worker pool, each case on a single thread.
+        long SweepStartTime = System.currentTimeMillis();
+        List<Callable<String>> Tasks = new ArrayList<>();
+        int ProgressInterval = Math.max(1, Math.round(Cases.size() / 10.0f));
+        for (int c = 0; c < Cases.size(); c++) {
+            String CaseName = String.format("Case%04d", c + 1);
+            Map<String, String> Overrides = new LinkedHashMap<>(Cases.get(c));
+            Overrides.put("ExpFileSunAngles", CaseFileName(Set.GetValue("ExpFileSunAngles"), CaseName));
+            Overrides.put("ExpFileAccessTimes", CaseFileName(Set.GetValue("ExpFileAccessTimes"), CaseName));
+            if (!Set.GetValue("ExpFileSunAnglesBinary", "").isEmpty()) {
+                Overrides.put("ExpFileSunAnglesBinary", CaseFileName(Set.GetValue("ExpFileSunAnglesBinary"), CaseName));
+            }
+            Settings CaseSet = new Settings(Set, Overrides);
+            Map<String, String> CaseValues = Cases.get(c);
+            boolean fProgress = c % ProgressInterval == 0;
+            Tasks.add(() -> {
+                long CaseStartTime = System.currentTimeMillis();
+                PropagationRun Run = new PropagationRun(CaseSet, new Scenario(CaseSet, null, false), 1);
+                Run.fShowProgress = false;
+                Run.Execute();
+                if (fProgress) {
+                    System.out.print(".");
+                }
+                StringBuilder Row = new StringBuilder(CaseName);
+                for (String Key : Keys) {
+                    Row.append(',').append(CaseValues.get(Key));
+                }
+                Row.append(String.format(Settings.LocalFormat, ",%d,%.3f,%.3f", Run.AccessCount, Run.AccessDuration,
+                        (System.currentTimeMillis() - CaseStartTime) / 1000.0));
+                return Row.toString();
+            });
+        }
+        ForkJoinPool Pool = new ForkJoinPool(Threads);
+        List<String> Rows = new ArrayList<>();
+        try {
+            for (Future<String> Result : Pool.invokeAll(Tasks)) {
+                Rows.add(Result.get());
+            }
+        } finally {
+            Pool.shutdown();
+        }
+        double SweepDuration = (System.currentTimeMillis() - SweepStartTime) / 1000.0;
+
+        // Write summary table.
+        String FilePath = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFileSweepSummary", "SweepSummary.csv");
+        try (PrintWriter Summary = new PrintWriter(FilePath, Set.GetValue("ExpTextFormat"))) {
+            StringBuilder Header = new StringBuilder("\"Case\"");
+            for (String Key : Keys) {
+                Header.append(",\"").append(Key).append('"');
+            }
+            Header.append(",\"Accesses\",\"Access Duration (sec)\",\"Elapsed (sec)\"");
+            Summary.println(Header);
+            for (String Row : Rows) {
+                Summary.println(Row);
+            }
+        }
+        System.out.print(" " + Cases.size() + " cases in " + SweepDuration + " s ("
+                + String.format(Settings.LocalFormat, "%.1f", Cases.size() * 3600.0 / Math.max(SweepDuration, 1e-3))
+                + " cases/h),");
+    }
+}
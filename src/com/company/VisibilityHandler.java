@@ -20,34 +20,67 @@ Contact: max.gulde@emi.fraunhofer.de
 
 package com.company;
 
-import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
 import org.orekit.time.*;
 import org.orekit.propagation.*;
 import org.orekit.propagation.events.*;
 import org.orekit.propagation.events.handlers.*;
 
 // EventHandler
-public class VisibilityHandler implements EventHandler<ElevationDetector> {
+public class VisibilityHandler implements EventHandler<EventDetector> {
 
-    private PrintWriter AccessWriter;
+    private final String Station;
+    private AccessSink Output;
     private AbsoluteDate AccessBegin;
-    private int AccessNum = 1;
 
-    VisibilityHandler(Settings set)
+    // Chunk mode: accesses are collected instead of written. Entries are {begin, end}, end is null if the access is
+    // still open at the end of the chunk.
+    private List<AbsoluteDate[]> Accesses;
+    private AbsoluteDate ChunkStart;
+    // Chunk started with the satellite in view, its first access continues an access open in the preceding chunk.
+    private boolean fStartInView;
+
+    // Rise and set dates are added here if not null, e.g. for adaptive sampling.
+    List<AbsoluteDate> Events;
+
+    VisibilityHandler(AccessSink output, String station)
     {
-        // Write header to access file
-        try {
-            String FilePath = set.GetValue("ResultsDirectory") + "/" + set.GetValue("ExpFileAccessTimes");
-            AccessWriter = new PrintWriter(FilePath, set.GetValue("ExpTextFormat"));
-            AccessWriter.println("\"Access\",\"Start Time (UTCG)\",\"Stop Time (UTCG)\",\"Duration (sec)\"");
-        }
-        catch (Exception e)
-        {
-            System.out.println("Error: Could not setup access file:" + e.toString());
+        Output = output;
+        Station = station;
+    }
+
+    // Collect accesses of one time chunk for later stitching.
+    VisibilityHandler(String station, AbsoluteDate chunkStart)
+    {
+        Station = station;
+        Accesses = new ArrayList<>();
+        ChunkStart = chunkStart;
+    }
+
+    // Accesses of a chunk computed earlier, e.g. a cached run, in the form FinishChunk leaves them.
+    VisibilityHandler(String station, AbsoluteDate chunkStart, List<AbsoluteDate[]> accesses)
+    {
+        Station = station;
+        Accesses = new ArrayList<>(accesses);
+        ChunkStart = chunkStart;
+        fStartInView = !accesses.isEmpty() && chunkStart.equals(accesses.get(0)[0]);
+    }
+
+    // Satellite is already in view at the start of the propagation. An access still open from a preceding propagation
+    // with the same handler is continued.
+    void StartInView(AbsoluteDate date)
+    {
+        if (AccessBegin == null) {
+            AccessBegin = date;
         }
+        fStartInView = true;
     }
 
-    public Action eventOccurred(final SpacecraftState s, final ElevationDetector detector, final boolean increasing) {
+    public Action eventOccurred(final SpacecraftState s, final EventDetector detector, final boolean increasing) {
+        if (Events != null) {
+            Events.add(s.getDate());
+        }
         // Satellite entering access zone
         if (increasing) {
             AccessBegin = s.getDate();
@@ -55,33 +88,60 @@ public class VisibilityHandler implements EventHandler<ElevationDetector> {
         // Satellite is exiting access zone, write access
         } else {
             AbsoluteDate AccessEnd = s.getDate();
-            // Extract date, time and duration of the access.
-            try {
-                double visDuration = AccessEnd.durationFrom(AccessBegin);
-                DateTimeComponents compsBegin = AccessBegin.getComponents(0);
-                DateTimeComponents compsEnd = AccessEnd.getComponents(0);
-                DateComponents dateBegin = compsBegin.getDate();
-                DateComponents dateEnd = compsEnd.getDate();
-                TimeComponents timeBegin = compsBegin.getTime();
-                TimeComponents timeEnd = compsEnd.getTime();
-
-                // Write access into file.
-                AccessWriter.printf(Settings.LocalFormat, "%d,%d %s %d %02d:%02d:%06.3f,%d %s %d %02d:%02d:%06.3f,%07.3f\n",
-                        AccessNum++,
-                        dateBegin.getDay(), dateBegin.getMonthEnum().getCapitalizedAbbreviation(),
-                        dateBegin.getYear(), timeBegin.getHour(), timeBegin.getMinute(), timeBegin.getSecond(),
-                        dateEnd.getDay(), dateEnd.getMonthEnum().getCapitalizedAbbreviation(), dateEnd.getYear(),
-                        timeEnd.getHour(), timeEnd.getMinute(), timeEnd.getSecond(), visDuration);
-            } catch (Exception e) {
-                System.out.println("Error: Writing to access file failed:" + e.toString());
+            if (Accesses != null) {
+                Accesses.add(new AbsoluteDate[] {AccessBegin, AccessEnd});
+            } else if (AccessBegin != null) {
+                Output.WriteAccess(Station, AccessBegin, AccessEnd);
             }
+            AccessBegin = null;
 
-            return Action.STOP;
+            return Action.CONTINUE;
+        }
+    }
+
+    // Close the collection of a chunk: an access still in progress is kept as open entry.
+    void FinishChunk()
+    {
+        if (Accesses != null && AccessBegin != null) {
+            Accesses.add(new AbsoluteDate[] {AccessBegin, null});
+            AccessBegin = null;
         }
     }
 
-    void CloseFile()
+    // Join the accesses collected by consecutive chunks of one station. An access open at the end of one chunk is
+    // joined with the access the next chunk starts in view with.
+    static List<AbsoluteDate[]> Stitch(List<VisibilityHandler> Chunks)
+    {
+        return Stitch(Chunks, false);
+    }
+
+    // As above, an access still open at the end of the last chunk is kept as open entry if fKeepOpen.
+    static List<AbsoluteDate[]> Stitch(List<VisibilityHandler> Chunks, boolean fKeepOpen)
     {
-        AccessWriter.close();
+        List<AbsoluteDate[]> Result = new ArrayList<>();
+        AbsoluteDate PendingBegin = null;
+        for (VisibilityHandler Chunk : Chunks) {
+            // An open access ends at the start of a chunk that does not start in view, with or without accesses.
+            if (PendingBegin != null && !Chunk.fStartInView) {
+                Result.add(new AbsoluteDate[] {PendingBegin, Chunk.ChunkStart});
+                PendingBegin = null;
+            }
+            for (AbsoluteDate[] Access : Chunk.Accesses) {
+                AbsoluteDate Begin = Access[0];
+                if (PendingBegin != null) {
+                    Begin = PendingBegin;
+                    PendingBegin = null;
+                }
+                if (Access[1] == null) {
+                    PendingBegin = Begin;
+                } else if (Begin != null) {
+                    Result.add(new AbsoluteDate[] {Begin, Access[1]});
+                }
+            }
+        }
+        if (fKeepOpen && PendingBegin != null) {
+            Result.add(new AbsoluteDate[] {PendingBegin, null});
+        }
+        return Result;
     }
 }
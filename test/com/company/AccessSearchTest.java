@@ -0,0 +1,211 @@
+/*
+Tests of the access search against the plain Orekit elevation detector.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.propagation.*;
+import org.orekit.propagation.events.*;
+import org.orekit.propagation.events.handlers.*;
+import org.orekit.time.*;
+import org.orekit.utils.ElevationMask;
+
+import static org.junit.Assert.*;
+
+// The reference is an ElevationDetector per station on the same orbit, sampled every second and converged far below
+// SimDivThreshold, so it sees every pass.
+public class AccessSearchTest
+{
+    private static final double MaxCheck = 900, Threshold = 0.001;
+    private static final double SvalbardMinElevation = 5;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        Settings.fDisplayMessages = false;
+    }
+
+    // Two stations, one at high latitude with many passes, and a max check interval longer than any pass. Svalbard has
+    // an elevation mask {azimuth, elevation} (deg) unless null.
+    private static Scenario CreateScenario(boolean fPrescreen, double[][] SvalbardMask)
+    {
+        Map<String, String> Overrides = new HashMap<>();
+        Overrides.put("SimStartYear", "2020");
+        Overrides.put("SimStartMonth", "03");
+        Overrides.put("SimStartDay", "01");
+        Overrides.put("SimMaxCheck", String.valueOf(MaxCheck));
+        Overrides.put("SimDivThreshold", String.valueOf(Threshold));
+        Overrides.put("SimSunCacheAccuracy", "0");
+        Overrides.put("SimStationPrescreen", String.valueOf(fPrescreen));
+        Overrides.put("GroundStations", "Freiburg;Svalbard");
+        Overrides.put("GroundStation.Freiburg.Lat", "48.001081");
+        Overrides.put("GroundStation.Freiburg.Lon", "7.846619");
+        Overrides.put("GroundStation.Freiburg.Alt", "320");
+        Overrides.put("GroundStation.Freiburg.MinElevation", "10");
+        Overrides.put("GroundStation.Svalbard.Lat", "78.23");
+        Overrides.put("GroundStation.Svalbard.Lon", "15.39");
+        Overrides.put("GroundStation.Svalbard.Alt", "500");
+        Overrides.put("GroundStation.Svalbard.MinElevation", String.valueOf(SvalbardMinElevation));
+        if (SvalbardMask != null) {
+            StringBuilder Mask = new StringBuilder();
+            for (double[] AzEl : SvalbardMask) {
+                Mask.append(Mask.length() > 0 ? ";" : "").append(AzEl[0]).append(':').append(AzEl[1]);
+            }
+            Overrides.put("GroundStation.Svalbard.ElevationMask", Mask.toString());
+        }
+        return new Scenario(new Settings(Settings.CreateDefault(), Overrides));
+    }
+
+    // Mask (rad) of the larger of a mask (deg, sorted by azimuth) and a minimum elevation (deg): the breakpoints and the
+    // azimuths at which the mask crosses the minimum elevation, so the linear interpolation is the same.
+    private static ElevationMask CombinedMask(double[][] Mask, double MinElevation)
+    {
+        List<double[]> Points = new ArrayList<>();
+        for (int k = 0; k < Mask.length; k++) {
+            double[] From = Mask[k], To = Mask[(k + 1) % Mask.length];
+            double ToAzimuth = k + 1 < Mask.length ? To[0] : To[0] + 360;
+            Points.add(new double[] {Math.toRadians(From[0]), Math.toRadians(Math.max(From[1], MinElevation))});
+            if ((From[1] - MinElevation) * (To[1] - MinElevation) < 0) {
+                double Azimuth = From[0] + (MinElevation - From[1]) / (To[1] - From[1]) * (ToAzimuth - From[0]);
+                Points.add(new double[] {Math.toRadians(Azimuth % 360), Math.toRadians(MinElevation)});
+            }
+        }
+        return new ElevationMask(Points.toArray(new double[0][]));
+    }
+
+    // Accesses of one station in [Start, End] from an ElevationDetector, an access in view at End is left open. Mask
+    // as in CreateScenario for Svalbard, null = minimum elevation only.
+    private static List<AbsoluteDate[]> Reference(Scenario Scen, int s, double[][] Mask, AbsoluteDate Start,
+                                                  AbsoluteDate End)
+    {
+        GroundStation Station = Scen.Stations.get(s);
+        List<AbsoluteDate[]> Accesses = new ArrayList<>();
+        AbsoluteDate[] Begin = new AbsoluteDate[1];
+        ElevationDetector Detector = new ElevationDetector(1, 1e-7, Station.Frame);
+        Detector = Mask == null ? Detector.withConstantElevation(Math.toRadians(Station.MinElevation))
+                : Detector.withElevationMask(CombinedMask(Mask, Station.MinElevation));
+        Detector = Detector.withHandler((State, Event, fIncreasing) -> {
+            if (fIncreasing) {
+                Begin[0] = State.getDate();
+            } else {
+                Accesses.add(new AbsoluteDate[] {Begin[0], State.getDate()});
+                Begin[0] = null;
+            }
+            return EventHandler.Action.CONTINUE;
+        });
+        Propagator Propagator = Scen.CreatePropagator();
+        if (Detector.g(Propagator.propagate(Start)) > 0) {
+            Begin[0] = Start;
+        }
+        Propagator.addEventDetector(Detector);
+        Propagator.propagate(Start, End);
+        if (Begin[0] != null) {
+            Accesses.add(new AbsoluteDate[] {Begin[0], null});
+        }
+        return Accesses;
+    }
+
+    // Accesses of one station in [Start, End] from the access search, stitched as in a chunked run.
+    private static List<List<AbsoluteDate[]>> Search(Scenario Scen, AbsoluteDate Start, AbsoluteDate End)
+    {
+        List<VisibilityHandler> Handlers = new ArrayList<>();
+        for (String Station : Scen.StationNames()) {
+            Handlers.add(new VisibilityHandler(Station, Start));
+        }
+        new AccessSearch(Scen, Handlers).Run(Start, End);
+        List<List<AbsoluteDate[]>> Accesses = new ArrayList<>();
+        for (VisibilityHandler Handler : Handlers) {
+            Handler.FinishChunk();
+            Accesses.add(VisibilityHandler.Stitch(Collections.singletonList(Handler), true));
+        }
+        return Accesses;
+    }
+
+    private static void AssertSameAccesses(String Case, List<AbsoluteDate[]> Expected, List<AbsoluteDate[]> Actual)
+    {
+        assertEquals(Case + ": accesses", Expected.size(), Actual.size());
+        for (int k = 0; k < Expected.size(); k++) {
+            for (int i = 0; i < 2; i++) {
+                if (Expected.get(k)[i] == null) {
+                    assertNull(Case + ": access " + k, Actual.get(k)[i]);
+                } else {
+                    double Deviation = Math.abs(Actual.get(k)[i].durationFrom(Expected.get(k)[i]));
+                    assertTrue(Case + ": access " + k + (i == 0 ? " rise" : " set") + " off by " + Deviation + " s",
+                            Deviation <= Threshold);
+                }
+            }
+        }
+    }
+
+    // Every pass of a day, with and without the pre-screen. Some passes are shorter than a third of the max check interval.
+    @Test
+    public void SameAccessesAsElevationDetector()
+    {
+        for (boolean fPrescreen : new boolean[] {true, false}) {
+            Scenario Scen = CreateScenario(fPrescreen, null);
+            List<List<AbsoluteDate[]>> Accesses = Search(Scen, Scen.TimeStart, Scen.TimeEnd);
+            boolean fShortPass = false;
+            for (int s = 0; s < Scen.Stations.size(); s++) {
+                List<AbsoluteDate[]> Expected = Reference(Scen, s, null, Scen.TimeStart, Scen.TimeEnd);
+                assertFalse(Expected.isEmpty());
+                for (AbsoluteDate[] Access : Expected) {
+                    fShortPass |= Access[1] != null && Access[1].durationFrom(Access[0]) < MaxCheck / 3;
+                }
+                AssertSameAccesses(Scen.Stations.get(s).Name + (fPrescreen ? " prescreened" : ""), Expected,
+                        Accesses.get(s));
+            }
+            assertTrue(fShortPass);
+        }
+    }
+
+    // Search starting in the middle of a pass: the access begins at the start and its set time is found.
+    @Test
+    public void StationInViewAtStart()
+    {
+        Scenario Scen = CreateScenario(true, null);
+        AbsoluteDate[] Pass = Reference(Scen, 1, null, Scen.TimeStart, Scen.TimeEnd).get(0);
+        AbsoluteDate Start = Pass[0].shiftedBy(Pass[1].durationFrom(Pass[0]) / 2);
+        AbsoluteDate End = Start.shiftedBy(6 * 3600);
+        List<List<AbsoluteDate[]>> Accesses = Search(Scen, Start, End);
+        List<AbsoluteDate[]> Expected = Reference(Scen, 1, null, Start, End);
+        assertEquals(Start, Expected.get(0)[0]);
+        AssertSameAccesses("In view at start", Expected, Accesses.get(1));
+    }
+
+    // Mask partly below the minimum elevation: the satellite has to be above both.
+    @Test
+    public void MaskAndMinimumElevation()
+    {
+        double[][] Mask = {{0, 2}, {90, 10}, {180, 5}, {270, 3}};
+        Scenario Scen = CreateScenario(true, Mask);
+        assertEquals(Math.toRadians(SvalbardMinElevation), Scen.Stations.get(1).LowestElevation, 1e-15);
+        List<AbsoluteDate[]> Expected = Reference(Scen, 1, Mask, Scen.TimeStart, Scen.TimeEnd);
+        assertFalse(Expected.isEmpty());
+        AssertSameAccesses("Masked", Expected, Search(Scen, Scen.TimeStart, Scen.TimeEnd).get(1));
+    }
+}
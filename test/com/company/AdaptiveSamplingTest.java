@@ -0,0 +1,142 @@
+/*
+Tests of the adaptive sun angle sampling.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.time.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSamplingTest
+{
+    private static final double Tolerance = 0.01;   // (deg)
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        Settings.fDisplayMessages = false;
+    }
+
+    // Polar orbit whose plane passes Offset deg beside the Sun, on a 0.25 s grid with binary output into Results. The
+    // minimum step is small enough for the fast azimuth swing of small offsets.
+    private static Settings CreateSettings(double Offset, double AdaptiveTolerance, File Results)
+    {
+        Map<String, String> Overrides = new HashMap<>();
+        Overrides.put("SimStartYear", "2020");
+        Overrides.put("SimStartMonth", "03");
+        Overrides.put("SimStartDay", "01");
+        Overrides.put("SimDurationInDays", "0.1");
+        Overrides.put("SimTimeStep", "0.25");
+        Overrides.put("SimAdaptiveMinStep", "0.1");
+        Overrides.put("SatInclination", "90");
+        Overrides.put("SimAdaptiveTolerance", String.valueOf(AdaptiveTolerance));
+        Overrides.put("ExpSunAnglesFormat", "binary");
+        Overrides.put("ResultsDirectory", Results.getPath());
+        Settings Set = new Settings(Settings.CreateDefault(), Overrides);
+        Scenario Scen = new Scenario(Set);
+        Vector3D Sun = Scen.Sun.getPVCoordinates(Scen.TimeStart, Scen.InertialFrame).getPosition();
+        Overrides.put("SatRAAN", String.valueOf(Math.toDegrees(Sun.getAlpha()) + Offset));
+        return new Settings(Settings.CreateDefault(), Overrides);
+    }
+
+    // Rows of a run as {time offset, azimuth, elevation, subsolar}.
+    private static List<double[]> Run(Settings Set) throws Exception
+    {
+        PropagationRun Run = new PropagationRun(Set, new Scenario(Set));
+        Run.fShowProgress = false;
+        Run.Execute();
+        String Path = Set.GetValue("ResultsDirectory") + "/" + Set.GetValue("ExpFileSunAngles").replaceFirst("\\.csv$", "") + ".bin";
+        List<double[]> Rows = new ArrayList<>();
+        try (BinarySunAngleReader Reader = new BinarySunAngleReader(Path)) {
+            Reader.ReadAll(new SunAngleSink() {
+                public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra)
+                {
+                    Rows.add(new double[] {Date.durationFrom(Reader.Epoch), Azimuth, Elevation, Subsolar});
+                }
+
+                public void Close()
+                {
+                }
+            });
+        }
+        return Rows;
+    }
+
+    // Angle difference in (-180, 180] deg.
+    private static double Wrap(double Delta)
+    {
+        return Delta - 360 * Math.ceil((Delta - 180) / 360);
+    }
+
+    // Over a pass close to the subsolar point, where the Sun azimuth swings through 180 deg with an inflection point,
+    // linear interpolation between the adaptive rows reproduces every row of a dense run within the tolerance.
+    @Test
+    public void InterpolationWithinTolerance() throws Exception
+    {
+        File Root = Files.createTempDirectory("adaptive-sampling").toFile();
+        try {
+            for (double Offset : new double[] {0.5, 2, 5}) {
+                File Dense = new File(Root, "Dense" + Offset), Adaptive = new File(Root, "Adaptive" + Offset);
+                Dense.mkdirs();
+                Adaptive.mkdirs();
+                List<double[]> Reference = Run(CreateSettings(Offset, 0, Dense));
+                List<double[]> Rows = Run(CreateSettings(Offset, Tolerance, Adaptive));
+                assertTrue(Rows.size() < Reference.size() / 20);
+
+                double MaxElevation = 0, MaxError = 0;
+                int r = 0;
+                for (double[] Row : Reference) {
+                    MaxElevation = Math.max(MaxElevation, Math.abs(Row[2]));
+                    while (r < Rows.size() - 2 && Rows.get(r + 1)[0] <= Row[0]) {
+                        r++;
+                    }
+                    double[] First = Rows.get(r), Last = Rows.get(r + 1);
+                    double f = (Row[0] - First[0]) / (Last[0] - First[0]);
+                    for (int c = 1; c < 4; c++) {
+                        double Delta = Last[c] - First[c];
+                        double Interpolated = First[c] + f * (c == 1 ? Wrap(Delta) : Delta);
+                        MaxError = Math.max(MaxError, Math.abs(c == 1 ? Wrap(Row[c] - Interpolated) : Row[c] - Interpolated));
+                    }
+                }
+                assertTrue("Offset " + Offset + ": largest elevation " + MaxElevation, MaxElevation > 90 - 1.5 * Offset);
+                assertTrue("Offset " + Offset + ": largest error " + MaxError + " deg", MaxError <= Tolerance);
+            }
+        } finally {
+            for (File Directory : Root.listFiles()) {
+                for (File Result : Directory.listFiles()) {
+                    Result.delete();
+                }
+                Directory.delete();
+            }
+            Root.delete();
+        }
+    }
+}
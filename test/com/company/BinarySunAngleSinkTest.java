@@ -0,0 +1,129 @@
+/*
+Tests of the binary sun angle file.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.time.*;
+
+import static org.junit.Assert.*;
+
+public class BinarySunAngleSinkTest
+{
+    private static AbsoluteDate Epoch;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        Epoch = new AbsoluteDate(2020, 3, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+    }
+
+    // Values of row r, time offset first and then the extra columns.
+    private static double[] Row(long r, int NumExtra)
+    {
+        double[] Values = new double[BinarySunAngleSink.Columns.length + NumExtra];
+        Values[0] = r * 0.5;
+        for (int c = 1; c < Values.length; c++) {
+            Values[c] = r + c / 16.0;
+        }
+        return Values;
+    }
+
+    // Chunks of uneven length appended to one file are re-blocked: every block but the last holds BlockRows rows, so
+    // each row is read back by its index as well as in sequence.
+    @Test
+    public void ChunksReadByRowIndex() throws IOException
+    {
+        int[] ExtraColumns = SunAngleKernel.SelectExtra("Umbra;EarthRadius");
+        long[] ChunkRows = {5000, 1, BinarySunAngleSink.BlockRows + 3000, 7000, 0, 2500};
+        File Directory = Files.createTempDirectory("binary-sun-angles").toFile();
+        File Path = new File(Directory, "SunAngles.bin");
+        List<File> Parts = new ArrayList<>();
+        try {
+            // Chunks written by their own sinks
+            long Rows = 0;
+            for (long Count : ChunkRows) {
+                File Part = new File(Directory, "Chunk" + Parts.size() + ".binpart");
+                Parts.add(Part);
+                SunAngleSink Sink = new BinarySunAngleSink(new FileOutputStream(Part).getChannel(), Epoch, ExtraColumns);
+                for (long r = Rows; r < Rows + Count; r++) {
+                    double[] Values = Row(r, ExtraColumns.length);
+                    double[] Extra = new double[ExtraColumns.length];
+                    System.arraycopy(Values, BinarySunAngleSink.Columns.length, Extra, 0, Extra.length);
+                    Sink.Write(Epoch.shiftedBy(Values[0]), Values[1], Values[2], Values[3], Extra);
+                }
+                Sink.Close();
+                Rows += Count;
+            }
+
+            // Header and re-blocked chunks
+            try (FileChannel Channel = FileChannel.open(Path.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                BinarySunAngleSink.WriteHeader(Channel, Epoch, Rows, ExtraColumns);
+            }
+            BinarySunAngleSink Merged = new BinarySunAngleSink(new FileOutputStream(Path, true).getChannel(), Epoch,
+                    ExtraColumns);
+            for (File Part : Parts) {
+                Merged.Append(Part);
+            }
+            Merged.Close();
+
+            try (BinarySunAngleReader Reader = new BinarySunAngleReader(Path.getPath())) {
+                assertEquals(Rows, Reader.Rows);
+                double[] Values = new double[BinarySunAngleSink.Columns.length + ExtraColumns.length];
+                for (long r = Rows - 1; r >= 0; r--) {
+                    Reader.ReadRow(r, Values);
+                    assertArrayEquals("Row " + r, Row(r, ExtraColumns.length), Values, 0);
+                }
+
+                // All rows in sequence
+                long[] Count = {0};
+                Reader.ReadAll(new SunAngleSink() {
+                    public void Write(AbsoluteDate Date, double Azimuth, double Elevation, double Subsolar, double[] Extra)
+                    {
+                        double[] Expected = Row(Count[0]++, ExtraColumns.length);
+                        assertEquals(Expected[1], Azimuth, 0);
+                        assertEquals(Expected[3], Subsolar, 0);
+                        assertEquals(Expected[5], Extra[1], 0);
+                    }
+
+                    public void Close()
+                    {
+                    }
+                });
+                assertEquals(Rows, Count[0]);
+            }
+        } finally {
+            for (File Part : Parts) {
+                Part.delete();
+            }
+            Path.delete();
+            Directory.delete();
+        }
+    }
+}
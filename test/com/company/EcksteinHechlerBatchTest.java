@@ -0,0 +1,104 @@
+/*
+Tests of the Eckstein-Hechler block evaluation against the Orekit propagator.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.frames.*;
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.analytical.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+
+import static org.junit.Assert.*;
+
+public class EcksteinHechlerBatchTest
+{
+    private static Frame InertialFrame;
+    private static AbsoluteDate Epoch;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        InertialFrame = FramesFactory.getEME2000();
+        Epoch = new AbsoluteDate(2020, 3, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+    }
+
+    // Batch and propagator of the same orbit, EIGEN-5C zonal terms as in PropagatorBackend.
+    private static EcksteinHechlerBatch Batch(Orbit Initial)
+    {
+        return new EcksteinHechlerBatch(Initial, Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS, Constants.EIGEN5C_EARTH_MU,
+                Constants.EIGEN5C_EARTH_C20, Constants.EIGEN5C_EARTH_C30, Constants.EIGEN5C_EARTH_C40,
+                Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60);
+    }
+
+    private static Propagator Reference(Orbit Initial)
+    {
+        return new EcksteinHechlerPropagator(Initial, Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS, Constants.EIGEN5C_EARTH_MU,
+                Constants.EIGEN5C_EARTH_C20, Constants.EIGEN5C_EARTH_C30, Constants.EIGEN5C_EARTH_C40,
+                Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60);
+    }
+
+    // Grids of non-integer steps, starting off the epoch and one year after it.
+    @Test
+    public void Orbits()
+    {
+        AbsoluteDate Origin = Epoch.shiftedBy(0.123456789);
+        for (double Inclination : new double[] {28.5, 51.6, 97.4, 116}) {
+            for (double Eccentricity : new double[] {0, 0.001, 0.01, 0.05}) {
+                Orbit Initial = new KeplerianOrbit(7000000 / (1 - Eccentricity), Eccentricity, Math.toRadians(Inclination),
+                        Math.toRadians(30), Math.toRadians(104.6), Math.toRadians(10), PositionAngle.MEAN, InertialFrame,
+                        Epoch, Constants.EIGEN5C_EARTH_MU);
+                EcksteinHechlerBatch Batch = Batch(Initial);
+                Propagator Reference = Reference(Initial);
+                for (double Step : new double[] {0.7, 13.37, 59.999}) {
+                    for (long First : new long[] {0, Math.round(365.25 * 86400 / Step)}) {
+                        String Case = "i = " + Inclination + ", e = " + Eccentricity + ", step = " + Step + ", first = " + First;
+                        double[] Deviation = Batch.Deviation(Reference, Origin, First, Step, 1500);
+                        assertTrue(Case + ": " + Deviation[0] + " m", Deviation[0] <= EcksteinHechlerBatch.PositionTolerance);
+                        assertTrue(Case + ": " + Deviation[1] + " m/s", Deviation[1] <= EcksteinHechlerBatch.VelocityTolerance);
+                    }
+                }
+            }
+        }
+    }
+
+    // Grid before the epoch and blocks smaller than the count.
+    @Test
+    public void BackwardGrid()
+    {
+        Orbit Initial = new CircularOrbit(6878137, 0.0005, -0.0003, Math.toRadians(97.4), Math.toRadians(200), 1,
+                PositionAngle.MEAN, InertialFrame, Epoch, Constants.EIGEN5C_EARTH_MU);
+        double[] Deviation = Batch(Initial).Deviation(Reference(Initial), Epoch.shiftedBy(-30 * 86400.0), 0, 7.3, 3000);
+        assertTrue(Deviation[0] <= EcksteinHechlerBatch.PositionTolerance);
+        assertTrue(Deviation[1] <= EcksteinHechlerBatch.VelocityTolerance);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void BlockTooSmall()
+    {
+        Orbit Initial = new CircularOrbit(6878137, 0, 0, Math.toRadians(97.4), 0, 0, PositionAngle.MEAN, InertialFrame,
+                Epoch, Constants.EIGEN5C_EARTH_MU);
+        Batch(Initial).Evaluate(Epoch, 0, 1.0, 65, new EcksteinHechlerBatch.Block(64));
+    }
+}
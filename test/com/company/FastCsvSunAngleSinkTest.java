@@ -0,0 +1,141 @@
+/*
+Tests of the block CSV encoder against the formatted CSV output.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.time.*;
+
+import static org.junit.Assert.*;
+
+public class FastCsvSunAngleSinkTest
+{
+    private static TimeScale UTC;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        UTC = TimeScalesFactory.getUTC();
+    }
+
+    // Rows written to both sinks.
+    private interface Rows
+    {
+        void WriteTo(SunAngleSink Sink) throws IOException;
+    }
+
+    // Both sinks write the same lines.
+    private static void AssertSameOutput(int[] ExtraColumns, Rows Rows) throws IOException
+    {
+        StringWriter Formatted = new StringWriter(), Encoded = new StringWriter();
+        SunAngleSink Reference = new CsvSunAngleSink(new PrintWriter(Formatted), ExtraColumns);
+        SunAngleSink Fast = new FastCsvSunAngleSink(new PrintWriter(Encoded), ExtraColumns);
+        Rows.WriteTo(Reference);
+        Rows.WriteTo(Fast);
+        Reference.Close();
+        Fast.Close();
+        String[] Expected = Formatted.toString().split("\n", -1), Actual = Encoded.toString().split("\n", -1);
+        assertEquals(Expected.length, Actual.length);
+        for (int k = 0; k < Expected.length; k++) {
+            assertEquals("Row " + k, Expected[k], Actual[k]);
+        }
+    }
+
+    // Angles on rounding ties and near the carry into the next digit, and dates around a leap second and rollovers.
+    @Test
+    public void EdgeRows() throws IOException
+    {
+        double[] Angles = {0, 0.0625, 0.3125, 1.1875, 0.0005, 0.0015, 9.9995, 99.9995, 99.9996, 359.9995, 359.99951,
+                -0.0004, -0.0005, -0.0625, -9.9996, -89.9999, 179.99949999, 1e-12, -1e-12};
+        AbsoluteDate[] Dates = {
+                new AbsoluteDate(2016, 12, 31, 23, 59, 59.9995, UTC),
+                new AbsoluteDate(2016, 12, 31, 23, 59, 60.0, UTC),
+                new AbsoluteDate(2016, 12, 31, 23, 59, 60.5, UTC),
+                new AbsoluteDate(2016, 12, 31, 23, 59, 60.9996, UTC),
+                new AbsoluteDate(2017, 1, 1, 0, 0, 0.0, UTC),
+                new AbsoluteDate(2019, 2, 28, 23, 59, 59.9996, UTC),
+                new AbsoluteDate(2020, 2, 29, 12, 0, 0.0625, UTC),
+                new AbsoluteDate(2020, 12, 31, 23, 59, 59.9994, UTC),
+                new AbsoluteDate(2021, 1, 9, 9, 9, 9.0005, UTC)};
+        AssertSameOutput(new int[0], Sink -> {
+            for (AbsoluteDate Date : Dates) {
+                for (double Angle : Angles) {
+                    Sink.Write(Date, Angle, Angle, Math.abs(Angle));
+                }
+            }
+        });
+    }
+
+    // Random rows on grids with irregular steps, including the extra columns.
+    @Test
+    public void RandomRows() throws IOException
+    {
+        int[] ExtraColumns = SunAngleKernel.SelectExtra(String.join(";", SunAngleKernel.ExtraNames));
+        double[] Steps = {1, 0.1, 0.001, 1.0 / 3, 7.3, 86399.9995};
+        AbsoluteDate[] Starts = {new AbsoluteDate(2020, 1, 1, 0, 0, 0.0, UTC), new AbsoluteDate(2016, 12, 31, 23, 0, 0.0, UTC)};
+        Random Random = new Random(42);
+        for (AbsoluteDate Start : Starts) {
+            for (double Step : Steps) {
+                long Seed = Random.nextLong();
+                AssertSameOutput(ExtraColumns, Sink -> {
+                    Random Values = new Random(Seed);
+                    double[] Extra = new double[ExtraColumns.length];
+                    for (int k = 0; k < 20000; k++) {
+                        for (int e = 0; e < Extra.length; e++) {
+                            Extra[e] = SunAngleKernel.ExtraIsFlag[ExtraColumns[e]] ? Values.nextInt(2) : (Values.nextDouble() - 0.5) * 360;
+                        }
+                        double Azimuth = Values.nextDouble() * 360, Elevation = (Values.nextDouble() - 0.5) * 180;
+                        if (k % 5 == 0) {
+                            Azimuth = Math.round(Azimuth * 2000) / 2000.0;
+                        }
+                        if (k % 13 == 0) {
+                            Elevation = -Values.nextDouble() * 0.001;
+                        }
+                        Sink.Write(Start.shiftedBy(k * Step), Azimuth, Elevation, Values.nextDouble() * 180, Extra);
+                    }
+                });
+            }
+        }
+    }
+
+    // A row longer than the encoder capacity, e.g. with a long station name, is written in full.
+    @Test
+    public void LongRowGrowsBuffer() throws IOException
+    {
+        String Name = new String(new char[1000]).replace('\0', 'x');
+        AbsoluteDate Date = new AbsoluteDate(2020, 2, 29, 12, 0, 1.25, UTC);
+        CsvRowEncoder Encoder = new CsvRowEncoder(16);
+        Encoder.Append(12345);
+        Encoder.Append(',');
+        Encoder.Append(Name);
+        Encoder.Append(',');
+        Encoder.AppendDate(Date);
+        Encoder.Append(',');
+        Encoder.AppendFixed3(-123.4567, 7);
+        StringWriter Out = new StringWriter();
+        Encoder.Flush(Out);
+        assertEquals("12345," + Name + ",29 Feb 2020 12:00:01.250,-123.457", Out.toString());
+    }
+}
@@ -0,0 +1,113 @@
+/*
+Tests of the orekit data snapshot.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+import org.orekit.data.*;
+
+import static org.junit.Assert.*;
+
+public class OrekitDataSnapshotTest
+{
+    // Loader keeping the names and lines it is fed.
+    private static class LineLoader implements DataLoader
+    {
+        final List<String> Names = new ArrayList<>();
+        final List<String> Lines = new ArrayList<>();
+
+        @Override
+        public boolean stillAcceptsData()
+        {
+            return true;
+        }
+
+        @Override
+        public void loadData(InputStream Input, String Name) throws IOException
+        {
+            Names.add(Name);
+            BufferedReader Reader = new BufferedReader(new InputStreamReader(Input, StandardCharsets.US_ASCII));
+            for (String Line = Reader.readLine(); Line != null; Line = Reader.readLine()) {
+                Lines.add(Line);
+            }
+        }
+    }
+
+    // EOP line in the IERS column format with the MJD in columns 8-15.
+    private static String EOPLine(int MJD)
+    {
+        return String.format("200301 %8.2f I  0.100000 0.000010", (double) MJD);
+    }
+
+    // A gzipped EOP column file is stored uncompressed under the name the loaders match, and cut to the window.
+    @Test
+    public void CompressedFileFedUnderUncompressedName() throws IOException
+    {
+        File Directory = Files.createTempDirectory("orekit-data").toFile();
+        File DataFile = new File(Directory, "finals.daily.gz");
+        File SnapshotFile = new File(Directory, "snapshot.bin");
+        DataProvidersManager Manager = DataProvidersManager.getInstance();
+        try {
+            try (Writer Out = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(DataFile)),
+                    StandardCharsets.US_ASCII)) {
+                for (int MJD = 58800; MJD <= 59000; MJD += 10) {
+                    Out.write(EOPLine(MJD) + "\n");
+                }
+            }
+            LineLoader Recorded = new LineLoader();
+            OrekitDataSnapshot.Build(Directory, SnapshotFile, 58900, 58910,
+                    () -> Manager.feed("^finals\\.daily$", Recorded));
+            assertEquals(21, Recorded.Lines.size());
+
+            OrekitDataSnapshot Snapshot = OrekitDataSnapshot.Open(SnapshotFile);
+            assertNotNull(Snapshot);
+            assertEquals(1, Snapshot.EntryCount());
+            assertTrue(Snapshot.Covers(58900, 58910));
+            assertFalse(Snapshot.Covers(58895, 58910));
+            assertFalse(Snapshot.Covers(58900, 58915));
+            LineLoader Fed = new LineLoader();
+            assertTrue(Snapshot.feed(Pattern.compile("^finals\\.daily$"), Fed));
+            assertEquals(1, Fed.Names.size());
+            assertEquals("finals.daily", Fed.Names.get(0));
+            List<String> Expected = new ArrayList<>();
+            for (int MJD = 58890; MJD <= 58920; MJD += 10) {
+                Expected.add(EOPLine(MJD));
+            }
+            assertEquals(Expected, Fed.Lines);
+        } finally {
+            for (DataProvider Provider : new ArrayList<>(Manager.getProviders())) {
+                if (Provider instanceof OrekitDataSnapshot) {
+                    Manager.removeProvider(Provider);
+                }
+            }
+            SnapshotFile.delete();
+            DataFile.delete();
+            Directory.delete();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+Tests of the time-sliced propagation against a single-threaded run.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.propagation.*;
+import org.orekit.propagation.events.*;
+
+import static org.junit.Assert.*;
+
+public class PropagationRunTest
+{
+    private static final double Duration = 0.5;     // (d)
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        Settings.fDisplayMessages = false;
+    }
+
+    // Two stations with CSV and binary output of all extra columns, run on Threads threads with results in Results.
+    private static Settings CreateSettings(int Threads, File Results)
+    {
+        Map<String, String> Overrides = new HashMap<>();
+        Overrides.put("SimStartYear", "2020");
+        Overrides.put("SimStartMonth", "03");
+        Overrides.put("SimStartDay", "01");
+        Overrides.put("SimDurationInDays", String.valueOf(Duration));
+        Overrides.put("SimTimeStep", "30");
+        Overrides.put("SimSunCacheAccuracy", "0");
+        Overrides.put("SimThreads", String.valueOf(Threads));
+        Overrides.put("GroundStations", "Freiburg;Svalbard");
+        Overrides.put("GroundStation.Freiburg.Lat", "48.001081");
+        Overrides.put("GroundStation.Freiburg.Lon", "7.846619");
+        Overrides.put("GroundStation.Freiburg.MinElevation", "10");
+        Overrides.put("GroundStation.Svalbard.Lat", "78.23");
+        Overrides.put("GroundStation.Svalbard.Lon", "15.39");
+        Overrides.put("GroundStation.Svalbard.MinElevation", "5");
+        Overrides.put("ExpSunAnglesFormat", "both");
+        Overrides.put("ExpExtraColumns", String.join(";", SunAngleKernel.ExtraNames));
+        Overrides.put("ResultsDirectory", Results.getPath());
+        return new Settings(Settings.CreateDefault(), Overrides);
+    }
+
+    private static void Run(Settings Set) throws Exception
+    {
+        PropagationRun Run = new PropagationRun(Set, new Scenario(Set));
+        Run.fShowProgress = false;
+        Run.Execute();
+    }
+
+    // True if a station is in view at a border between the chunks of a run on Threads threads.
+    private static boolean AccessAtChunkBorder(Scenario Scen, int Threads)
+    {
+        long NumChunks = Math.min(Scen.TimeSteps, (long) Threads * PropagationRun.ChunksPerThread);
+        Propagator Propagator = Scen.CreatePropagator();
+        for (long c = 1; c < NumChunks; c++) {
+            SpacecraftState State = Propagator.propagate(Scen.StepDate(Scen.TimeSteps * c / NumChunks));
+            for (GroundStation Station : Scen.Stations) {
+                ElevationDetector Detector = new ElevationDetector(Station.Frame)
+                        .withConstantElevation(Math.toRadians(Station.MinElevation));
+                if (Detector.g(State) > 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void AssertSameFile(File Expected, File Actual) throws IOException
+    {
+        assertTrue(Actual.getName(), Files.readAllBytes(Expected.toPath()).length > 0);
+        assertArrayEquals(Actual.getName(), Files.readAllBytes(Expected.toPath()), Files.readAllBytes(Actual.toPath()));
+    }
+
+    private static void Delete(File Path)
+    {
+        File[] Children = Path.listFiles();
+        if (Children != null) {
+            for (File Child : Children) {
+                Delete(Child);
+            }
+        }
+        Path.delete();
+    }
+
+    // A run split into time chunks on several threads, with an access open across a chunk border, writes the same
+    // sun angle CSV and binary file and the same accesses as a run on one thread.
+    @Test
+    public void ThreadedSameAsSingleThread() throws Exception
+    {
+        File Root = Files.createTempDirectory("propagation-run").toFile();
+        try {
+            File Single = new File(Root, "Single"), Threaded = new File(Root, "Threaded");
+            Single.mkdirs();
+            Threaded.mkdirs();
+            Settings Set = CreateSettings(1, Single);
+            Run(Set);
+
+            Scenario Scen = new Scenario(Set);
+            int Threads = 2;
+            while (Threads <= 16 && !AccessAtChunkBorder(Scen, Threads)) {
+                Threads++;
+            }
+            assertTrue("No access across a chunk border", Threads <= 16);
+            Run(CreateSettings(Threads, Threaded));
+
+            String BinaryFile = Set.GetValue("ExpFileSunAngles").replaceFirst("\\.csv$", "") + ".bin";
+            for (String Name : new String[] {Set.GetValue("ExpFileSunAngles"), BinaryFile, Set.GetValue("ExpFileAccessTimes")}) {
+                AssertSameFile(new File(Single, Name), new File(Threaded, Name));
+            }
+            String[] Parts = Threaded.list((Directory, Name) -> Name.endsWith("part"));
+            assertEquals(0, Parts.length);
+        } finally {
+            Delete(Root);
+        }
+    }
+}
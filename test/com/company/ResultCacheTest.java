@@ -0,0 +1,143 @@
+/*
+Tests of the result cache.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.propagation.*;
+import org.orekit.propagation.events.*;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest
+{
+    private static final double TimeStep = 30;
+    private static final double PrefixStep = 86400.0 / 64;      // prefix durations on the time grid, exact in days
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        Settings.fDisplayMessages = false;
+    }
+
+    // Two stations over Duration (d), results in Results and cached in Cache (null = no cache).
+    private static Settings CreateSettings(double Duration, File Results, File Cache)
+    {
+        Map<String, String> Overrides = new HashMap<>();
+        Overrides.put("SimStartYear", "2020");
+        Overrides.put("SimStartMonth", "03");
+        Overrides.put("SimStartDay", "01");
+        Overrides.put("SimDurationInDays", String.valueOf(Duration));
+        Overrides.put("SimTimeStep", String.valueOf(TimeStep));
+        Overrides.put("SimSunCacheAccuracy", "0");
+        Overrides.put("SimThreads", "2");
+        Overrides.put("GroundStations", "Freiburg;Svalbard");
+        Overrides.put("GroundStation.Freiburg.Lat", "48.001081");
+        Overrides.put("GroundStation.Freiburg.Lon", "7.846619");
+        Overrides.put("GroundStation.Freiburg.MinElevation", "10");
+        Overrides.put("GroundStation.Svalbard.Lat", "78.23");
+        Overrides.put("GroundStation.Svalbard.Lon", "15.39");
+        Overrides.put("GroundStation.Svalbard.MinElevation", "5");
+        Overrides.put("ResultsDirectory", Results.getPath());
+        Overrides.put("CacheDirectory", Cache != null ? Cache.getPath() : "");
+        return new Settings(Settings.CreateDefault(), Overrides);
+    }
+
+    private static Scenario Run(Settings Set) throws Exception
+    {
+        Scenario Scen = new Scenario(Set);
+        PropagationRun Run = new PropagationRun(Set, Scen);
+        Run.fShowProgress = false;
+        Run.Execute();
+        return Scen;
+    }
+
+    // First prefix duration (s) at which Svalbard is in view, so the cached prefix ends with an open access.
+    private static double PrefixInView(Scenario Scen)
+    {
+        GroundStation Station = Scen.Stations.get(1);
+        ElevationDetector Detector = new ElevationDetector(Station.Frame)
+                .withConstantElevation(Math.toRadians(Station.MinElevation));
+        Propagator Propagator = Scen.CreatePropagator();
+        for (double Duration = PrefixStep; Duration < Scen.SimDurationInSec; Duration += PrefixStep) {
+            if (Detector.g(Propagator.propagate(Scen.TimeStart.shiftedBy(Duration))) > 0) {
+                return Duration;
+            }
+        }
+        throw new IllegalStateException("No prefix in view.");
+    }
+
+    private static void AssertSameFile(File Expected, File Actual) throws IOException
+    {
+        assertTrue(Actual.getName(), Files.readAllBytes(Expected.toPath()).length > 0);
+        assertArrayEquals(Actual.getName(), Files.readAllBytes(Expected.toPath()), Files.readAllBytes(Actual.toPath()));
+    }
+
+    private static void Delete(File Path)
+    {
+        File[] Children = Path.listFiles();
+        if (Children != null) {
+            for (File Child : Children) {
+                Delete(Child);
+            }
+        }
+        Path.delete();
+    }
+
+    // A run continuing a cached shorter run, which ends during an access, writes the same rows and accesses as a
+    // fresh run.
+    @Test
+    public void CachedPrefixPlusTailSameAsFreshRun() throws Exception
+    {
+        File Root = Files.createTempDirectory("result-cache").toFile();
+        try {
+            File Fresh = new File(Root, "Fresh"), Continued = new File(Root, "Continued"), Cache = new File(Root, "Cache");
+            Fresh.mkdirs();
+            Continued.mkdirs();
+            double Duration = 0.5;
+            Scenario Scen = Run(CreateSettings(Duration, Fresh, null));
+
+            double Prefix = PrefixInView(Scen);
+            Run(CreateSettings(Prefix / 86400, Continued, Cache));
+            Settings Set = CreateSettings(Duration, Continued, Cache);
+            ResultCache.Entry Cached = ResultCache.Open(Set, new Scenario(Set)).Find();
+            assertNotNull(Cached);
+            assertFalse(Cached.fComplete);
+            assertEquals(Math.round(Prefix / TimeStep), Cached.Steps);
+            Run(Set);
+
+            for (String Name : new String[] {Set.GetValue("ExpFileSunAngles"), Set.GetValue("ExpFileAccessTimes")}) {
+                AssertSameFile(new File(Fresh, Name), new File(Continued, Name));
+            }
+            Cached = ResultCache.Open(Set, new Scenario(Set)).Find();
+            assertTrue(Cached.fComplete);
+        } finally {
+            Delete(Root);
+        }
+    }
+}
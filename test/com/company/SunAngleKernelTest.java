@@ -0,0 +1,119 @@
+/*
+Tests of the sun angle kernel against the frame-based reference.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.bodies.*;
+import org.orekit.frames.*;
+import org.orekit.orbits.*;
+import org.orekit.propagation.*;
+import org.orekit.propagation.analytical.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+import static org.junit.Assert.*;
+
+public class SunAngleKernelTest
+{
+    private static Frame InertialFrame;
+    private static CelestialBody Sun;
+    private static AbsoluteDate Start;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        InertialFrame = FramesFactory.getEME2000();
+        Sun = new TestData.AnalyticalSun();
+        Start = new AbsoluteDate(2020, 3, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+    }
+
+    // Kernel angles of a propagator over three days against ComputeReference and Vector3D.angle.
+    private static void CheckOrbit(Propagator Propagator)
+    {
+        SunAngleKernel Kernel = new SunAngleKernel();
+        for (int k = 0; k < 2000; k++) {
+            AbsoluteDate Date = Start.shiftedBy(k * 131.7);
+            TimeStampedPVCoordinates PV = Propagator.propagate(Date).getPVCoordinates(InertialFrame);
+            Vector3D Earth2Sun = Sun.getPVCoordinates(Date, InertialFrame).getPosition();
+            Kernel.Compute(PV, Earth2Sun);
+            assertEquals(0, Kernel.Deviation(SunAngleKernel.ComputeReference(PV, Sun, InertialFrame)), SunAngleKernel.Tolerance);
+            assertEquals(Math.toDegrees(Vector3D.angle(Earth2Sun, PV.getPosition())), Kernel.Subsolar, SunAngleKernel.Tolerance);
+            assertTrue(Kernel.Azimuth >= 0 && Kernel.Azimuth <= 360);
+            assertTrue(Math.abs(Kernel.Elevation) <= 90);
+        }
+    }
+
+    @Test
+    public void SunSynchronousOrbit()
+    {
+        Orbit Initial = new CircularOrbit(6878137, 0, 0, Math.toRadians(97.4), Math.toRadians(104.6), 0,
+                PositionAngle.MEAN, InertialFrame, Start, Constants.EIGEN5C_EARTH_MU);
+        CheckOrbit(new EcksteinHechlerPropagator(Initial, Constants.EIGEN5C_EARTH_EQUATORIAL_RADIUS,
+                Constants.EIGEN5C_EARTH_MU, Constants.EIGEN5C_EARTH_C20, Constants.EIGEN5C_EARTH_C30,
+                Constants.EIGEN5C_EARTH_C40, Constants.EIGEN5C_EARTH_C50, Constants.EIGEN5C_EARTH_C60));
+    }
+
+    @Test
+    public void EquatorialOrbit()
+    {
+        Orbit Initial = new CircularOrbit(7078137, 0, 0, Math.toRadians(0.5), 0, 0,
+                PositionAngle.MEAN, InertialFrame, Start, Constants.EIGEN5C_EARTH_MU);
+        CheckOrbit(new KeplerianPropagator(Initial));
+    }
+
+    @Test
+    public void EccentricOrbit()
+    {
+        Orbit Initial = new KeplerianOrbit(24000000, 0.7, Math.toRadians(63.4), Math.toRadians(270), Math.toRadians(40),
+                0, PositionAngle.MEAN, InertialFrame, Start, Constants.EIGEN5C_EARTH_MU);
+        CheckOrbit(new KeplerianPropagator(Initial));
+    }
+
+    // Sun along each satellite axis: X gives azimuth 0, Y azimuth 90, -Y azimuth 270, Z elevation 90.
+    @Test
+    public void AxisDirections()
+    {
+        SunAngleKernel Kernel = new SunAngleKernel();
+        double r = 7e6, v = 7.5e3, d = 1.5e11;
+
+        // Position on +X, velocity on +Y: VVLH Z = -X, Y = -Z (negative orbit normal), X = +Y.
+        Kernel.Compute(r, 0, 0, 0, v, 0, r, d, 0);
+        assertEquals(0, Kernel.Azimuth, 1e-9);
+        assertEquals(0, Kernel.Elevation, 1e-9);
+        Kernel.Compute(r, 0, 0, 0, v, 0, r, 0, -d);
+        assertEquals(90, Kernel.Azimuth, 1e-9);
+        Kernel.Compute(r, 0, 0, 0, v, 0, r, 0, d);
+        assertEquals(270, Kernel.Azimuth, 1e-9);
+        Kernel.Compute(r, 0, 0, 0, v, 0, -d, 0, 0);
+        assertEquals(90, Kernel.Elevation, 1e-9);
+        assertEquals(180, Kernel.Subsolar, 1e-9);
+
+        // Nadir pointing sees the Earth at elevation 90 deg.
+        int[] Selection = SunAngleKernel.SelectExtra("EarthElevation;Umbra");
+        double[] Extra = new double[Selection.length];
+        Kernel.ComputeExtra(Selection, Extra);
+        assertEquals(90, Extra[0], 1e-9);
+        assertEquals(1, Extra[1], 0);
+    }
+}
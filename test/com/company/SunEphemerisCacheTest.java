@@ -0,0 +1,111 @@
+/*
+Tests of the interpolated Sun ephemeris cache.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.Random;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.frames.*;
+import org.orekit.time.*;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+import static org.junit.Assert.*;
+
+// Caches are shared within the JVM, so each test uses its own Sun.
+public class SunEphemerisCacheTest
+{
+    private static Frame InertialFrame;
+    private static AbsoluteDate Start;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        InertialFrame = FramesFactory.getEME2000();
+        Start = new AbsoluteDate(2020, 3, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+    }
+
+    // Largest angle (deg) between cached and direct Sun position at random dates in [Start, End].
+    private static double MaxDeviation(SunEphemerisCache Cache, TestData.AnalyticalSun Sun, AbsoluteDate End)
+    {
+        Random Random = new Random(7);
+        double[] Position = new double[3];
+        double Max = 0;
+        for (int k = 0; k < 20000; k++) {
+            AbsoluteDate Date = Start.shiftedBy(Random.nextDouble() * End.durationFrom(Start));
+            Cache.Position(Date, Position);
+            Vector3D Direct = Sun.getPVCoordinates(Date, InertialFrame).getPosition();
+            Max = Math.max(Max, Math.toDegrees(Vector3D.angle(Direct, new Vector3D(Position))));
+        }
+        return Max;
+    }
+
+    @Test
+    public void Accuracy()
+    {
+        AbsoluteDate End = Start.shiftedBy(60 * 86400.0);
+        for (double Accuracy : new double[] {1e-6, 1e-8, 1e-9}) {
+            TestData.AnalyticalSun Sun = new TestData.AnalyticalSun();
+            SunEphemerisCache Cache = SunEphemerisCache.Get(Sun, InertialFrame, Start, End, Accuracy);
+            assertNotNull(Cache);
+            assertTrue(Cache.MaxDeviation <= Accuracy);
+            assertEquals(0, MaxDeviation(Cache, Sun, End), Accuracy);
+        }
+    }
+
+    @Test
+    public void Reuse()
+    {
+        TestData.AnalyticalSun Sun = new TestData.AnalyticalSun();
+        AbsoluteDate End = Start.shiftedBy(10 * 86400.0);
+        SunEphemerisCache Cache = SunEphemerisCache.Get(Sun, InertialFrame, Start, End, 1e-8);
+        int Evaluations = Sun.Evaluations;
+
+        // A shorter span with a looser accuracy is served by the same cache.
+        assertSame(Cache, SunEphemerisCache.Get(Sun, InertialFrame, Start.shiftedBy(3600), End, 1e-7));
+        assertEquals(Evaluations, Sun.Evaluations);
+        assertNotSame(Cache, SunEphemerisCache.Get(Sun, InertialFrame, Start, End, 1e-10));
+    }
+
+    @Test
+    public void UnreachableAccuracy()
+    {
+        TestData.AnalyticalSun Sun = new TestData.AnalyticalSun();
+        AbsoluteDate End = Start.shiftedBy(2 * 86400.0);
+        assertNull(SunEphemerisCache.Get(Sun, InertialFrame, Start, End, 1e-16));
+
+        // The failure is remembered for the same span and any tighter accuracy.
+        int Evaluations = Sun.Evaluations;
+        assertNull(SunEphemerisCache.Get(Sun, InertialFrame, Start, End, 1e-16));
+        assertNull(SunEphemerisCache.Get(Sun, InertialFrame, Start.shiftedBy(3600), End, 1e-17));
+        assertEquals(Evaluations, Sun.Evaluations);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void OutsideSpan()
+    {
+        TestData.AnalyticalSun Sun = new TestData.AnalyticalSun();
+        AbsoluteDate End = Start.shiftedBy(86400.0);
+        SunEphemerisCache Cache = SunEphemerisCache.Get(Sun, InertialFrame, Start, End, 1e-8);
+        Cache.Position(End.shiftedBy(3 * 86400.0), new double[3]);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+Tests of the sweep file parsing.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SweepRunTest
+{
+    @BeforeClass
+    public static void SetUp()
+    {
+        Settings.fDisplayMessages = false;
+    }
+
+    // Sweep over the grid entries on default settings.
+    private static SweepRun Read(Properties Grid) throws IOException
+    {
+        File SweepFile = File.createTempFile("sweep", ".xml");
+        try {
+            try (OutputStream Out = new FileOutputStream(SweepFile)) {
+                Grid.storeToXML(Out, null);
+            }
+            return new SweepRun(Settings.CreateDefault(), SweepFile.getPath());
+        } finally {
+            SweepFile.delete();
+        }
+    }
+
+    // Value of a key in all cases, in case order.
+    private static List<String> CaseValues(SweepRun Sweep, String Key)
+    {
+        List<String> Result = new ArrayList<>();
+        for (Settings Case : Sweep.CaseSettings()) {
+            Result.add(Case.GetValue(Key));
+        }
+        return Result;
+    }
+
+    // Ranges and lists are expanded, the last key varying fastest.
+    @Test
+    public void RangesAndLists() throws IOException
+    {
+        Properties Grid = new Properties();
+        Grid.setProperty("SatAltitude", "400000:50000:500000");
+        Grid.setProperty("SatInclination", "97.4;98");
+        SweepRun Sweep = Read(Grid);
+        assertEquals(Arrays.asList("400000", "400000", "450000", "450000", "500000", "500000"), CaseValues(Sweep, "SatAltitude"));
+        assertEquals(Arrays.asList("97.4", "98", "97.4", "98", "97.4", "98"), CaseValues(Sweep, "SatInclination"));
+    }
+
+    // Values containing ';' and ':' are given per case and used as given, in index order.
+    @Test
+    public void IndexedValuesUsedAsGiven() throws IOException
+    {
+        Properties Grid = new Properties();
+        Grid.setProperty("GroundStations[2]", "Freiburg");
+        Grid.setProperty("GroundStations[1]", "Freiburg;Svalbard");
+        Grid.setProperty("GroundStation.Freiburg.ElevationMask[1]", "0:5;90:10");
+        Grid.setProperty("GroundStation.Freiburg.ElevationMask[10]", "0:10;180:20;360:10");
+        SweepRun Sweep = Read(Grid);
+        assertEquals(Arrays.asList("0:5;90:10", "0:5;90:10", "0:10;180:20;360:10", "0:10;180:20;360:10"),
+                CaseValues(Sweep, "GroundStation.Freiburg.ElevationMask"));
+        assertEquals(Arrays.asList("Freiburg;Svalbard", "Freiburg", "Freiburg;Svalbard", "Freiburg"),
+                CaseValues(Sweep, "GroundStations"));
+    }
+
+    // An elevation mask given as list would be split into its breakpoints.
+    @Test(expected = IllegalArgumentException.class)
+    public void CompoundValueAsListRejected() throws IOException
+    {
+        Properties Grid = new Properties();
+        Grid.setProperty("GroundStation.Freiburg.ElevationMask", "0:5;90:10");
+        Read(Grid);
+    }
+
+    // A key given both ways is ambiguous.
+    @Test(expected = IllegalArgumentException.class)
+    public void ListAndIndexedValuesRejected() throws IOException
+    {
+        Properties Grid = new Properties();
+        Grid.setProperty("SatAltitude", "400000;500000");
+        Grid.setProperty("SatAltitude[1]", "600000");
+        Read(Grid);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+Orekit data and an analytical Sun for the unit tests.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.io.File;
+
+import org.orekit.bodies.*;
+import org.orekit.data.*;
+import org.orekit.frames.*;
+import org.orekit.time.*;
+import org.orekit.utils.*;
+import org.hipparchus.RealFieldElement;
+import org.hipparchus.geometry.euclidean.threed.*;
+
+// The tests use the time scales, EOP and potential files in Libraries/orekit-data (path in the system property
+// orekit.data). It has no planetary ephemerides, so the Sun is an analytical orbit: the annual motion on the
+// ecliptic plus the Earth's monthly wobble around the Earth-Moon barycenter, which is what limits the Sun cache. It is
+// also registered as the Sun of CelestialBodyFactory, so scenarios can be set up.
+final class TestData
+{
+    private static boolean fLoaded = false;
+
+    static synchronized void Load()
+    {
+        if (!fLoaded) {
+            File OrekitData = new File(System.getProperty("orekit.data", "../Libraries/orekit-data"));
+            DataProvidersManager.getInstance().addProvider(new DirectoryCrawler(OrekitData));
+            CelestialBodyFactory.addCelestialBodyLoader(CelestialBodyFactory.SUN, Name -> new AnalyticalSun());
+            fLoaded = true;
+        }
+    }
+
+    static final class AnalyticalSun implements CelestialBody
+    {
+        private static final long serialVersionUID = 1L;
+        private static final double YearRate = 2 * Math.PI / (365.25 * 86400), MonthRate = 2 * Math.PI / (27.32 * 86400);
+        private static final double Radius = 1.496e11, Wobble = 4.67e6;
+        private static final double CosObliquity = Math.cos(Math.toRadians(23.44)), SinObliquity = Math.sin(Math.toRadians(23.44));
+
+        // Number of ephemeris evaluations.
+        int Evaluations = 0;
+
+        @Override
+        public TimeStampedPVCoordinates getPVCoordinates(AbsoluteDate Date, Frame OutputFrame)
+        {
+            Evaluations++;
+            double t = Date.durationFrom(AbsoluteDate.J2000_EPOCH);
+            double x = Radius * Math.cos(YearRate * t) + Wobble * Math.cos(MonthRate * t);
+            double y = Radius * Math.sin(YearRate * t) + Wobble * Math.sin(MonthRate * t);
+            double vx = -Radius * YearRate * Math.sin(YearRate * t) - Wobble * MonthRate * Math.sin(MonthRate * t);
+            double vy = Radius * YearRate * Math.cos(YearRate * t) + Wobble * MonthRate * Math.cos(MonthRate * t);
+            TimeStampedPVCoordinates PV = new TimeStampedPVCoordinates(Date,
+                    new Vector3D(x, y * CosObliquity, y * SinObliquity), new Vector3D(vx, vy * CosObliquity, vy * SinObliquity));
+            return FramesFactory.getEME2000().getTransformTo(OutputFrame, Date).transformPVCoordinates(PV);
+        }
+
+        // Same orbit as above in field arithmetic.
+        @Override
+        public <T extends RealFieldElement<T>> TimeStampedFieldPVCoordinates<T> getPVCoordinates(FieldAbsoluteDate<T> Date, Frame OutputFrame)
+        {
+            Evaluations++;
+            T t = Date.durationFrom(AbsoluteDate.J2000_EPOCH);
+            T CosYear = t.multiply(YearRate).cos(), SinYear = t.multiply(YearRate).sin();
+            T CosMonth = t.multiply(MonthRate).cos(), SinMonth = t.multiply(MonthRate).sin();
+            T x = CosYear.multiply(Radius).add(CosMonth.multiply(Wobble));
+            T y = SinYear.multiply(Radius).add(SinMonth.multiply(Wobble));
+            T vx = SinYear.multiply(-Radius * YearRate).subtract(SinMonth.multiply(Wobble * MonthRate));
+            T vy = CosYear.multiply(Radius * YearRate).add(CosMonth.multiply(Wobble * MonthRate));
+            TimeStampedFieldPVCoordinates<T> PV = new TimeStampedFieldPVCoordinates<>(Date,
+                    new FieldVector3D<>(x, y.multiply(CosObliquity), y.multiply(SinObliquity)),
+                    new FieldVector3D<>(vx, vy.multiply(CosObliquity), vy.multiply(SinObliquity)),
+                    FieldVector3D.getZero(t.getField()));
+            return FramesFactory.getEME2000().getTransformTo(OutputFrame, Date).transformPVCoordinates(PV);
+        }
+
+        @Override
+        public Frame getInertiallyOrientedFrame()
+        {
+            return FramesFactory.getEME2000();
+        }
+
+        @Override
+        public Frame getBodyOrientedFrame()
+        {
+            return FramesFactory.getEME2000();
+        }
+
+        @Override
+        public String getName()
+        {
+            return "Sun";
+        }
+
+        @Override
+        public double getGM()
+        {
+            return Constants.JPL_SSD_SUN_GM;
+        }
+    }
+}
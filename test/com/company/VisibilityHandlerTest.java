@@ -0,0 +1,105 @@
+/*
+Tests of the stitching of station accesses collected in time chunks.
+
+The Fraunhofer-Gesellschaft zur Foerderung der angewandten Forschung e.V.,
+Hansastrasse 27c, 80686 Munich, Germany (further: Fraunhofer) is the holder
+of all proprietary rights on this computer program. You can only use this
+computer program if you have closed a license agreement with Fraunhofer or
+you get the right to use the computer program from someone who is authorized
+to grant you that right. Any use of the computer program without a valid
+license is prohibited and liable to prosecution.
+
+The use of this software is only allowed under the terms and condition of the
+General Public License version 2.0 (GPL 2.0).
+
+Copyright©2019 Gesellschaft zur Foerderung der angewandten Forschung e.V. acting
+on behalf of its Fraunhofer Institut für  Kurzzeitdynamik. All rights reserved.
+
+Contact: max.gulde@emi.fraunhofer.de
+ */
+
+package com.company;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.orekit.time.*;
+
+import static org.junit.Assert.*;
+
+public class VisibilityHandlerTest
+{
+    private static AbsoluteDate Start;
+
+    @BeforeClass
+    public static void SetUp()
+    {
+        TestData.Load();
+        Start = new AbsoluteDate(2020, 3, 1, 0, 0, 0.0, TimeScalesFactory.getUTC());
+    }
+
+    private static AbsoluteDate At(double Seconds)
+    {
+        return Start.shiftedBy(Seconds);
+    }
+
+    // Chunk starting at Seconds with the given {begin, end} accesses, end < 0 for an access still open.
+    private static VisibilityHandler Chunk(double Seconds, double... Accesses)
+    {
+        List<AbsoluteDate[]> List = new ArrayList<>();
+        for (int k = 0; k < Accesses.length; k += 2) {
+            List.add(new AbsoluteDate[] {At(Accesses[k]), Accesses[k + 1] < 0 ? null : At(Accesses[k + 1])});
+        }
+        return new VisibilityHandler("Station", At(Seconds), List);
+    }
+
+    private static void AssertAccesses(List<AbsoluteDate[]> Result, double... Expected)
+    {
+        assertEquals(Expected.length / 2, Result.size());
+        for (int k = 0; k < Result.size(); k++) {
+            assertEquals(At(Expected[2 * k]), Result.get(k)[0]);
+            assertEquals(At(Expected[2 * k + 1]), Result.get(k)[1]);
+        }
+    }
+
+    @Test
+    public void OpenAccessJoinsChunkStartingInView()
+    {
+        // The middle chunk starts in view and keeps the access open until the last chunk.
+        VisibilityHandler Middle = new VisibilityHandler("Station", At(1000));
+        Middle.StartInView(At(1000));
+        Middle.FinishChunk();
+        List<AbsoluteDate[]> Result = VisibilityHandler.Stitch(Arrays.asList(
+                Chunk(0, 100, -1), Middle, Chunk(2000, 2000, 2050, 2500, 2600)));
+        AssertAccesses(Result, 100, 2050, 2500, 2600);
+    }
+
+    @Test
+    public void OpenAccessEndsAtChunkWithoutAccesses()
+    {
+        // The chunk at 1000 neither starts in view nor has accesses, the access at 2000 is a new one.
+        List<AbsoluteDate[]> Result = VisibilityHandler.Stitch(Arrays.asList(
+                Chunk(0, 100, -1), Chunk(1000), Chunk(2000, 2000, 2100)));
+        AssertAccesses(Result, 100, 1000, 2000, 2100);
+    }
+
+    @Test
+    public void OpenAccessEndsAtChunkStartingOutOfView()
+    {
+        List<AbsoluteDate[]> Result = VisibilityHandler.Stitch(Arrays.asList(
+                Chunk(0, 100, -1), Chunk(1000, 1200, 1300)));
+        AssertAccesses(Result, 100, 1000, 1200, 1300);
+    }
+
+    @Test
+    public void TrailingEmptyChunkClosesOpenAccess()
+    {
+        List<AbsoluteDate[]> Result = VisibilityHandler.Stitch(Arrays.asList(Chunk(0, 100, -1), Chunk(1000)), true);
+        AssertAccesses(Result, 100, 1000);
+        assertEquals(1, VisibilityHandler.Stitch(Collections.singletonList(Chunk(0, 100, -1)), true).size());
+    }
+}